@@ -22,7 +22,9 @@ CREATE TABLE IF NOT EXISTS `bookLib`.`reader` (
                                                   `name` VARCHAR(100) NOT NULL,
     `password_hash` VARCHAR(255) NOT NULL,
     `created_at` TIMESTAMP NULL DEFAULT CURRENT_TIMESTAMP,
-    PRIMARY KEY (`id`))
+    PRIMARY KEY (`id`),
+    -- reader filter autocompletion: name LIKE 'prefix%' ORDER BY name LIMIT n
+    INDEX `reader_name_idx` (`name` ASC) VISIBLE)
     ENGINE = InnoDB;
 
 
@@ -36,7 +38,12 @@ CREATE TABLE IF NOT EXISTS `bookLib`.`book` (
     `genre` VARCHAR(50) NOT NULL,
     `language` VARCHAR(10) NULL DEFAULT 'en',
     `created_at` TIMESTAMP NULL DEFAULT CURRENT_TIMESTAMP,
-    PRIMARY KEY (`id`))
+    PRIMARY KEY (`id`),
+    -- sessions by genre: genre -> book ids -> reading_session_book_created_idx;
+    -- also serves SELECT DISTINCT genre for the genre filter
+    INDEX `book_genre_idx` (`genre` ASC) VISIBLE,
+    -- book filter autocompletion: title LIKE 'prefix%' ORDER BY title LIMIT n
+    INDEX `book_title_idx` (`title` ASC) VISIBLE)
     ENGINE = InnoDB;
 
 
@@ -106,30 +113,80 @@ CREATE TABLE IF NOT EXISTS `bookLib`.`book_status` (
 
 
 -- -----------------------------------------------------
--- Table `bookLib`.`reading_session`
+-- Table `bookLib`.`book_status_current`
+-- current status per (reader, book); `book_status` keeps the full history
 -- -----------------------------------------------------
-CREATE TABLE IF NOT EXISTS `bookLib`.`reading_session` (
-                                                           `id` BIGINT NOT NULL AUTO_INCREMENT,
-                                                           `reader_id` BIGINT NOT NULL,
-                                                           `book_id` BIGINT NOT NULL,
-                                                           `pages_read` INT NOT NULL,
-                                                           `duration_minutes` INT NOT NULL,
-                                                           `created_at` TIMESTAMP NULL DEFAULT CURRENT_TIMESTAMP,
-                                                           PRIMARY KEY (`id`),
-    INDEX `fk_reading_session_reader1_idx` (`reader_id` ASC) VISIBLE,
-    INDEX `fk_reading_session_book1_idx` (`book_id` ASC) VISIBLE,
-    CONSTRAINT `fk_reading_session_reader1`
+CREATE TABLE IF NOT EXISTS `bookLib`.`book_status_current` (
+                                                               `reader_id` BIGINT NOT NULL,
+                                                               `book_id` BIGINT NOT NULL,
+                                                               `status` ENUM('WANT_TO_READ', 'READING', 'FINISHED') NOT NULL DEFAULT 'WANT_TO_READ',
+    `updated_at` TIMESTAMP NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (`reader_id`, `book_id`),
+    INDEX `book_status_current_reader_status_idx` (`reader_id` ASC, `status` ASC, `book_id` ASC) VISIBLE,
+    INDEX `fk_book_status_current_book1_idx` (`book_id` ASC) VISIBLE,
+    CONSTRAINT `fk_book_status_current_reader1`
     FOREIGN KEY (`reader_id`)
     REFERENCES `bookLib`.`reader` (`id`)
-    ON DELETE NO ACTION
+    ON DELETE CASCADE
     ON UPDATE NO ACTION,
-    CONSTRAINT `fk_reading_session_book1`
+    CONSTRAINT `fk_book_status_current_book1`
     FOREIGN KEY (`book_id`)
     REFERENCES `bookLib`.`book` (`id`)
-    ON DELETE NO ACTION
+    ON DELETE CASCADE
     ON UPDATE NO ACTION)
     ENGINE = InnoDB;
 
+-- backfill from existing history: the latest row per (reader, book) wins
+INSERT IGNORE INTO `bookLib`.`book_status_current` (`reader_id`, `book_id`, `status`, `updated_at`)
+SELECT bs.`reader_id`, bs.`book_id`, bs.`status`, bs.`created_at`
+FROM `bookLib`.`book_status` bs
+WHERE bs.`id` = (SELECT MAX(h.`id`) FROM `bookLib`.`book_status` h
+                 WHERE h.`reader_id` = bs.`reader_id` AND h.`book_id` = bs.`book_id`);
+
+
+-- -----------------------------------------------------
+-- Table `bookLib`.`reading_session`
+-- partitioned by month of created_at; SessionPartitionManager splits `pmax` into monthly
+-- partitions and moves partitions past the retention window to the archive.
+-- Partitioned InnoDB tables cannot have foreign keys, and every unique key has to contain
+-- the partitioning column, hence PRIMARY KEY (id, created_at).
+-- -----------------------------------------------------
+CREATE TABLE IF NOT EXISTS `bookLib`.`reading_session` (
+                                                           `id` BIGINT NOT NULL AUTO_INCREMENT,
+                                                           `reader_id` BIGINT NOT NULL,
+                                                           `book_id` BIGINT NOT NULL,
+                                                           `pages_read` INT NOT NULL,
+                                                           `duration_minutes` INT NOT NULL,
+                                                           `created_at` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+                                                           PRIMARY KEY (`id`, `created_at`),
+    -- covering indexes for ReadingSessionDao.find: filter column(s) first, then created_at for
+    -- the range and the ORDER BY, then the remaining columns so no clustered row is read
+    INDEX `reading_session_reader_created_idx` (`reader_id` ASC, `created_at` ASC, `book_id`, `pages_read`, `duration_minutes`) VISIBLE,
+    INDEX `reading_session_book_created_idx` (`book_id` ASC, `created_at` ASC, `reader_id`, `pages_read`, `duration_minutes`) VISIBLE,
+    INDEX `reading_session_created_at_idx` (`created_at` ASC, `reader_id`, `book_id`, `pages_read`, `duration_minutes`) VISIBLE)
+    ENGINE = InnoDB
+    PARTITION BY RANGE COLUMNS (`created_at`) (
+        PARTITION `p_old` VALUES LESS THAN ('2025-01-01 00:00:00'),
+        PARTITION `pmax` VALUES LESS THAN (MAXVALUE));
+
+-- existing databases:
+-- ALTER TABLE `bookLib`.`reading_session`
+--     DROP FOREIGN KEY `fk_reading_session_reader1`, DROP FOREIGN KEY `fk_reading_session_book1`;
+-- UPDATE `bookLib`.`reading_session` SET `created_at` = CURRENT_TIMESTAMP WHERE `created_at` IS NULL;
+-- ALTER TABLE `bookLib`.`reading_session`
+--     MODIFY `created_at` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+--     DROP PRIMARY KEY, ADD PRIMARY KEY (`id`, `created_at`);
+-- ALTER TABLE `bookLib`.`reading_session` PARTITION BY RANGE COLUMNS (`created_at`) (
+--     PARTITION `p_old` VALUES LESS THAN ('2025-01-01 00:00:00'),
+--     PARTITION `pmax` VALUES LESS THAN (MAXVALUE));
+-- ALTER TABLE `bookLib`.`reading_session`
+--     DROP INDEX `fk_reading_session_reader1_idx`, DROP INDEX `fk_reading_session_book1_idx`,
+--     DROP INDEX `reading_session_created_at_idx`,
+--     ADD INDEX `reading_session_reader_created_idx` (`reader_id`, `created_at`, `book_id`, `pages_read`, `duration_minutes`),
+--     ADD INDEX `reading_session_book_created_idx` (`book_id`, `created_at`, `reader_id`, `pages_read`, `duration_minutes`),
+--     ADD INDEX `reading_session_created_at_idx` (`created_at`, `reader_id`, `book_id`, `pages_read`, `duration_minutes`);
+-- ALTER TABLE `bookLib`.`book` ADD INDEX `book_genre_idx` (`genre`);
+
 
 -- -----------------------------------------------------
 -- Table `bookLib`.`review`
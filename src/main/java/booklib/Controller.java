@@ -1,6 +1,9 @@
 package booklib;
 
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -10,19 +13,63 @@ import javafx.scene.control.*;
 import javafx.scene.input.MouseEvent;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
+import javafx.util.Duration;
+import javafx.util.StringConverter;
+import booklib.books.Book;
+import booklib.books.BookShelf;
+import booklib.events.ChangeEvent;
+import booklib.readers.Reader;
 import booklib.readingSessions.ReadingSession;
 import booklib.readingSessions.ReadingSessionController;
 import booklib.readingSessions.ReadingSessionDao;
+import booklib.readingSessions.SessionQuery;
 
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 public class Controller {
 
+    // sessions per query of the list; "More" loads the next page after the last shown session
+    private static final int PAGE_SIZE = 200;
+    // suggestions per keystroke in the reader/book filter, looked up after a short pause in typing
+    private static final int SUGGESTIONS = 20;
+    private static final int SUGGESTION_DELAY_MS = 250;
+
     private final ReadingSessionDao sessionDao = Factory.INSTANCE.getReadingSessionDao();
 
+    private final ObservableList<ReadingSession> sessions = FXCollections.observableArrayList();
+
+    // row objects shown in the list, by session id
+    private final Map<Long, ReadingSession> sessionsById = new HashMap<>();
+
+    // current filter bar selection
+    private SessionQuery filter = new SessionQuery().setLimit(PAGE_SIZE);
+
     @FXML
     private ListView<ReadingSession> sessionsListView;
 
+    @FXML
+    private ListView<Book> booksListView;
+
+    @FXML
+    private ComboBox<Reader> readerFilterComboBox;
+
+    @FXML
+    private ComboBox<Book> bookFilterComboBox;
+
+    @FXML
+    private ComboBox<String> genreFilterComboBox;
+
+    @FXML
+    private DatePicker fromDatePicker;
+
+    @FXML
+    private DatePicker toDatePicker;
+
     @FXML
     private Button addSessionButton;
 
@@ -31,6 +78,14 @@ public class Controller {
 
     @FXML
     void initialize() {
+        if (booksListView != null) {
+            // profile of the reader this client is running for
+            new BookShelf(booksListView, Factory.INSTANCE.getBookDao()).show(Long.getLong("READER_ID", 1L));
+        }
+        if (sessionsListView == null) {
+            return;
+        }
+
         sessionsListView.setCellFactory(listView -> new ListCell<>() {
             @Override
             protected void updateItem(ReadingSession item, boolean empty) {
@@ -47,11 +102,161 @@ public class Controller {
             }
         });
 
+        sessionsListView.setItems(sessions);
+        if (readerFilterComboBox != null) {
+            initFilterBar();
+        }
         refreshList();
+
+        Factory.INSTANCE.getChangeEventBus().subscribe(ReadingSession.class, event -> {
+            if (Platform.isFxApplicationThread()) {
+                applyChange(event);
+            } else {
+                Platform.runLater(() -> applyChange(event));
+            }
+        });
+    }
+
+    // readers and books are not loaded up front: the boxes suggest matches of what is typed
+    private void initFilterBar() {
+        var readerDao = Factory.INSTANCE.getReaderDao();
+        var bookDao = Factory.INSTANCE.getBookDao();
+        autocomplete(readerFilterComboBox, Reader::getName, readerDao::findByNamePrefix);
+        autocomplete(bookFilterComboBox, Book::getTitle, bookDao::findByTitlePrefix);
+        genreFilterComboBox.getItems().setAll(bookDao.findGenres());
+
+        readerFilterComboBox.valueProperty().addListener((obs, oldVal, newVal) -> applyFilter());
+        bookFilterComboBox.valueProperty().addListener((obs, oldVal, newVal) -> applyFilter());
+        genreFilterComboBox.valueProperty().addListener((obs, oldVal, newVal) -> applyFilter());
+        fromDatePicker.valueProperty().addListener((obs, oldVal, newVal) -> applyFilter());
+        toDatePicker.valueProperty().addListener((obs, oldVal, newVal) -> applyFilter());
+    }
+
+    private static <T> void autocomplete(ComboBox<T> comboBox, Function<T, String> label,
+                                         BiFunction<String, Integer, List<T>> lookup) {
+        comboBox.setEditable(true);
+        comboBox.setConverter(new StringConverter<>() {
+            @Override
+            public String toString(T item) {
+                return item == null ? "" : label.apply(item);
+            }
+
+            // only one of the suggestions can be chosen
+            @Override
+            public T fromString(String string) {
+                return comboBox.getItems().stream()
+                        .filter(item -> label.apply(item).equals(string))
+                        .findFirst()
+                        .orElse(null);
+            }
+        });
+
+        var pause = new PauseTransition(Duration.millis(SUGGESTION_DELAY_MS));
+        comboBox.getEditor().textProperty().addListener((obs, oldText, text) -> {
+            var value = comboBox.getValue();
+            if (value != null && label.apply(value).equals(text)) {
+                return;
+            }
+            pause.setOnFinished(e -> {
+                comboBox.getItems().setAll(text == null || text.isBlank() ? List.of() : lookup.apply(text, SUGGESTIONS));
+                if (!comboBox.getItems().isEmpty() && comboBox.getEditor().isFocused()) {
+                    comboBox.show();
+                }
+            });
+            pause.playFromStart();
+        });
+    }
+
+    // the whole filter is one ReadingSessionDao.find call, not a full load filtered here
+    private void applyFilter() {
+        var reader = readerFilterComboBox.getValue();
+        var book = bookFilterComboBox.getValue();
+        var from = fromDatePicker.getValue();
+        var to = toDatePicker.getValue();
+        filter = new SessionQuery()
+                .setReaderId(reader != null ? reader.getId() : null)
+                .setBookId(book != null ? book.getId() : null)
+                .setGenre(genreFilterComboBox.getValue())
+                .setFrom(from != null ? from.atStartOfDay() : null)
+                // the "to" day is included
+                .setTo(to != null ? to.plusDays(1).atStartOfDay() : null)
+                .setLimit(PAGE_SIZE);
+        refreshList();
+    }
+
+    // the next page of the same filter, after the last session in the list
+    @FXML
+    void moreSessionsButtonAction(ActionEvent event) {
+        var last = sessions.isEmpty() ? null : sessions.get(sessions.size() - 1);
+        var loaded = sessionDao.find(filter.nextPage(last, PAGE_SIZE));
+        for (var session : loaded) {
+            if (sessionsById.putIfAbsent(session.getId(), session) == null) {
+                sessions.add(session);
+            }
+        }
+    }
+
+    @FXML
+    void clearFilterButtonAction(ActionEvent event) {
+        readerFilterComboBox.setValue(null);
+        bookFilterComboBox.setValue(null);
+        genreFilterComboBox.setValue(null);
+        fromDatePicker.setValue(null);
+        toDatePicker.setValue(null);
     }
 
     private void refreshList() {
-        sessionsListView.setItems(FXCollections.observableArrayList(sessionDao.findAllSortedByDate()));
+        var loaded = sessionDao.find(filter);
+        sessionsById.clear();
+        loaded.forEach(session -> sessionsById.put(session.getId(), session));
+        sessions.setAll(loaded);
+    }
+
+    // patches only the affected row instead of reloading the whole list
+    private void applyChange(ChangeEvent<ReadingSession> event) {
+        switch (event.type()) {
+            case CREATED -> {
+                if (!filter.matches(event.entity())) {
+                    return;
+                }
+                // new sessions are the most recent ones
+                sessionsById.put(event.id(), event.entity());
+                sessions.add(0, event.entity());
+            }
+            case UPDATED -> {
+                var row = sessionsById.get(event.id());
+                var updated = event.entity();
+                if (row == null) {
+                    // moved into the filter: insert at its place in the newest-first list
+                    if (filter.matches(updated)) {
+                        int index = 0;
+                        while (index < sessions.size() && SessionQuery.NEWEST_FIRST.compare(sessions.get(index), updated) < 0) {
+                            index++;
+                        }
+                        sessionsById.put(event.id(), updated);
+                        sessions.add(index, updated);
+                    }
+                    return;
+                }
+                if (!filter.matches(updated)) {
+                    sessionsById.remove(event.id());
+                    sessions.remove(row);
+                    return;
+                }
+                row.setReader(updated.getReader());
+                row.setBook(updated.getBook());
+                row.setPagesRead(updated.getPagesRead());
+                row.setDurationMinutes(updated.getDurationMinutes());
+                row.setCreatedAt(updated.getCreatedAt());
+                sessionsListView.refresh();
+            }
+            case DELETED -> {
+                var row = sessionsById.remove(event.id());
+                if (row != null) {
+                    sessions.remove(row);
+                }
+            }
+        }
     }
 
     private void openSessionWindow(ReadingSession sessionToEdit) {
@@ -74,8 +279,6 @@ public class Controller {
         stage.setTitle(sessionToEdit == null ? "New reading session" : "Edit reading session");
         stage.setScene(scene);
         stage.showAndWait();
-
-        refreshList();
     }
 
     @FXML
@@ -107,6 +310,5 @@ public class Controller {
         }
 
         sessionDao.delete(selected.getId());
-        refreshList();
     }
 }
@@ -1,45 +1,185 @@
 package booklib;
 
-import com.mysql.cj.jdbc.MysqlDataSource;
+import booklib.cache.QueryCache;
+import booklib.cache.TableVersions;
+import booklib.events.ChangeEventBus;
+import booklib.favorites.FavoriteDao;
+import booklib.favorites.FavoritesIndex;
+import booklib.favorites.MysqlFavoriteDao;
+import booklib.leaderboards.LeaderboardService;
+import booklib.routing.ReadWriteRouter;
+import booklib.routing.ReplicaSet;
+import booklib.books.RemoteBookDao;
+import booklib.readers.RemoteReaderDao;
+import booklib.readingSessions.RemoteReadingSessionDao;
+import booklib.remote.RemoteClient;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
 import org.springframework.jdbc.core.JdbcOperations;
 import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.io.File;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import booklib.books.BookDao;
+import booklib.books.CachingBookDao;
 import booklib.books.MysqlBookDao;
+import booklib.readers.CachingReaderDao;
 import booklib.readers.MysqlReaderDao;
 import booklib.readers.ReaderDao;
+import booklib.readingSessions.CachingReadingSessionDao;
 import booklib.readingSessions.MysqlReadingSessionDao;
 import booklib.readingSessions.ReadingSessionDao;
+import booklib.readingSessions.SessionArchive;
+import booklib.readingSessions.SessionPartitionManager;
+import booklib.readingSessions.ShardedReadingSessionDao;
+import booklib.readingSessions.TieredReadingSessionDao;
 
 public enum Factory {
     INSTANCE;
 
     private volatile JdbcOperations jdbcOperations;
+    private volatile JdbcOperations primaryJdbcOperations;
+    private volatile List<JdbcOperations> shardJdbcOperations;
     private volatile ReaderDao readerDao;
     private volatile BookDao bookDao;
     private volatile ReadingSessionDao readingSessionDao;
+    private volatile QueryCache queryCache;
+    private volatile ReplicaSet replicaSet;
+    private volatile RemoteClient remoteClient;
+    private volatile SessionArchive sessionArchive;
+    private volatile FavoriteDao favoriteDao;
+    private volatile FavoritesIndex favoritesIndex;
+    private volatile LeaderboardService leaderboardService;
+
+    private final ChangeEventBus changeEventBus = new ChangeEventBus();
 
     private final Object lock = new Object();
 
+    // all DAOs publish their writes here
+    public ChangeEventBus getChangeEventBus() {
+        return changeEventBus;
+    }
+
+    public QueryCache getQueryCache() {
+        if (queryCache == null) {
+            synchronized (lock) {
+                if (queryCache == null) {
+                    long maxBytes = Long.parseLong(System.getProperty("CACHE_MAX_MB", "64")) << 20;
+                    // replicas are only known once the database is set up; without them nothing is held back
+                    queryCache = new QueryCache(new TableVersions(), maxBytes, () -> {
+                        var replicas = replicaSet;
+                        return replicas != null ? replicas.maxStalenessMillis() : 0;
+                    });
+                }
+            }
+        }
+        return queryCache;
+    }
+
     public JdbcOperations getMysqlJdbcOperations() {
         if (jdbcOperations == null) {
             synchronized (lock) {
                 if (jdbcOperations == null) {
-                    var dataSource = new MysqlDataSource();
-                    dataSource.setUrl(System.getProperty("DB_JDBC", "jdbc:mysql://localhost:3306/bookLib"));
-                    dataSource.setUser(System.getProperty("DB_USER", "bookLib"));
-                    dataSource.setPassword(System.getProperty("DB_PASSWORD", "bookLib"));
-                    jdbcOperations = new JdbcTemplate(dataSource);
+                    var primary = new JdbcTemplate(createDataSource(
+                            System.getProperty("DB_JDBC", "jdbc:mysql://localhost:3306/bookLib")));
+                    primaryJdbcOperations = primary;
+
+                    // DB_REPLICAS = comma separated JDBC urls of read replicas (same user/password)
+                    var replicaUrls = System.getProperty("DB_REPLICAS", "").trim();
+                    if (replicaUrls.isEmpty()) {
+                        jdbcOperations = primary;
+                    } else {
+                        var replicas = new ArrayList<ReplicaSet.Replica>();
+                        for (var url : replicaUrls.split(",")) {
+                            replicas.add(new ReplicaSet.Replica(url.trim(), new JdbcTemplate(createDataSource(url.trim()))));
+                        }
+                        replicaSet = new ReplicaSet(replicas,
+                                Long.parseLong(System.getProperty("DB_REPLICA_MAX_LAG_SECONDS", "5")),
+                                Long.parseLong(System.getProperty("DB_REPLICA_RETRY_MS", "10000")));
+                        replicaSet.startHealthChecks(Long.parseLong(System.getProperty("DB_REPLICA_CHECK_MS", "5000")));
+                        // never shorter than the lag a replica may have (DB_REPLICA_MAX_LAG_SECONDS + check interval)
+                        jdbcOperations = ReadWriteRouter.create(primary, replicaSet,
+                                Long.parseLong(System.getProperty("DB_READ_YOUR_WRITES_MS", "0")));
+                    }
                 }
             }
         }
         return jdbcOperations;
     }
 
+    // the primary even when replicas are configured (maintenance, DDL)
+    public JdbcOperations getPrimaryJdbcOperations() {
+        getMysqlJdbcOperations();
+        return primaryJdbcOperations;
+    }
+
+    // null when no replicas are configured
+    public ReplicaSet getReplicaSet() {
+        getMysqlJdbcOperations();
+        return replicaSet;
+    }
+
+    private static DataSource createDataSource(String url) {
+        var config = new HikariConfig();
+        config.setJdbcUrl(url);
+        config.setUsername(System.getProperty("DB_USER", "bookLib"));
+        config.setPassword(System.getProperty("DB_PASSWORD", "bookLib"));
+        config.setMaximumPoolSize(Integer.getInteger("DB_POOL_SIZE", 10));
+        // do not fail on start if the database (or a replica) is not up yet
+        config.setInitializationFailTimeout(-1);
+        return new HikariDataSource(config);
+    }
+
+    // DB_SHARDS = comma separated JDBC urls of the reading_session shards (empty = not sharded);
+    // for a local run e.g. jdbc:h2:mem:shard0;MODE=MySQL;DB_CLOSE_DELAY=-1,jdbc:h2:mem:shard1;MODE=MySQL;DB_CLOSE_DELAY=-1
+    public List<JdbcOperations> getShardJdbcOperations() {
+        if (shardJdbcOperations == null) {
+            synchronized (lock) {
+                if (shardJdbcOperations == null) {
+                    var shards = new ArrayList<JdbcOperations>();
+                    for (var url : System.getProperty("DB_SHARDS", "").split(",")) {
+                        if (!url.isBlank()) {
+                            shards.add(new JdbcTemplate(createDataSource(url.trim())));
+                        }
+                    }
+                    shardJdbcOperations = List.copyOf(shards);
+                }
+            }
+        }
+        return shardJdbcOperations;
+    }
+
+    // BOOKLIB_SERVER = url of a server started with --server; the DAOs then go through it
+    // BOOKLIB_CONNECT_TIMEOUT_MS / BOOKLIB_REQUEST_TIMEOUT_MS = how long to wait for the connection / the response
+    // BOOKLIB_TOKEN = the token of that server, needed for anything but reading
+    public RemoteClient getRemoteClient() {
+        var serverUrl = System.getProperty("BOOKLIB_SERVER");
+        if (serverUrl == null || serverUrl.isBlank()) {
+            return null;
+        }
+        if (remoteClient == null) {
+            synchronized (lock) {
+                if (remoteClient == null) {
+                    remoteClient = new RemoteClient(serverUrl, System.getProperty("BOOKLIB_TOKEN"),
+                            Duration.ofMillis(Long.parseLong(System.getProperty("BOOKLIB_CONNECT_TIMEOUT_MS", "5000"))),
+                            Duration.ofMillis(Long.parseLong(System.getProperty("BOOKLIB_REQUEST_TIMEOUT_MS", "30000"))));
+                }
+            }
+        }
+        return remoteClient;
+    }
+
     public ReaderDao getReaderDao() {
         if (readerDao == null) {
             synchronized (lock) {
                 if (readerDao == null) {
-                    readerDao = new MysqlReaderDao(getMysqlJdbcOperations());
+                    readerDao = getRemoteClient() != null
+                            ? new RemoteReaderDao(getRemoteClient())
+                            : new CachingReaderDao(
+                                    new MysqlReaderDao(getMysqlJdbcOperations(), changeEventBus), getQueryCache());
                 }
             }
         }
@@ -50,21 +190,112 @@ public enum Factory {
         if (bookDao == null) {
             synchronized (lock) {
                 if (bookDao == null) {
-                    bookDao = new MysqlBookDao(getMysqlJdbcOperations());
+                    bookDao = getRemoteClient() != null
+                            ? new RemoteBookDao(getRemoteClient())
+                            : new CachingBookDao(
+                                    new MysqlBookDao(getMysqlJdbcOperations(), changeEventBus), getQueryCache());
                 }
             }
         }
         return bookDao;
     }
 
+    // DB_ARCHIVE_DIR = shared directory for months older than DB_RETENTION_MONTHS (unset = keep all in MySQL);
+    // every process reads it, only the one started with --archive writes it
+    public SessionArchive getSessionArchive() {
+        var archiveDir = System.getProperty("DB_ARCHIVE_DIR");
+        if (archiveDir == null || archiveDir.isBlank()) {
+            return null;
+        }
+        if (sessionArchive == null) {
+            synchronized (lock) {
+                if (sessionArchive == null) {
+                    sessionArchive = new SessionArchive(new File(archiveDir));
+                }
+            }
+        }
+        return sessionArchive;
+    }
+
+    public SessionPartitionManager getSessionPartitionManager() {
+        var archive = getSessionArchive();
+        if (archive == null) {
+            throw new IllegalStateException("DB_ARCHIVE_DIR is not set");
+        }
+        checkArchiveNotSharded();
+        return new SessionPartitionManager(getPrimaryJdbcOperations(), archive);
+    }
+
+    // archiving exchanges partitions of the main reading_session table, which shards do not have
+    private void checkArchiveNotSharded() {
+        if (getSessionArchive() != null && !getShardJdbcOperations().isEmpty()) {
+            throw new IllegalStateException("DB_ARCHIVE_DIR cannot be used with DB_SHARDS: "
+                    + "sharded sessions are never archived, unset one of them");
+        }
+    }
+
     public ReadingSessionDao getReadingSessionDao() {
         if (readingSessionDao == null) {
             synchronized (lock) {
                 if (readingSessionDao == null) {
-                    readingSessionDao = new MysqlReadingSessionDao(getMysqlJdbcOperations());
+                    if (getRemoteClient() != null) {
+                        readingSessionDao = new RemoteReadingSessionDao(getRemoteClient(), changeEventBus);
+                    } else {
+                        checkArchiveNotSharded();
+                        var shards = getShardJdbcOperations();
+                        ReadingSessionDao dao;
+                        var archive = getSessionArchive();
+                        if (shards.isEmpty() && archive != null) {
+                            dao = new TieredReadingSessionDao(
+                                    new MysqlReadingSessionDao(getMysqlJdbcOperations(), changeEventBus),
+                                    archive, getReaderDao(), getBookDao());
+                        } else if (shards.isEmpty()) {
+                            dao = new MysqlReadingSessionDao(getMysqlJdbcOperations(), changeEventBus);
+                        } else {
+                            var sharded = new ShardedReadingSessionDao(shards, getReaderDao(), getBookDao(), changeEventBus);
+                            sharded.createTables();
+                            dao = sharded;
+                        }
+                        readingSessionDao = new CachingReadingSessionDao(dao, getQueryCache());
+                    }
                 }
             }
         }
         return readingSessionDao;
     }
+
+    public FavoriteDao getFavoriteDao() {
+        if (favoriteDao == null) {
+            synchronized (lock) {
+                if (favoriteDao == null) {
+                    favoriteDao = new MysqlFavoriteDao(getMysqlJdbcOperations(), changeEventBus);
+                }
+            }
+        }
+        return favoriteDao;
+    }
+
+    // loaded from favorite_books on first use, then kept up to date by change events
+    public FavoritesIndex getFavoritesIndex() {
+        if (favoritesIndex == null) {
+            synchronized (lock) {
+                if (favoritesIndex == null) {
+                    favoritesIndex = FavoritesIndex.load(getFavoriteDao(), changeEventBus);
+                }
+            }
+        }
+        return favoritesIndex;
+    }
+
+    // rebuilt from reading_session on first use, then kept up to date by change events
+    public LeaderboardService getLeaderboardService() {
+        if (leaderboardService == null) {
+            synchronized (lock) {
+                if (leaderboardService == null) {
+                    leaderboardService = LeaderboardService.start(getReadingSessionDao(), changeEventBus);
+                }
+            }
+        }
+        return leaderboardService;
+    }
 }
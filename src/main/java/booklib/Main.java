@@ -1,11 +1,15 @@
 package booklib;
 
+import booklib.readingSessions.SessionPartitionManager;
+import booklib.server.BookLibServer;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
 
+import java.util.List;
+
 public class Main extends Application {
     @Override
     public void start(Stage stage) throws Exception {
@@ -24,7 +28,27 @@ public class Main extends Application {
     // However, modules are a nightmare to get working with maven, hence we do not use them at this moment.
     // As a dirty but effective hack we can use another main method that calls this one.
     // Hence, you should rather run IDELauncher.java
+    //
+    // With --server no window is opened: the DAOs are served over HTTP instead (port SERVER_PORT, default 8080)
+    // and desktop clients started with -DBOOKLIB_SERVER=http://host:8080 use them.
+    // Changes need the token BOOKLIB_TOKEN on both sides; without one the server makes one up and prints it.
+    // --server --archive also archives old sessions once a day (DB_ARCHIVE_DIR, see SessionPartitionManager);
+    // start only one process like that.
     public static void main(String[] args) {
+        if (List.of(args).contains("--server")) {
+            var token = System.getProperty("BOOKLIB_TOKEN");
+            if (token == null || token.isBlank()) {
+                token = BookLibServer.randomToken();
+                System.out.println("BOOKLIB_TOKEN=" + token);
+            }
+            var server = BookLibServer.start(Integer.getInteger("SERVER_PORT", 8080), token);
+            System.out.println("BookLib server listening on port " + server.getAddress().getPort());
+            if (List.of(args).contains("--archive")) {
+                SessionPartitionManager.start(Factory.INSTANCE.getSessionPartitionManager(),
+                        Integer.getInteger("DB_RETENTION_MONTHS", 12));
+            }
+            return;
+        }
         launch(args);
     }
 }
\ No newline at end of file
@@ -15,6 +15,18 @@ public class Book {
     private String language;
     private LocalDateTime createdAt;
 
+    // независимая копия (например, для кэша)
+    public Book copy() {
+        var copy = new Book();
+        copy.setId(id);
+        copy.setTitle(title);
+        copy.setPages(pages);
+        copy.setGenre(genre);
+        copy.setLanguage(language);
+        copy.setCreatedAt(createdAt);
+        return copy;
+    }
+
     public static Book fromResultSet(ResultSet rs) throws SQLException {
         return fromResultSet(rs, "");
     }
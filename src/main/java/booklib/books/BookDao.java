@@ -1,6 +1,7 @@
 package booklib.books;
 
 import java.io.File;
+import java.util.Collection;
 import java.util.List;
 
 public interface BookDao {
@@ -11,12 +12,37 @@ public interface BookDao {
     // все книги из глобального списка (store)
     List<Book> findAll();
 
+    // страница каталога по возрастанию id: limit книг с id > afterId (null = с начала), keyset без OFFSET
+    List<Book> findPage(Long afterId, int limit);
+
     // одна книга по id
     Book findById(Long id);
 
+    // книги с данными id в любом порядке; несуществующие id пропускаются
+    List<Book> findByIds(Collection<Long> ids);
+
+    // первые limit книг (по названию), чьё название начинается с prefix - для автодополнения
+    List<Book> findByTitlePrefix(String prefix, int limit);
+
+    // все жанры по алфавиту, без загрузки книг (SELECT DISTINCT по book_genre_idx)
+    List<String> findGenres();
+
+    // id книг жанра (book_genre_idx покрывает запрос)
+    List<Long> findIdsByGenre(String genre);
+
     // книги, которые привязаны к конкретному reader'у (его профиль)
     List<Book> findByReaderId(Long readerId);
 
-    // привязать книгу из store к reader'у с каким-то статусом (например "PLANNED", "READING", ...)
+    // страница книг reader'а по возрастанию id: limit книг с id > afterBookId (null = с начала)
+    List<Book> findByReaderId(Long readerId, Long afterBookId, int limit);
+
+    // книги reader'а с текущим статусом status (WANT_TO_READ / READING / FINISHED)
+    List<Book> findByReaderIdAndStatus(Long readerId, String status);
+
+    // история статусов книги у reader'а, от старых к новым
+    List<BookStatus> findStatusHistory(Long readerId, Long bookId);
+
+    // привязать книгу из store к reader'у или сменить её статус ("WANT_TO_READ", "READING", "FINISHED");
+    // текущий статус перезаписывается, в историю добавляется новая запись
     void addBookForReader(Long bookId, Long readerId, String status);
 }
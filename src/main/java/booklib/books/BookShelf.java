@@ -0,0 +1,151 @@
+package booklib.books;
+
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.layout.VBox;
+import javafx.util.Duration;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * "My Books" shelf on top of a {@link ListView}.
+ * <p>
+ * The ListView only creates cards for the visible rows and reuses them while scrolling,
+ * so layout cost and heap do not grow with the shelf. Books are loaded page by page;
+ * the next page is fetched in the background as soon as the user scrolls into the
+ * last half of the previous one. A page that fails to load is retried once after a
+ * delay that doubles with every further failure (up to {@value #MAX_RETRY_DELAY_MS} ms),
+ * not again for every card that scrolls into view.
+ */
+public class BookShelf {
+
+    private static final int PAGE_SIZE = 100;
+    private static final long FIRST_RETRY_DELAY_MS = 1000;
+    private static final long MAX_RETRY_DELAY_MS = 60_000;
+
+    private static final ExecutorService LOADER = Executors.newSingleThreadExecutor(r -> {
+        var thread = new Thread(r, "book-shelf-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final ListView<Book> listView;
+    private final BookDao bookDao;
+    private final ObservableList<Book> books = FXCollections.observableArrayList();
+
+    private Long readerId;
+    private boolean loading = false;
+    private boolean exhausted = false;
+    // after a failed load: no new load before retryAt
+    private long retryDelayMillis = 0;
+    private long retryAt = 0;
+    // incremented on every show(), so pages of a previous reader are dropped
+    private int generation = 0;
+
+    public BookShelf(ListView<Book> listView, BookDao bookDao) {
+        this.listView = listView;
+        this.bookDao = bookDao;
+
+        listView.setItems(books);
+        listView.setCellFactory(view -> new BookCard());
+    }
+
+    public void show(Long readerId) {
+        this.readerId = readerId;
+        generation++;
+        books.clear();
+        loading = false;
+        exhausted = false;
+        retryDelayMillis = 0;
+        retryAt = 0;
+        loadNextPage();
+    }
+
+    private void loadNextPage() {
+        if (loading || exhausted || readerId == null || System.currentTimeMillis() < retryAt) {
+            return;
+        }
+        loading = true;
+
+        int requestGeneration = generation;
+        Long currentReader = readerId;
+        Long afterBookId = books.isEmpty() ? null : books.get(books.size() - 1).getId();
+
+        var task = new Task<List<Book>>() {
+            @Override
+            protected List<Book> call() {
+                return bookDao.findByReaderId(currentReader, afterBookId, PAGE_SIZE);
+            }
+        };
+        task.setOnSucceeded(event -> {
+            if (requestGeneration != generation) {
+                return;
+            }
+            var page = task.getValue();
+            exhausted = page.size() < PAGE_SIZE;
+            loading = false;
+            retryDelayMillis = 0;
+            books.addAll(page);
+        });
+        task.setOnFailed(event -> {
+            if (requestGeneration == generation) {
+                loading = false;
+                retryDelayMillis = retryDelayMillis == 0
+                        ? FIRST_RETRY_DELAY_MS
+                        : Math.min(retryDelayMillis * 2, MAX_RETRY_DELAY_MS);
+                retryAt = System.currentTimeMillis() + retryDelayMillis;
+                // also when no card asks for more (e.g. the first page failed)
+                var retry = new PauseTransition(Duration.millis(retryDelayMillis));
+                retry.setOnFinished(e -> {
+                    if (requestGeneration == generation) {
+                        loadNextPage();
+                    }
+                });
+                retry.play();
+            }
+            var thread = Thread.currentThread();
+            thread.getUncaughtExceptionHandler().uncaughtException(thread, task.getException());
+        });
+        LOADER.execute(task);
+    }
+
+    private class BookCard extends ListCell<Book> {
+        private final Label title = new Label();
+        private final Label details = new Label();
+        private final VBox card = new VBox(4, title, details);
+
+        BookCard() {
+            title.setStyle("-fx-font-size: 15px; -fx-font-weight: bold;");
+            details.setStyle("-fx-text-fill: #666;");
+            card.setStyle("-fx-background-color: white; -fx-background-radius: 10; -fx-padding: 10 15;");
+        }
+
+        @Override
+        protected void updateItem(Book book, boolean empty) {
+            super.updateItem(book, empty);
+            if (empty || book == null) {
+                setGraphic(null);
+                return;
+            }
+
+            title.setText(book.getTitle());
+            details.setText(book.getGenre()
+                    + (book.getPages() != null ? " · " + book.getPages() + " pages" : "")
+                    + (book.getLanguage() != null ? " · " + book.getLanguage() : ""));
+            setGraphic(card);
+
+            // prefetch once the user is in the last half of the loaded page
+            if (getIndex() >= books.size() - PAGE_SIZE / 2) {
+                Platform.runLater(BookShelf.this::loadNextPage);
+            }
+        }
+    }
+}
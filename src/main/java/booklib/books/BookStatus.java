@@ -0,0 +1,43 @@
+package booklib.books;
+
+import lombok.Data;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+
+// одна запись истории статусов (таблица book_status)
+@Data
+public class BookStatus {
+    public static final String WANT_TO_READ = "WANT_TO_READ";
+    public static final String READING = "READING";
+    public static final String FINISHED = "FINISHED";
+
+    private Long id;
+    private Long bookId;
+    private Long readerId;
+    private String status;
+    private LocalDateTime createdAt;
+
+    public BookStatus copy() {
+        var copy = new BookStatus();
+        copy.setId(id);
+        copy.setBookId(bookId);
+        copy.setReaderId(readerId);
+        copy.setStatus(status);
+        copy.setCreatedAt(createdAt);
+        return copy;
+    }
+
+    public static BookStatus fromResultSet(ResultSet rs) throws SQLException {
+        var bookStatus = new BookStatus();
+        bookStatus.setId(rs.getLong("id"));
+        bookStatus.setBookId(rs.getLong("book_id"));
+        bookStatus.setReaderId(rs.getLong("reader_id"));
+        bookStatus.setStatus(rs.getString("status"));
+
+        var ts = rs.getTimestamp("created_at");
+        bookStatus.setCreatedAt(ts != null ? ts.toLocalDateTime() : null);
+        return bookStatus;
+    }
+}
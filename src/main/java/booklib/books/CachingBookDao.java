@@ -0,0 +1,125 @@
+package booklib.books;
+
+import booklib.cache.QueryCache;
+import booklib.cache.RowType;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Serves book listings from a {@link QueryCache}; writes go straight to the delegate
+ * and bump the versions of the tables they touch. Only first pages are cached: pages
+ * after a key are rarely read twice and would push the listings out of the cache.
+ */
+public class CachingBookDao implements BookDao {
+
+    private static final String[] BOOK_TABLES = {"book"};
+    private static final String[] SHELF_TABLES = {"book", "book_status_current"};
+    private static final String[] HISTORY_TABLES = {"book_status"};
+
+    // ссылки и числа полей плюс строки; дата создания — ещё один объект
+    public static final RowType<Book> BOOK_ROWS = new RowType<>(Book::copy, book -> RowType.OBJECT
+            + 6 * RowType.FIELD + 3 * RowType.OBJECT
+            + RowType.bytes(book.getTitle()) + RowType.bytes(book.getGenre()) + RowType.bytes(book.getLanguage()));
+    private static final RowType<BookStatus> STATUS_ROWS = new RowType<>(BookStatus::copy, status -> RowType.OBJECT
+            + 5 * RowType.FIELD + 4 * RowType.OBJECT + RowType.bytes(status.getStatus()));
+
+    private final BookDao delegate;
+    private final QueryCache cache;
+
+    public CachingBookDao(BookDao delegate, QueryCache cache) {
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    @Override
+    public int loadFromCsv(File file) {
+        cache.getTableVersions().bump("book");
+        try {
+            return delegate.loadFromCsv(file);
+        } finally {
+            cache.getTableVersions().bump("book");
+        }
+    }
+
+    @Override
+    public List<Book> findAll() {
+        return cache.getList("book.findAll", List.of(), BOOK_TABLES, BOOK_ROWS, delegate::findAll);
+    }
+
+    @Override
+    public List<Book> findPage(Long afterId, int limit) {
+        if (afterId != null) {
+            return delegate.findPage(afterId, limit);
+        }
+        return cache.getList("book.findPage", List.of(limit), BOOK_TABLES, BOOK_ROWS,
+                () -> delegate.findPage(null, limit));
+    }
+
+    @Override
+    public Book findById(Long id) {
+        return delegate.findById(id);
+    }
+
+    @Override
+    public List<Book> findByIds(Collection<Long> ids) {
+        return delegate.findByIds(ids);
+    }
+
+    @Override
+    public List<Book> findByTitlePrefix(String prefix, int limit) {
+        return cache.getList("book.findByTitlePrefix", Arrays.asList(prefix, limit), BOOK_TABLES, BOOK_ROWS,
+                () -> delegate.findByTitlePrefix(prefix, limit));
+    }
+
+    @Override
+    public List<String> findGenres() {
+        return cache.getList("book.findGenres", List.of(), BOOK_TABLES, RowType.STRING, delegate::findGenres);
+    }
+
+    @Override
+    public List<Long> findIdsByGenre(String genre) {
+        return cache.getList("book.findIdsByGenre", Collections.singletonList(genre), BOOK_TABLES, RowType.LONG,
+                () -> delegate.findIdsByGenre(genre));
+    }
+
+    @Override
+    public List<Book> findByReaderId(Long readerId) {
+        return cache.getList("book.findByReaderId", Collections.singletonList(readerId), SHELF_TABLES, BOOK_ROWS,
+                () -> delegate.findByReaderId(readerId));
+    }
+
+    @Override
+    public List<Book> findByReaderId(Long readerId, Long afterBookId, int limit) {
+        if (afterBookId != null) {
+            return delegate.findByReaderId(readerId, afterBookId, limit);
+        }
+        return cache.getList("book.findByReaderIdPage", Arrays.asList(readerId, limit), SHELF_TABLES, BOOK_ROWS,
+                () -> delegate.findByReaderId(readerId, null, limit));
+    }
+
+    @Override
+    public List<Book> findByReaderIdAndStatus(Long readerId, String status) {
+        return cache.getList("book.findByReaderIdAndStatus", Arrays.asList(readerId, status), SHELF_TABLES, BOOK_ROWS,
+                () -> delegate.findByReaderIdAndStatus(readerId, status));
+    }
+
+    @Override
+    public List<BookStatus> findStatusHistory(Long readerId, Long bookId) {
+        return cache.getList("book.findStatusHistory", Arrays.asList(readerId, bookId), HISTORY_TABLES, STATUS_ROWS,
+                () -> delegate.findStatusHistory(readerId, bookId));
+    }
+
+    @Override
+    public void addBookForReader(Long bookId, Long readerId, String status) {
+        cache.getTableVersions().bump("book_status_current", "book_status");
+        try {
+            delegate.addBookForReader(bookId, readerId, status);
+        } finally {
+            cache.getTableVersions().bump("book_status_current", "book_status");
+        }
+    }
+}
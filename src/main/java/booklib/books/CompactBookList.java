@@ -0,0 +1,158 @@
+package booklib.books;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Memory-lean book store for {@link MemoryBookDao}, in place of an {@code ArrayList<Book>}:
+ * {@code new MemoryBookDao(new CompactBookList())}. The DAO reads ids and genres from the
+ * columns directly, without building books.
+ * <p>
+ * Instead of one object graph per book (boxed id and pages, two strings, a
+ * {@code LocalDateTime}) every field lives in a primitive column: genre and language as
+ * small dictionary codes, timestamps as epoch seconds. {@link #get(int)} builds a
+ * short-lived {@code Book} from the columns; changing that object does not change the
+ * store, use {@link #set(int, Book)} for that. Per million books this needs ~90 MB
+ * instead of ~265 MB, most of it the titles (see {@code BookFootprintBenchmark} in the tests).
+ */
+public class CompactBookList extends AbstractList<Book> {
+
+    private static final long NULL_LONG = Long.MIN_VALUE;
+    private static final int NULL_INT = Integer.MIN_VALUE;
+    private static final short NULL_CODE = -1;
+
+    private final Dictionary genres = new Dictionary();
+    private final Dictionary languages = new Dictionary();
+
+    private long[] ids;
+    private String[] titles;
+    private int[] pages;
+    private short[] genreCodes;
+    private short[] languageCodes;
+    private long[] createdAt;
+    private int size = 0;
+
+    public CompactBookList() {
+        this(16);
+    }
+
+    public CompactBookList(int initialCapacity) {
+        ids = new long[initialCapacity];
+        titles = new String[initialCapacity];
+        pages = new int[initialCapacity];
+        genreCodes = new short[initialCapacity];
+        languageCodes = new short[initialCapacity];
+        createdAt = new long[initialCapacity];
+    }
+
+    @Override
+    public Book get(int index) {
+        checkIndex(index);
+        var book = new Book();
+        book.setId(ids[index] != NULL_LONG ? ids[index] : null);
+        book.setTitle(titles[index]);
+        book.setPages(pages[index] != NULL_INT ? pages[index] : null);
+        book.setGenre(genres.value(genreCodes[index]));
+        book.setLanguage(languages.value(languageCodes[index]));
+        book.setCreatedAt(createdAt[index] != NULL_LONG
+                ? LocalDateTime.ofEpochSecond(createdAt[index], 0, ZoneOffset.UTC)
+                : null);
+        return book;
+    }
+
+    @Override
+    public Book set(int index, Book book) {
+        var previous = get(index);
+        write(index, book);
+        return previous;
+    }
+
+    @Override
+    public void add(int index, Book book) {
+        if (index != size) {
+            throw new UnsupportedOperationException("CompactBookList only supports appending");
+        }
+        if (size == ids.length) {
+            grow();
+        }
+        write(size, book);
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    // без создания объекта Book
+    public Long idAt(int index) {
+        checkIndex(index);
+        return ids[index] != NULL_LONG ? ids[index] : null;
+    }
+
+    public String genreAt(int index) {
+        checkIndex(index);
+        return genres.value(genreCodes[index]);
+    }
+
+    // коды словарей сначала: при переполнении словаря запись не меняется
+    private void write(int index, Book book) {
+        short genre = genres.code(book.getGenre());
+        short language = languages.code(book.getLanguage());
+        ids[index] = book.getId() != null ? book.getId() : NULL_LONG;
+        titles[index] = book.getTitle();
+        pages[index] = book.getPages() != null ? book.getPages() : NULL_INT;
+        genreCodes[index] = genre;
+        languageCodes[index] = language;
+        createdAt[index] = book.getCreatedAt() != null ? book.getCreatedAt().toEpochSecond(ZoneOffset.UTC) : NULL_LONG;
+    }
+
+    private void grow() {
+        int capacity = Math.max(16, size + (size >> 1));
+        ids = Arrays.copyOf(ids, capacity);
+        titles = Arrays.copyOf(titles, capacity);
+        pages = Arrays.copyOf(pages, capacity);
+        genreCodes = Arrays.copyOf(genreCodes, capacity);
+        languageCodes = Arrays.copyOf(languageCodes, capacity);
+        createdAt = Arrays.copyOf(createdAt, capacity);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of " + size);
+        }
+    }
+
+    // genre / language: VARCHAR(50) / VARCHAR(10) with only a handful of distinct values
+    private static class Dictionary {
+        private final Map<String, Short> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        short code(String value) {
+            if (value == null) {
+                return NULL_CODE;
+            }
+            var code = codes.get(value);
+            if (code == null) {
+                if (values.size() > Short.MAX_VALUE) {
+                    throw new IllegalStateException("Too many distinct values for a dictionary column");
+                }
+                code = (short) values.size();
+                codes.put(value, code);
+                values.add(value);
+            }
+            return code;
+        }
+
+        String value(short code) {
+            return code == NULL_CODE ? null : values.get(code);
+        }
+    }
+}
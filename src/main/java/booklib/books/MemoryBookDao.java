@@ -1,114 +1,286 @@
 package booklib.books;
 
+import booklib.csv.Csv;
+import booklib.snapshots.IdIndex;
+import booklib.snapshots.MappedSnapshot;
+import booklib.snapshots.SnapshotList;
+import booklib.snapshots.SnapshotWriter;
+import booklib.snapshots.SortedIds;
+
 import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
 public class MemoryBookDao implements BookDao {
 
-    // глобальный список книг (store)
+    // глобальный список книг (store); DAO владеет списком, менять его можно только через DAO
     private final List<Book> books;
 
-    // ключ = readerId, значение = набор id книг в его профиле
-    private final Map<Long, Set<Long>> readerBooks = new HashMap<>();
+    // индексы строятся при создании DAO и дополняются в loadFromCsv; книга с повторным id в них не попадает
+    // id -> позиция в books
+    private final IdIndex positions;
+
+    // id по возрастанию, для findPage
+    private final SortedIds sortedIds = new SortedIds();
+
+    // жанр -> id его книг в порядке books; жанры по алфавиту
+    private final TreeMap<String, List<Long>> idsByGenre = new TreeMap<>();
+
+    // ключ = readerId, значение = текущий статус по id книги в его профиле (по возрастанию id книги)
+    private final Map<Long, TreeMap<Long, String>> readerBooks = new HashMap<>();
+
+    // история статусов (как таблица book_status)
+    private final List<BookStatus> statusHistory = new ArrayList<>();
 
     public MemoryBookDao(List<Book> books) {
         this.books = books;
+        this.positions = new IdIndex(books.size());
+        index(0);
+    }
+
+    // быстрый старт: книги читаются из бинарного снапшота по мере обращения к ним
+    // (для индексов читаются только id и жанр каждой записи)
+    public static MemoryBookDao fromSnapshot(File file) {
+        return new MemoryBookDao(new SnapshotList<>(MappedSnapshot.open(file), MemoryBookDao::decode, Book::getId));
+    }
+
+    // сохраняет глобальный список книг (без привязок к reader'ам)
+    public void saveSnapshot(File file) {
+        var writer = new SnapshotWriter();
+        for (var book : books) {
+            writer.beginRecord();
+            writer.writeLong(book.getId());
+            writer.writeString(book.getTitle());
+            writer.writeInt(book.getPages());
+            writer.writeString(book.getGenre());
+            writer.writeString(book.getLanguage());
+            writer.writeDateTime(book.getCreatedAt());
+        }
+        writer.writeTo(file);
+    }
+
+    private static Book decode(MappedSnapshot.Record record) {
+        var book = new Book();
+        book.setId(record.readLong());
+        book.setTitle(record.readString());
+        book.setPages(record.readInt());
+        book.setGenre(record.readString());
+        book.setLanguage(record.readString());
+        book.setCreatedAt(record.readDateTime());
+        return book;
     }
 
     @Override
     public int loadFromCsv(File file) {
-        var existingIds = books.stream()
-                .map(Book::getId)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toSet());
+        var existingIds = positions;
 
         var loaded = new ArrayList<Book>();
 
-        Scanner scanner;
-        try {
-            scanner = new Scanner(file);
-        } catch (FileNotFoundException e) {
-            throw new RuntimeException(e);
-        }
-
-        // пропускаем заголовок
-        if (scanner.hasNextLine()) {
-            scanner.nextLine();
-        }
-
-        while (scanner.hasNextLine()) {
-            var line = scanner.nextLine();
-            if (line.isBlank()) {
-                continue;
-            }
+        try (var records = Csv.open(file)) {
+            // пропускаем заголовок
+            records.next();
 
             // предполагаемый формат csv:
             // id,title,pages,genre,language,created_at
-            var parts = line.split(",", -1);
+            String[] parts;
+            while ((parts = records.next()) != null) {
+                var id = Long.parseLong(parts[0]);
+                if (existingIds.contains(id)) {
+                    continue;
+                }
 
-            var id = Long.parseLong(parts[0]);
-            if (existingIds.contains(id)) {
-                continue;
-            }
+                var book = new Book();
+                book.setId(id);
+                book.setTitle(parts[1]);
 
-            var book = new Book();
-            book.setId(id);
-            book.setTitle(parts[1]);
+                if (parts[2] != null && !parts[2].isBlank()) {
+                    book.setPages(Integer.parseInt(parts[2]));
+                }
 
-            if (!parts[2].isBlank()) {
-                book.setPages(Integer.parseInt(parts[2]));
-            }
+                book.setGenre(parts[3]);
+                // пустое значение без кавычек - NULL (так LibraryExporter пишет NULL)
+                book.setLanguage(parts[4]);
 
-            book.setGenre(parts[3]);
-            book.setLanguage(parts[4]);
+                if (parts.length > 5 && parts[5] != null && !parts[5].isBlank()) {
+                    book.setCreatedAt(LocalDateTime.parse(parts[5]));
+                }
 
-            if (parts.length > 5 && !parts[5].isBlank()) {
-                book.setCreatedAt(LocalDateTime.parse(parts[5]));
+                loaded.add(book);
             }
-
-            loaded.add(book);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
         }
 
+        int first = books.size();
         books.addAll(loaded);
+        index(first);
         return loaded.size();
     }
 
+    // копия: менять список можно только через DAO (книги снапшота при этом декодируются все)
     @Override
     public List<Book> findAll() {
         return new ArrayList<>(books);
     }
 
+    @Override
+    public List<Book> findPage(Long afterId, int limit) {
+        var result = new ArrayList<Book>();
+        for (var id : sortedIds.after(afterId, limit)) {
+            result.add(books.get(positions.positionOf(id)));
+        }
+        return result;
+    }
+
     @Override
     public Book findById(Long id) {
-        for (var book : books) {
-            if (Objects.equals(book.getId(), id)) {
-                return book;
+        if (id == null) {
+            return null;
+        }
+        int index = positions.positionOf(id);
+        return index >= 0 ? books.get(index) : null;
+    }
+
+    @Override
+    public List<Book> findByIds(Collection<Long> ids) {
+        var result = new ArrayList<Book>(ids.size());
+        for (var id : ids) {
+            var book = findById(id);
+            if (book != null) {
+                result.add(book);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Book> findByTitlePrefix(String prefix, int limit) {
+        return books.stream()
+                .filter(book -> book.getTitle() != null && book.getTitle().startsWith(prefix))
+                .sorted(Comparator.comparing(Book::getTitle))
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<String> findGenres() {
+        return new ArrayList<>(idsByGenre.keySet());
+    }
+
+    @Override
+    public List<Long> findIdsByGenre(String genre) {
+        return new ArrayList<>(idsByGenre.getOrDefault(genre, List.of()));
+    }
+
+    // книги с позиции from в индексы
+    private void index(int from) {
+        var added = new long[books.size() - from];
+        int count = 0;
+        for (int i = from; i < books.size(); i++) {
+            var id = idAt(i);
+            if (id == null || positions.contains(id)) {
+                continue;
+            }
+            positions.add(id, i);
+            added[count++] = id;
+            var genre = genreAt(i);
+            if (genre != null) {
+                idsByGenre.computeIfAbsent(genre, g -> new ArrayList<>()).add(id);
             }
         }
-        return null;
+        sortedIds.addAll(added, count);
+    }
+
+    // id без декодирования всей записи (снапшот) или создания Book (CompactBookList)
+    private Long idAt(int index) {
+        if (books instanceof SnapshotList<Book> snapshot) {
+            return snapshot.id(index);
+        }
+        if (books instanceof CompactBookList compact) {
+            return compact.idAt(index);
+        }
+        return books.get(index).getId();
+    }
+
+    // запись снапшота: id, title, pages, genre, ...
+    private String genreAt(int index) {
+        if (books instanceof SnapshotList<Book> snapshot) {
+            return snapshot.read(index, Book::getGenre, record -> {
+                record.skip();
+                record.skip();
+                record.skip();
+                return record.readString();
+            });
+        }
+        if (books instanceof CompactBookList compact) {
+            return compact.genreAt(index);
+        }
+        return books.get(index).getGenre();
     }
 
     @Override
     public List<Book> findByReaderId(Long readerId) {
-        var ids = readerBooks.getOrDefault(readerId, Collections.emptySet());
-        var result = new ArrayList<Book>();
+        return findByReaderId(readerId, null, Integer.MAX_VALUE);
+    }
 
-        for (var book : books) {
-            if (book.getId() != null && ids.contains(book.getId())) {
+    @Override
+    public List<Book> findByReaderId(Long readerId, Long afterBookId, int limit) {
+        // keyset по отсортированным id книг reader'а, без прохода по всему каталогу
+        var statuses = readerBooks.get(readerId);
+        if (statuses == null) {
+            return new ArrayList<>();
+        }
+        var ids = afterBookId == null ? statuses.keySet() : statuses.tailMap(afterBookId, false).keySet();
+        var result = new ArrayList<Book>();
+        for (var id : ids) {
+            if (result.size() >= limit) {
+                break;
+            }
+            var book = findById(id);
+            if (book != null) {
                 result.add(book);
             }
         }
         return result;
     }
 
+    @Override
+    public List<Book> findByReaderIdAndStatus(Long readerId, String status) {
+        var statuses = readerBooks.getOrDefault(readerId, new TreeMap<>());
+        var result = new ArrayList<Book>();
+
+        for (var entry : statuses.entrySet()) {
+            if (Objects.equals(entry.getValue(), status)) {
+                var book = findById(entry.getKey());
+                if (book != null) {
+                    result.add(book);
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<BookStatus> findStatusHistory(Long readerId, Long bookId) {
+        return statusHistory.stream()
+                .filter(s -> Objects.equals(s.getReaderId(), readerId) && Objects.equals(s.getBookId(), bookId))
+                .collect(Collectors.toList());
+    }
+
     @Override
     public void addBookForReader(Long bookId, Long readerId, String status) {
-        // статус в in-memory не используем, просто линк
         readerBooks
-                .computeIfAbsent(readerId, id -> new HashSet<>())
-                .add(bookId);
+                .computeIfAbsent(readerId, id -> new TreeMap<>())
+                .put(bookId, status);
+
+        var entry = new BookStatus();
+        entry.setId((long) statusHistory.size() + 1);
+        entry.setBookId(bookId);
+        entry.setReaderId(readerId);
+        entry.setStatus(status);
+        entry.setCreatedAt(LocalDateTime.now());
+        statusHistory.add(entry);
     }
 }
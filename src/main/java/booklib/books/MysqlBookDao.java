@@ -1,14 +1,21 @@
 package booklib.books;
 
+import booklib.events.ChangeEvent;
+import booklib.events.ChangeEventBus;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcOperations;
 import org.springframework.jdbc.core.ResultSetExtractor;
 import java.io.File;
+import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 public class MysqlBookDao implements BookDao {
 
     private final JdbcOperations jdbcOperations;
+    private final ChangeEventBus eventBus;
 
     private final ResultSetExtractor<List<Book>> bookExtractor = rs -> {
         var books = new ArrayList<Book>();
@@ -21,11 +28,18 @@ public class MysqlBookDao implements BookDao {
         return books;
     };
 
+    private static final int IN_BATCH_SIZE = 1000;
+
     private static final String SELECT_ALL =
             "SELECT id, title, pages, genre, language, created_at FROM book";
 
     public MysqlBookDao(JdbcOperations jdbcOperations) {
+        this(jdbcOperations, new ChangeEventBus());
+    }
+
+    public MysqlBookDao(JdbcOperations jdbcOperations, ChangeEventBus eventBus) {
         this.jdbcOperations = jdbcOperations;
+        this.eventBus = eventBus;
     }
 
     @Override
@@ -44,6 +58,7 @@ public class MysqlBookDao implements BookDao {
                 book.getLanguage(),
                 book.getCreatedAt()
             );
+            eventBus.publish(ChangeEvent.created(Book.class, book.getId(), book));
         }
 
         return loaded;
@@ -54,6 +69,13 @@ public class MysqlBookDao implements BookDao {
         return jdbcOperations.query(SELECT_ALL, bookExtractor);
     }
 
+    @Override
+    public List<Book> findPage(Long afterId, int limit) {
+        // диапазон по первичному ключу, каждая страница стоит limit строк
+        return jdbcOperations.query(SELECT_ALL + " WHERE id > ? ORDER BY id LIMIT ?", bookExtractor,
+                afterId != null ? afterId : Long.MIN_VALUE, limit);
+    }
+
     @Override
     public Book findById(Long id) {
         String sql = "SELECT id, title, pages, genre, language, created_at FROM book WHERE id = ?";
@@ -61,23 +83,132 @@ public class MysqlBookDao implements BookDao {
         return list.isEmpty() ? null : list.get(0);
     }
 
+    @Override
+    public List<Book> findByIds(Collection<Long> ids) {
+        // пачками по IN_BATCH_SIZE, каждая - выборка по первичному ключу
+        var result = new ArrayList<Book>(ids.size());
+        var batch = new ArrayList<Long>(Math.min(ids.size(), IN_BATCH_SIZE));
+        for (var id : ids) {
+            batch.add(id);
+            if (batch.size() == IN_BATCH_SIZE) {
+                result.addAll(findByIdBatch(batch));
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            result.addAll(findByIdBatch(batch));
+        }
+        return result;
+    }
+
+    @Override
+    public List<Book> findByTitlePrefix(String prefix, int limit) {
+        // диапазон по book_title_idx
+        return jdbcOperations.query(SELECT_ALL + " WHERE title LIKE ? ORDER BY title LIMIT ?", bookExtractor,
+                likePrefix(prefix), limit);
+    }
+
+    @Override
+    public List<String> findGenres() {
+        return jdbcOperations.queryForList("SELECT DISTINCT genre FROM book ORDER BY genre", String.class);
+    }
+
+    @Override
+    public List<Long> findIdsByGenre(String genre) {
+        return jdbcOperations.queryForList("SELECT id FROM book WHERE genre = ?", Long.class, genre);
+    }
+
+    // % и _ в prefix - обычные символы
+    public static String likePrefix(String prefix) {
+        return prefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+
+    private List<Book> findByIdBatch(List<Long> ids) {
+        var placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        return jdbcOperations.query(SELECT_ALL + " WHERE id IN (" + placeholders + ")", bookExtractor, ids.toArray());
+    }
+
     @Override
     public List<Book> findByReaderId(Long readerId) {
         String sql =
             "SELECT b.id, b.title, b.pages, b.genre, b.language, b.created_at " +
             "FROM book b " +
-            "JOIN book_status bs ON bs.book_id = b.id " +
+            "JOIN book_status_current bs ON bs.book_id = b.id " +
             "WHERE bs.reader_id = ?";
 
         return jdbcOperations.query(sql, bookExtractor, readerId);
     }
 
     @Override
-    public void addBookForReader(Long bookId, Long readerId, String status) {
+    public List<Book> findByReaderId(Long readerId, Long afterBookId, int limit) {
+        // keyset-пагинация: каждая страница - один диапазон по id, без OFFSET
+        String sql =
+            "SELECT b.id, b.title, b.pages, b.genre, b.language, b.created_at " +
+            "FROM book b " +
+            "JOIN book_status_current bs ON bs.book_id = b.id " +
+            "WHERE bs.reader_id = ? AND bs.book_id > ? " +
+            "ORDER BY bs.book_id " +
+            "LIMIT ?";
+
+        return jdbcOperations.query(sql, bookExtractor, readerId, afterBookId != null ? afterBookId : 0L, limit);
+    }
+
+    @Override
+    public List<Book> findByReaderIdAndStatus(Long readerId, String status) {
+        // (reader_id, status, book_id) index covers the filter, book rows are read by PK
         String sql =
-            "INSERT INTO book_status (book_id, reader_id, status, created_at) " +
-            "VALUES (?, ?, ?, NOW())";
+            "SELECT b.id, b.title, b.pages, b.genre, b.language, b.created_at " +
+            "FROM book_status_current bs " +
+            "JOIN book b ON b.id = bs.book_id " +
+            "WHERE bs.reader_id = ? AND bs.status = ? " +
+            "ORDER BY bs.book_id";
 
-        jdbcOperations.update(sql, bookId, readerId, status);
+        return jdbcOperations.query(sql, bookExtractor, readerId, status);
+    }
+
+    @Override
+    public List<BookStatus> findStatusHistory(Long readerId, Long bookId) {
+        String sql =
+            "SELECT id, book_id, reader_id, status, created_at FROM book_status " +
+            "WHERE reader_id = ? AND book_id = ? " +
+            "ORDER BY id";
+
+        return jdbcOperations.query(sql, (rs, rowNum) -> BookStatus.fromResultSet(rs), readerId, bookId);
+    }
+
+    @Override
+    public void addBookForReader(Long bookId, Long readerId, String status) {
+        // текущий статус и история в одной транзакции, чтобы таблицы не расходились
+        jdbcOperations.execute((ConnectionCallback<Void>) connection -> {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (var current = connection.prepareStatement(
+                         "INSERT INTO book_status_current (reader_id, book_id, status, updated_at) " +
+                         "VALUES (?, ?, ?, NOW()) AS new " +
+                         "ON DUPLICATE KEY UPDATE status = new.status, updated_at = new.updated_at");
+                 var history = connection.prepareStatement(
+                         "INSERT INTO book_status (book_id, reader_id, status, created_at) " +
+                         "VALUES (?, ?, ?, NOW())")) {
+                // текущий статус: upsert по (reader_id, book_id)
+                current.setLong(1, readerId);
+                current.setLong(2, bookId);
+                current.setString(3, status);
+                current.executeUpdate();
+
+                // история
+                history.setLong(1, bookId);
+                history.setLong(2, readerId);
+                history.setString(3, status);
+                history.executeUpdate();
+
+                connection.commit();
+                return null;
+            } catch (RuntimeException | SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        });
     }
 }
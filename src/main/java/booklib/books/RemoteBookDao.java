@@ -0,0 +1,106 @@
+package booklib.books;
+
+import booklib.remote.RemoteClient;
+import com.fasterxml.jackson.core.type.TypeReference;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+// BookDao served by a BookLib server (see BookLibServer)
+public class RemoteBookDao implements BookDao {
+
+    private static final TypeReference<List<Book>> BOOK_LIST = new TypeReference<>() {
+    };
+
+    private final RemoteClient client;
+
+    public RemoteBookDao(RemoteClient client) {
+        this.client = client;
+    }
+
+    @Override
+    public int loadFromCsv(File file) {
+        var result = client.upload("/api/books/csv", file, new TypeReference<Map<String, Integer>>() {
+        });
+        return result.get("loaded");
+    }
+
+    @Override
+    public List<Book> findAll() {
+        return client.getAll("/api/books", BOOK_LIST);
+    }
+
+    @Override
+    public List<Book> findPage(Long afterId, int limit) {
+        return RemoteClient.page(afterId, limit, Book::getId, (after, size) ->
+                client.send("GET", "/api/books?limit=" + size + (after != null ? "&after=" + after : ""),
+                        null, BOOK_LIST));
+    }
+
+    @Override
+    public List<Book> findByIds(Collection<Long> ids) {
+        var result = new ArrayList<Book>(ids.size());
+        for (var batch : RemoteClient.batches(ids)) {
+            result.addAll(client.send("GET", "/api/books?ids=" + batch, null, BOOK_LIST));
+        }
+        return result;
+    }
+
+    @Override
+    public List<Book> findByTitlePrefix(String prefix, int limit) {
+        return client.send("GET", "/api/books?titlePrefix=" + RemoteClient.encode(prefix) + "&limit=" + limit,
+                null, BOOK_LIST);
+    }
+
+    @Override
+    public List<String> findGenres() {
+        return client.send("GET", "/api/books/genres", null, new TypeReference<List<String>>() {
+        });
+    }
+
+    @Override
+    public List<Long> findIdsByGenre(String genre) {
+        return client.send("GET", "/api/books/ids?genre=" + RemoteClient.encode(genre), null,
+                new TypeReference<List<Long>>() {
+                });
+    }
+
+    @Override
+    public Book findById(Long id) {
+        return client.get("/api/books/" + id, new TypeReference<Book>() {
+        });
+    }
+
+    @Override
+    public List<Book> findByReaderId(Long readerId) {
+        return client.getAll("/api/readers/" + readerId + "/books", BOOK_LIST);
+    }
+
+    @Override
+    public List<Book> findByReaderId(Long readerId, Long afterBookId, int limit) {
+        return RemoteClient.page(afterBookId, limit, Book::getId, (after, size) ->
+                client.send("GET", "/api/readers/" + readerId + "/books?limit=" + size
+                        + (after != null ? "&after=" + after : "&after=0"), null, BOOK_LIST));
+    }
+
+    @Override
+    public List<Book> findByReaderIdAndStatus(Long readerId, String status) {
+        return client.getAll("/api/readers/" + readerId + "/books?status=" + RemoteClient.encode(status), BOOK_LIST);
+    }
+
+    @Override
+    public List<BookStatus> findStatusHistory(Long readerId, Long bookId) {
+        return client.send("GET", "/api/readers/" + readerId + "/books/" + bookId + "/history", null,
+                new TypeReference<List<BookStatus>>() {
+                });
+    }
+
+    @Override
+    public void addBookForReader(Long bookId, Long readerId, String status) {
+        client.send("PUT", "/api/readers/" + readerId + "/books/" + bookId + "?status=" + RemoteClient.encode(status),
+                null, null);
+    }
+}
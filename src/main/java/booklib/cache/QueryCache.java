@@ -0,0 +1,175 @@
+package booklib.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Cache of query results keyed by query name and parameters.
+ * <p>
+ * Each entry remembers the versions of the tables it was read from (taken before the
+ * query ran). A lookup only hits if none of those tables has been written since, so a
+ * local write is never followed by a stale read. Entries are evicted in LRU order once
+ * their estimated size (see {@link RowType}) exceeds {@code maxBytes}. Rows are copied when
+ * they are stored and when they are returned, so a caller changing its entities never
+ * changes the cache.
+ * <p>
+ * With read replicas a query right after a write may still be answered by a replica that
+ * has not seen it (reads of other callers are not moved to the primary, see
+ * {@code ReadWriteRouter}). Such a result would be cached under the new versions, so
+ * results of tables written less than {@code replicaStalenessMillis} ago are not kept.
+ */
+public class QueryCache {
+
+    private record Key(String query, List<?> params) {
+    }
+
+    private record Entry(long[] versions, List<?> rows, long bytes) {
+    }
+
+    // entry and list overhead
+    private static final int ENTRY_BYTES = 128;
+
+    private final TableVersions tableVersions;
+    private final long maxBytes;
+    private final LongSupplier replicaStalenessMillis;
+
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedBytes = 0;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public QueryCache(TableVersions tableVersions, long maxBytes) {
+        this(tableVersions, maxBytes, () -> 0);
+    }
+
+    public QueryCache(TableVersions tableVersions, long maxBytes, LongSupplier replicaStalenessMillis) {
+        this.tableVersions = tableVersions;
+        this.maxBytes = maxBytes;
+        this.replicaStalenessMillis = replicaStalenessMillis;
+    }
+
+    public TableVersions getTableVersions() {
+        return tableVersions;
+    }
+
+    // вернёт копию закэшированного результата или выполнит loader
+    @SuppressWarnings("unchecked")
+    public <T> List<T> getList(String query, List<?> params, String[] tables, RowType<T> rowType,
+                               Supplier<List<T>> loader) {
+        var key = new Key(query, params);
+        var versions = currentVersions(tables);
+
+        List<T> cached = null;
+        synchronized (this) {
+            var entry = entries.get(key);
+            if (entry != null && Arrays.equals(entry.versions(), versions)) {
+                cached = (List<T>) entry.rows();
+            }
+        }
+        if (cached != null) {
+            hits.increment();
+            // the entry is never changed, so it is copied outside the lock
+            return copy(cached, rowType);
+        }
+
+        misses.increment();
+        var rows = loader.get();
+        if (!recentlyWritten(tables)) {
+            long bytes = ENTRY_BYTES;
+            for (var row : rows) {
+                bytes += RowType.FIELD + (row != null ? rowType.bytes().applyAsLong(row) : 0);
+            }
+            if (bytes <= maxBytes) {
+                put(key, new Entry(versions, copy(rows, rowType), bytes));
+            }
+        }
+        return rows;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        cachedBytes = 0;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public double getHitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    // estimated
+    public synchronized long getCachedBytes() {
+        return cachedBytes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("QueryCache[hits=%d, misses=%d, hitRate=%.2f, evictions=%d, bytes=%d/%d]",
+                getHits(), getMisses(), getHitRate(), getEvictions(), getCachedBytes(), maxBytes);
+    }
+
+    private boolean recentlyWritten(String[] tables) {
+        long staleness = replicaStalenessMillis.getAsLong();
+        if (staleness <= 0) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        for (var table : tables) {
+            if (now - tableVersions.lastWriteMillis(table) < staleness) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private long[] currentVersions(String[] tables) {
+        var versions = new long[tables.length];
+        for (int i = 0; i < tables.length; i++) {
+            versions[i] = tableVersions.get(tables[i]);
+        }
+        return versions;
+    }
+
+    private synchronized void put(Key key, Entry entry) {
+        var previous = entries.put(key, entry);
+        if (previous != null) {
+            cachedBytes -= previous.bytes();
+        }
+        cachedBytes += entry.bytes();
+
+        var it = entries.entrySet().iterator();
+        while (cachedBytes > maxBytes && it.hasNext()) {
+            var eldest = it.next();
+            cachedBytes -= eldest.getValue().bytes();
+            it.remove();
+            evictions.increment();
+        }
+    }
+
+    private static <T> List<T> copy(List<T> rows, RowType<T> rowType) {
+        var copy = new ArrayList<T>(rows.size());
+        for (var row : rows) {
+            copy.add(row != null ? rowType.copy().apply(row) : null);
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,25 @@
+package booklib.cache;
+
+import java.util.function.ToLongFunction;
+import java.util.function.UnaryOperator;
+
+/**
+ * How {@link QueryCache} copies and weighs the rows of one type: cached rows are copied on
+ * the way in and out, since callers patch the entities they get (e.g. a list row after an
+ * UPDATED event), and the cache is bounded by the estimated heap size of its rows.
+ */
+public record RowType<T>(UnaryOperator<T> copy, ToLongFunction<T> bytes) {
+
+    // immutable, shared as they are
+    public static final RowType<String> STRING = new RowType<>(s -> s, RowType::bytes);
+    public static final RowType<Long> LONG = new RowType<>(id -> id, id -> 16);
+
+    // object header and fields of an entity, without what its references point to
+    public static final int OBJECT = 16;
+    public static final int FIELD = 8;
+
+    // a String with a Latin-1 or UTF-16 array, 0 for null
+    public static long bytes(String value) {
+        return value == null ? 0 : 56 + 2L * value.length();
+    }
+}
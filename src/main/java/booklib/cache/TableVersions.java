@@ -0,0 +1,36 @@
+package booklib.cache;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write counter per table. Every write through a DAO bumps the counters of the tables it
+ * touched, so anything computed from a table is stale once its counter has moved.
+ */
+public class TableVersions {
+
+    private final Map<String, AtomicLong> versions = new ConcurrentHashMap<>();
+    private final Map<String, Long> writtenAt = new ConcurrentHashMap<>();
+
+    public long get(String table) {
+        return counter(table).get();
+    }
+
+    public void bump(String... tables) {
+        long now = System.currentTimeMillis();
+        for (var table : tables) {
+            counter(table).incrementAndGet();
+            writtenAt.put(table, now);
+        }
+    }
+
+    // System.currentTimeMillis() of the last bump, 0 if never
+    public long lastWriteMillis(String table) {
+        return writtenAt.getOrDefault(table, 0L);
+    }
+
+    private AtomicLong counter(String table) {
+        return versions.computeIfAbsent(table, t -> new AtomicLong());
+    }
+}
@@ -0,0 +1,164 @@
+package booklib.csv;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * The CSV dialect of {@code loadFromCsv}, {@code LibraryExporter} and {@code LibraryImporter}:
+ * a header record, then one record per line, comma separated. A value with a comma, a quote
+ * or a line break is written in quotes with inner quotes doubled (RFC 4180), so a quoted
+ * value may span lines. NULL is an empty field without quotes, an empty string is {@code ""}.
+ */
+public final class Csv {
+
+    private Csv() {
+    }
+
+    // plain or gzip compressed (recognized by the magic bytes, not by the file name)
+    public static Records open(File file) throws IOException {
+        var in = new BufferedInputStream(Files.newInputStream(file.toPath()), 1 << 16);
+        in.mark(2);
+        boolean gzip = in.read() == 0x1f && in.read() == 0x8b;
+        in.reset();
+        var text = gzip ? new GZIPInputStream(in, 1 << 16) : in;
+        return new Records(new InputStreamReader(text, StandardCharsets.UTF_8));
+    }
+
+    // one record, e.g. a line without quotes; an unquoted empty value is null
+    public static String[] split(String line) {
+        try (var records = new Records(new StringReader(line))) {
+            var record = records.record();
+            return record != null ? record : new String[]{null};
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // appends one value; null becomes an empty field, an empty string ""
+    public static void append(StringBuilder line, String value) {
+        if (value == null) {
+            return;
+        }
+        if (!value.isEmpty() && !needsQuotes(value)) {
+            line.append(value);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                line.append('"');
+            }
+            line.append(c);
+        }
+        line.append('"');
+    }
+
+    private static boolean needsQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Records of a CSV stream. Lines end with {@code \n} or {@code \r\n}; line breaks inside
+     * quotes are kept as they are.
+     */
+    public static final class Records implements Closeable {
+
+        private final Reader in;
+        private final char[] buffer = new char[1 << 16];
+        private int position;
+        private int length;
+
+        Records(Reader in) {
+            this.in = in;
+        }
+
+        // next record, null at the end; empty lines are skipped
+        public String[] next() throws IOException {
+            String[] record;
+            do {
+                record = record();
+            } while (record != null && record.length == 1 && record[0] == null);
+            return record;
+        }
+
+        private String[] record() throws IOException {
+            int c = read();
+            if (c < 0) {
+                return null;
+            }
+            var values = new ArrayList<String>();
+            var value = new StringBuilder();
+            boolean inQuotes = false;
+            boolean quoted = false;
+            while (true) {
+                if (inQuotes) {
+                    if (c < 0) {
+                        throw new IllegalArgumentException("Unterminated quote in CSV value: " + value);
+                    }
+                    if (c == '"') {
+                        c = read();
+                        if (c != '"') {
+                            inQuotes = false;
+                            continue;
+                        }
+                    }
+                    value.append((char) c);
+                } else if (c == '"') {
+                    inQuotes = true;
+                    quoted = true;
+                } else if (c == ',' || c == '\n' || c < 0) {
+                    values.add(value.isEmpty() && !quoted ? null : value.toString());
+                    value.setLength(0);
+                    quoted = false;
+                    if (c != ',') {
+                        return values.toArray(String[]::new);
+                    }
+                } else if (c == '\r') {
+                    c = read();
+                    if (c != '\n' && c >= 0) {
+                        value.append('\r');
+                    } else {
+                        c = '\n';
+                    }
+                    continue;
+                } else {
+                    value.append((char) c);
+                }
+                c = read();
+            }
+        }
+
+        private int read() throws IOException {
+            if (position == length) {
+                length = Math.max(0, in.read(buffer));
+                position = 0;
+                if (length == 0) {
+                    return -1;
+                }
+            }
+            return buffer[position++];
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
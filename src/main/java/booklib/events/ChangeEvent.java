@@ -0,0 +1,25 @@
+package booklib.events;
+
+/**
+ * A single write made through a DAO. {@code entity} is the stored state after the change
+ * and is {@code null} for deletes; entities without a single id (e.g. favorites) have a
+ * {@code null} id and carry their key in {@code entity} instead.
+ */
+public record ChangeEvent<T>(Type type, Class<T> entityType, Long id, T entity) {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+
+    public static <T> ChangeEvent<T> created(Class<T> entityType, Long id, T entity) {
+        return new ChangeEvent<>(Type.CREATED, entityType, id, entity);
+    }
+
+    public static <T> ChangeEvent<T> updated(Class<T> entityType, Long id, T entity) {
+        return new ChangeEvent<>(Type.UPDATED, entityType, id, entity);
+    }
+
+    public static <T> ChangeEvent<T> deleted(Class<T> entityType, Long id) {
+        return new ChangeEvent<>(Type.DELETED, entityType, id, null);
+    }
+}
@@ -0,0 +1,43 @@
+package booklib.events;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Synchronous publish/subscribe hub for {@link ChangeEvent}s.
+ * <p>
+ * Listeners run on the thread that made the write, right after it succeeded. A failing
+ * listener is reported to the thread's uncaught exception handler and does not stop the
+ * other listeners or the write itself.
+ */
+public class ChangeEventBus {
+
+    private final Map<Class<?>, List<Consumer<ChangeEvent<?>>>> listeners = new ConcurrentHashMap<>();
+
+    // returns an action that removes the listener again
+    @SuppressWarnings("unchecked")
+    public <T> Runnable subscribe(Class<T> entityType, Consumer<ChangeEvent<T>> listener) {
+        var wrapped = (Consumer<ChangeEvent<?>>) (Consumer<?>) listener;
+        var list = listeners.computeIfAbsent(entityType, type -> new CopyOnWriteArrayList<>());
+        list.add(wrapped);
+        return () -> list.remove(wrapped);
+    }
+
+    public void publish(ChangeEvent<?> event) {
+        var list = listeners.get(event.entityType());
+        if (list == null) {
+            return;
+        }
+        for (var listener : list) {
+            try {
+                listener.accept(event);
+            } catch (RuntimeException e) {
+                var thread = Thread.currentThread();
+                thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,328 @@
+package booklib.export;
+
+import booklib.Factory;
+import booklib.csv.Csv;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exports books, readers, reading sessions and the reader/book relations to gzipped CSV
+ * files that {@link LibraryImporter} loads back into the database; {@code book},
+ * {@code reader} and {@code reading_session} are also exactly the {@code loadFromCsv} format.
+ * <p>
+ * Every table is cut into key ranges of about {@code rowsPerPart} rows (one range per shard
+ * at least, when the sessions are sharded). Each range is one file with its own header,
+ * written by its own thread from its own forward-only cursor, so memory use does not
+ * depend on the table size. Files appear under their final name only when complete.
+ * <pre>
+ * java -DEXPORT_THREADS=8 booklib.export.LibraryExporter /backup/2026-10-19
+ * </pre>
+ * The ranges are read on separate connections, so the export is not one consistent
+ * snapshot; run it from a replica or while nothing writes for a point-in-time copy.
+ * Archived session months ({@code DB_ARCHIVE_DIR}) are files already and are not included.
+ */
+public class LibraryExporter {
+
+    // key = leading primary key column, the ranges are cut along it
+    record Table(String name, String key, String columns) {
+    }
+
+    static final List<Table> TABLES = List.of(
+            new Table("book", "id", "id, title, pages, genre, language, created_at"),
+            new Table("reader", "id", "id, name, password_hash, created_at"),
+            new Table("reading_session", "id", "id, reader_id, book_id, pages_read, duration_minutes, created_at"),
+            new Table("book_status", "id", "id, reader_id, book_id, status, created_at"),
+            new Table("book_status_current", "reader_id", "reader_id, book_id, status, updated_at"),
+            new Table("favorite_books", "reader_id", "reader_id, book_id"));
+
+    // from <= key < to
+    private record Part(Table table, JdbcOperations source, long from, long to, long estimatedRows, String fileName) {
+    }
+
+    public record PartResult(String table, String fileName, long rows, long csvBytes, long fileBytes) {
+    }
+
+    public record Report(List<PartResult> parts, long nanos) {
+
+        public long rows() {
+            return parts.stream().mapToLong(PartResult::rows).sum();
+        }
+
+        public long csvBytes() {
+            return parts.stream().mapToLong(PartResult::csvBytes).sum();
+        }
+
+        public long fileBytes() {
+            return parts.stream().mapToLong(PartResult::fileBytes).sum();
+        }
+
+        public double seconds() {
+            return nanos / 1e9;
+        }
+    }
+
+    private final JdbcOperations database;
+    private final List<JdbcOperations> shards;
+    private final int threads;
+    private final int fetchSize;
+    private final long rowsPerPart;
+    private final int gzipLevel;
+
+    /**
+     * @param shards      databases holding {@code reading_session} instead of {@code database} (empty = not sharded)
+     * @param fetchSize   rows per round trip of the cursors
+     * @param rowsPerPart rows per file, about
+     * @param gzipLevel   1 (fastest) .. 9 (smallest)
+     */
+    public LibraryExporter(JdbcOperations database, List<JdbcOperations> shards,
+                           int threads, int fetchSize, long rowsPerPart, int gzipLevel) {
+        this.database = database;
+        this.shards = shards;
+        this.threads = threads;
+        this.fetchSize = fetchSize;
+        this.rowsPerPart = rowsPerPart;
+        this.gzipLevel = gzipLevel;
+    }
+
+    public static void main(String[] args) {
+        var directory = new File(args.length > 0 ? args[0] : "export");
+        int threads = Integer.getInteger("EXPORT_THREADS",
+                Math.min(Runtime.getRuntime().availableProcessors(), Integer.getInteger("DB_POOL_SIZE", 10)));
+        var exporter = new LibraryExporter(
+                // reads go to a replica when DB_REPLICAS is set
+                Factory.INSTANCE.getMysqlJdbcOperations(),
+                Factory.INSTANCE.getShardJdbcOperations(),
+                threads,
+                Integer.getInteger("EXPORT_FETCH_SIZE", 10_000),
+                Long.getLong("EXPORT_ROWS_PER_PART", 1_000_000),
+                Integer.getInteger("EXPORT_GZIP_LEVEL", 1));
+
+        var report = exporter.export(directory);
+
+        var byTable = new LinkedHashMap<String, long[]>();
+        for (var part : report.parts()) {
+            var total = byTable.computeIfAbsent(part.table(), t -> new long[4]);
+            total[0]++;
+            total[1] += part.rows();
+            total[2] += part.csvBytes();
+            total[3] += part.fileBytes();
+        }
+        byTable.forEach((table, total) -> System.out.printf("%-20s %3d files %,12d rows %9.1f MB csv %9.1f MB gz%n",
+                table, total[0], total[1], total[2] / 1e6, total[3] / 1e6));
+        System.out.printf("exported %,d rows to %s in %.1f s: %,.0f rows/s, %.1f MB/s csv, %.1f MB/s written%n",
+                report.rows(), directory, report.seconds(), report.rows() / report.seconds(),
+                report.csvBytes() / 1e6 / report.seconds(), report.fileBytes() / 1e6 / report.seconds());
+    }
+
+    public Report export(File directory) {
+        try {
+            Files.createDirectories(directory.toPath());
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot create export directory " + directory, e);
+        }
+
+        long start = System.nanoTime();
+        var parts = plan();
+        // largest first, so the last running part is a small one
+        parts.sort(Comparator.comparingLong(Part::estimatedRows).reversed());
+
+        var tasks = new ArrayList<Callable<PartResult>>();
+        for (var part : parts) {
+            tasks.add(() -> write(part, new File(directory, part.fileName())));
+        }
+
+        var results = new ArrayList<PartResult>();
+        // platform threads: compressing is CPU work
+        try (var executor = Executors.newFixedThreadPool(Math.max(1, threads))) {
+            for (var future : executor.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while exporting", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Export failed", e.getCause());
+        }
+        results.sort(Comparator.comparing(PartResult::fileName));
+        return new Report(results, System.nanoTime() - start);
+    }
+
+    private List<Part> plan() {
+        var parts = new ArrayList<Part>();
+        for (var table : TABLES) {
+            var sources = table.name().equals("reading_session") && !shards.isEmpty() ? shards : List.of(database);
+            var ranges = new ArrayList<long[]>();
+            for (var source : sources) {
+                // MIN/MAX come from the primary key; COUNT(*) scans the smallest index
+                var stats = source.queryForObject(
+                        "SELECT MIN(" + table.key() + "), MAX(" + table.key() + "), COUNT(*) FROM " + table.name(),
+                        (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2), rs.getLong(3)});
+                long count = stats[2];
+                if (count == 0) {
+                    continue;
+                }
+                long min = stats[0];
+                long max = stats[1];
+                long pieces = Math.min(Math.max(1, (count + rowsPerPart - 1) / rowsPerPart), max - min + 1);
+                long width = (max - min) / pieces + 1;
+                for (long from = min; from <= max; from += width) {
+                    ranges.add(new long[]{sources.indexOf(source), from, Math.min(from + width, max + 1), count / pieces});
+                }
+            }
+            if (ranges.isEmpty()) {
+                // still a file with the header, so every table can be imported
+                ranges.add(new long[]{0, 0, 0, 0});
+            }
+
+            for (int i = 0; i < ranges.size(); i++) {
+                var range = ranges.get(i);
+                var fileName = ranges.size() == 1
+                        ? table.name() + ".csv.gz"
+                        : String.format("%s-%03d.csv.gz", table.name(), i);
+                parts.add(new Part(table, sources.get((int) range[0]), range[1], range[2], range[3], fileName));
+            }
+        }
+        return parts;
+    }
+
+    private PartResult write(Part part, File file) throws IOException {
+        var table = part.table();
+        var tmp = new File(file.getPath() + ".tmp");
+        var fileBytes = new CountingOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp.toPath()), 1 << 16));
+        var csvBytes = new CountingOutputStream(new GZIPOutputStream(fileBytes, 1 << 16) {
+            {
+                def.setLevel(gzipLevel);
+            }
+        });
+        long rows;
+        try (var out = new BufferedWriter(new OutputStreamWriter(csvBytes, StandardCharsets.UTF_8), 1 << 16)) {
+            out.write(table.columns().replace(" ", ""));
+            out.write('\n');
+            var writer = new RowWriter(out);
+            if (part.to() > part.from()) {
+                // no ORDER BY: a range scan of the primary key already returns rows in key order,
+                // and sorting a big range would need a temporary table
+                var sql = "SELECT " + table.columns() + " FROM " + table.name()
+                        + " WHERE " + table.key() + " >= ? AND " + table.key() + " < ?";
+                part.source().query(connection -> {
+                    var statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                    statement.setFetchSize(fetchSize(connection));
+                    statement.setLong(1, part.from());
+                    statement.setLong(2, part.to());
+                    return statement;
+                }, writer);
+            }
+            rows = writer.rows;
+        } catch (UncheckedIOException e) {
+            Files.deleteIfExists(tmp.toPath());
+            throw e.getCause();
+        } catch (RuntimeException | IOException e) {
+            Files.deleteIfExists(tmp.toPath());
+            throw e;
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return new PartResult(table.name(), file.getName(), rows, csvBytes.count, fileBytes.count);
+    }
+
+    // MySQL Connector/J reads the whole result into memory unless the statement streams:
+    // fetch size Integer.MIN_VALUE streams row by row, a positive one needs useCursorFetch=true
+    private int fetchSize(Connection connection) throws SQLException {
+        var meta = connection.getMetaData();
+        if ("MySQL".equals(meta.getDatabaseProductName()) && !meta.getURL().contains("useCursorFetch=true")) {
+            return Integer.MIN_VALUE;
+        }
+        return fetchSize;
+    }
+
+    private static class RowWriter implements RowCallbackHandler {
+
+        private final Writer out;
+        private final StringBuilder line = new StringBuilder(256);
+        private boolean[] timestamps;
+        private long rows;
+
+        RowWriter(Writer out) {
+            this.out = out;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            if (timestamps == null) {
+                var meta = rs.getMetaData();
+                timestamps = new boolean[meta.getColumnCount() + 1];
+                for (int i = 1; i < timestamps.length; i++) {
+                    int type = meta.getColumnType(i);
+                    timestamps[i] = type == Types.TIMESTAMP || type == Types.TIMESTAMP_WITH_TIMEZONE;
+                }
+            }
+
+            line.setLength(0);
+            for (int i = 1; i < timestamps.length; i++) {
+                if (i > 1) {
+                    line.append(',');
+                }
+                if (timestamps[i]) {
+                    // same text as LocalDateTime.parse in the loaders expects
+                    var value = rs.getTimestamp(i);
+                    Csv.append(line, value != null ? value.toLocalDateTime().toString() : null);
+                } else {
+                    Csv.append(line, rs.getString(i));
+                }
+            }
+            line.append('\n');
+
+            try {
+                out.append(line);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            rows++;
+        }
+    }
+
+    private static class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
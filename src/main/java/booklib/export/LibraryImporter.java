@@ -0,0 +1,192 @@
+package booklib.export;
+
+import booklib.Factory;
+import booklib.csv.Csv;
+import booklib.readingSessions.ShardedReadingSessionDao;
+import org.springframework.jdbc.core.JdbcOperations;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+
+/**
+ * Loads a {@link LibraryExporter} directory back into MySQL: all six tables, including
+ * {@code reading_session}, {@code book_status}, {@code book_status_current} and
+ * {@code favorite_books}, which have no {@code loadFromCsv} of their own.
+ * <pre>
+ * java booklib.export.LibraryImporter /backup/2026-10-19
+ * </pre>
+ * Tables are loaded in {@link LibraryExporter#TABLES} order, so books and readers exist
+ * before the rows referring to them; the files of one table are loaded in parallel. A row
+ * whose primary key already exists is kept as it is, so an interrupted import can simply
+ * be run again; any other failing row (foreign key, value too long, unknown enum value)
+ * fails the import. Sessions go to their shard when {@code DB_SHARDS} is set, and the
+ * shards' id blocks are moved past the imported ids afterwards, so run it while the
+ * application is stopped.
+ */
+public class LibraryImporter {
+
+    private static final Pattern PART = Pattern.compile("(.+?)(-\\d+)?\\.csv(\\.gz)?");
+
+    // lines = records in the file, rows = rows inserted (less on a rerun)
+    public record FileResult(String table, String fileName, long lines, long rows) {
+    }
+
+    private final JdbcOperations database;
+    private final List<JdbcOperations> shards;
+    private final int threads;
+    private final int batchSize;
+
+    /**
+     * @param shards    databases holding {@code reading_session} instead of {@code database} (empty = not sharded)
+     * @param batchSize rows per batched INSERT
+     */
+    public LibraryImporter(JdbcOperations database, List<JdbcOperations> shards, int threads, int batchSize) {
+        this.database = database;
+        this.shards = shards;
+        this.threads = threads;
+        this.batchSize = batchSize;
+    }
+
+    public static void main(String[] args) {
+        var directory = new File(args.length > 0 ? args[0] : "export");
+        var importer = new LibraryImporter(
+                Factory.INSTANCE.getMysqlJdbcOperations(),
+                Factory.INSTANCE.getShardJdbcOperations(),
+                Integer.getInteger("IMPORT_THREADS", Integer.getInteger("DB_POOL_SIZE", 10)),
+                Integer.getInteger("IMPORT_BATCH_SIZE", 1000));
+
+        long start = System.nanoTime();
+        var results = importer.load(directory);
+        long rows = 0;
+        for (var result : results) {
+            System.out.printf("%-20s %-28s %,12d lines %,12d rows%n",
+                    result.table(), result.fileName(), result.lines(), result.rows());
+            rows += result.rows();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("imported %,d rows from %s in %.1f s: %,.0f rows/s%n", rows, directory, seconds, rows / seconds);
+    }
+
+    public List<FileResult> load(File directory) {
+        var filesByTable = new LinkedHashMap<String, List<File>>();
+        for (var table : LibraryExporter.TABLES) {
+            filesByTable.put(table.name(), new ArrayList<>());
+        }
+        var files = directory.listFiles();
+        if (files == null) {
+            throw new RuntimeException("Cannot read import directory " + directory);
+        }
+        Arrays.sort(files);
+        for (var file : files) {
+            var matcher = PART.matcher(file.getName());
+            if (matcher.matches() && filesByTable.containsKey(matcher.group(1))) {
+                filesByTable.get(matcher.group(1)).add(file);
+            }
+        }
+
+        if (!shards.isEmpty()) {
+            ShardedReadingSessionDao.createTables(shards);
+        }
+
+        var results = new ArrayList<FileResult>();
+        try (var executor = Executors.newFixedThreadPool(Math.max(1, threads))) {
+            for (var table : LibraryExporter.TABLES) {
+                var tasks = new ArrayList<Callable<FileResult>>();
+                for (var file : filesByTable.get(table.name())) {
+                    tasks.add(() -> load(table, file));
+                }
+                // one table after the other because of the foreign keys
+                for (var future : executor.invokeAll(tasks)) {
+                    results.add(future.get());
+                }
+                if (table.name().equals("reading_session") && !shards.isEmpty()) {
+                    // imported ids must never be handed out again by ShardedReadingSessionDao.create
+                    ShardedReadingSessionDao.raiseNextId(shards);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while importing", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Import failed", e.getCause());
+        }
+        return results;
+    }
+
+    private FileResult load(LibraryExporter.Table table, File file) throws IOException {
+        var columns = table.columns().replace(" ", "");
+        var names = columns.split(",");
+        var timestamps = new boolean[names.length];
+        for (int i = 0; i < names.length; i++) {
+            // created_at / updated_at, written by LocalDateTime.toString()
+            timestamps[i] = names[i].endsWith("_at");
+        }
+        // not INSERT IGNORE: that would also turn every invalid row into a warning
+        var sql = "INSERT INTO " + table.name() + " (" + table.columns() + ") VALUES ("
+                + String.join(", ", Collections.nCopies(names.length, "?")) + ")"
+                + " ON DUPLICATE KEY UPDATE " + table.key() + " = " + table.key();
+        boolean sharded = table.name().equals("reading_session") && !shards.isEmpty();
+        var batches = new LinkedHashMap<JdbcOperations, List<Object[]>>();
+
+        long lines = 0;
+        long rows = 0;
+        try (var records = Csv.open(file)) {
+            var header = records.next();
+            if (header == null || !columns.equals(String.join(",", header))) {
+                throw new IllegalArgumentException(file + ": expected header " + columns + " but was "
+                        + (header != null ? String.join(",", header) : "nothing"));
+            }
+            String[] parts;
+            while ((parts = records.next()) != null) {
+                if (parts.length != names.length) {
+                    throw new IllegalArgumentException(file + ": expected " + names.length + " values in record "
+                            + (lines + 1) + " but found " + parts.length);
+                }
+                var values = new Object[parts.length];
+                for (int i = 0; i < parts.length; i++) {
+                    values[i] = timestamps[i] && parts[i] != null ? Timestamp.valueOf(LocalDateTime.parse(parts[i])) : parts[i];
+                }
+                // reading_session: id, reader_id, ...
+                var target = sharded
+                        ? shards.get(ShardedReadingSessionDao.shardFor(Long.parseLong(parts[1]), shards.size()))
+                        : database;
+                var batch = batches.computeIfAbsent(target, t -> new ArrayList<>(batchSize));
+                batch.add(values);
+                if (batch.size() >= batchSize) {
+                    rows += insert(target, sql, batch);
+                    batch.clear();
+                }
+                lines++;
+            }
+        }
+        for (Map.Entry<JdbcOperations, List<Object[]>> entry : batches.entrySet()) {
+            if (!entry.getValue().isEmpty()) {
+                rows += insert(entry.getKey(), sql, entry.getValue());
+            }
+        }
+        return new FileResult(table.name(), file.getName(), lines, rows);
+    }
+
+    // 1 per inserted row; an existing row counts 0, or 1 with Connector/J's default useAffectedRows=false;
+    // a rewritten batch (rewriteBatchedStatements) only reports SUCCESS_NO_INFO
+    private static long insert(JdbcOperations target, String sql, List<Object[]> batch) {
+        long rows = 0;
+        for (int count : target.batchUpdate(sql, batch)) {
+            rows += count == Statement.SUCCESS_NO_INFO ? 1 : count;
+        }
+        return rows;
+    }
+}
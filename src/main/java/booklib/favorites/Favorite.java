@@ -0,0 +1,21 @@
+package booklib.favorites;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+// один ряд таблицы favorite_books
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Favorite {
+    private Long readerId;
+    private Long bookId;
+
+    public static Favorite fromResultSet(ResultSet rs) throws SQLException {
+        return new Favorite(rs.getLong("reader_id"), rs.getLong("book_id"));
+    }
+}
@@ -0,0 +1,18 @@
+package booklib.favorites;
+
+import booklib.books.Book;
+
+import java.util.List;
+
+public interface FavoriteDao {
+
+    // все пары (reader, book) - для построения FavoritesIndex
+    List<Favorite> findAll();
+
+    // любимые книги reader'а
+    List<Book> findBooksByReaderId(Long readerId);
+
+    void add(Long readerId, Long bookId);
+
+    void remove(Long readerId, Long bookId);
+}
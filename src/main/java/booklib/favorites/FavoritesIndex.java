@@ -0,0 +1,240 @@
+package booklib.favorites;
+
+import booklib.events.ChangeEvent;
+import booklib.events.ChangeEventBus;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory copy of {@code favorite_books} as compressed (Roaring) bitmaps: book ids per
+ * reader and reader ids per book. Overlap questions become bitmap AND/OR operations
+ * instead of self-joins. A million readers with 20 favorites each take about 600 MB of
+ * heap, a fifth of it bitmaps and the rest the maps holding them (FavoritesBenchmark).
+ * <p>
+ * Kept up to date through the {@link ChangeEventBus}; all results are copies.
+ * <p>
+ * Ids are held as unsigned 32-bit values, so they must lie in {@code [0, MAX_ID]}: loading
+ * a table with a larger id fails. A larger id that arrives later through an event cannot
+ * be indexed; the index then stops answering (IllegalStateException) instead of giving
+ * answers without that favorite, and has to be loaded again.
+ */
+public class FavoritesIndex {
+
+    public static final long MAX_ID = 0xFFFF_FFFFL;
+
+    private static final long[] EMPTY = new long[0];
+
+    private final Map<Long, RoaringBitmap> booksByReader = new HashMap<>();
+    private final Map<Long, RoaringBitmap> readersByBook = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // a favorite from an event with an id beyond MAX_ID
+    private volatile Favorite unindexed = null;
+
+    public static FavoritesIndex load(FavoriteDao favoriteDao, ChangeEventBus eventBus) {
+        var index = new FavoritesIndex();
+        // subscribe first, so nothing written during the load is lost (add/remove are idempotent)
+        eventBus.subscribe(Favorite.class, index::apply);
+        index.lock.writeLock().lock();
+        try {
+            for (var favorite : favoriteDao.findAll()) {
+                if (!fits(favorite.getReaderId(), favorite.getBookId())) {
+                    throw new IllegalStateException("favorite_books has " + favorite
+                            + ", FavoritesIndex holds ids up to " + MAX_ID);
+                }
+                index.addUnlocked(favorite.getReaderId(), favorite.getBookId());
+            }
+            index.booksByReader.values().forEach(RoaringBitmap::runOptimize);
+            index.readersByBook.values().forEach(RoaringBitmap::runOptimize);
+        } finally {
+            index.lock.writeLock().unlock();
+        }
+        return index;
+    }
+
+    public void add(long readerId, long bookId) {
+        if (!fits(readerId, bookId)) {
+            throw new IllegalArgumentException("FavoritesIndex holds ids up to " + MAX_ID
+                    + ": reader " + readerId + ", book " + bookId);
+        }
+        lock.writeLock().lock();
+        try {
+            addUnlocked(readerId, bookId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long readerId, long bookId) {
+        if (!fits(readerId, bookId)) {
+            return; // never indexed
+        }
+        lock.writeLock().lock();
+        try {
+            removeFrom(booksByReader, readerId, bookId);
+            removeFrom(readersByBook, bookId, readerId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isFavorite(long readerId, long bookId) {
+        checkComplete();
+        lock.readLock().lock();
+        try {
+            var books = booksByReader.get(readerId);
+            return books != null && fits(readerId, bookId) && books.contains(id(bookId));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // сколько reader'ов добавили книгу в избранное
+    public long favoriteCount(long bookId) {
+        checkComplete();
+        lock.readLock().lock();
+        try {
+            var readers = readersByBook.get(bookId);
+            return readers == null ? 0 : readers.getLongCardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // id книг, которые в избранном у обоих reader'ов
+    public long[] favoritesInCommon(long readerId, long otherReaderId) {
+        checkComplete();
+        lock.readLock().lock();
+        try {
+            var a = booksByReader.get(readerId);
+            var b = booksByReader.get(otherReaderId);
+            return a == null || b == null ? EMPTY : toLongs(RoaringBitmap.and(a, b));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long countFavoritesInCommon(long readerId, long otherReaderId) {
+        checkComplete();
+        lock.readLock().lock();
+        try {
+            var a = booksByReader.get(readerId);
+            var b = booksByReader.get(otherReaderId);
+            return a == null || b == null ? 0 : RoaringBitmap.andCardinality(a, b);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // reader'ы, у которых в избранном все перечисленные книги
+    public long[] readersWhoFavoritedAll(long... bookIds) {
+        checkComplete();
+        lock.readLock().lock();
+        try {
+            RoaringBitmap result = null;
+            for (var bookId : bookIds) {
+                var readers = readersByBook.get(bookId);
+                if (readers == null) {
+                    return EMPTY;
+                }
+                result = result == null ? copy(readers) : RoaringBitmap.and(result, readers);
+            }
+            return result == null ? EMPTY : toLongs(result);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // reader'ы, у которых в избранном хотя бы одна из книг
+    public long[] readersWhoFavoritedAny(long... bookIds) {
+        checkComplete();
+        lock.readLock().lock();
+        try {
+            var result = new RoaringBitmap();
+            for (var bookId : bookIds) {
+                var readers = readersByBook.get(bookId);
+                if (readers != null) {
+                    result.or(readers);
+                }
+            }
+            return toLongs(result);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long sizeInBytes() {
+        lock.readLock().lock();
+        try {
+            long size = 0;
+            for (var bitmap : booksByReader.values()) size += bitmap.getLongSizeInBytes();
+            for (var bitmap : readersByBook.values()) size += bitmap.getLongSizeInBytes();
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void apply(ChangeEvent<Favorite> event) {
+        var favorite = event.entity();
+        if (!fits(favorite.getReaderId(), favorite.getBookId())) {
+            // not thrown: the listener runs inside the write and the index would just miss it
+            unindexed = favorite;
+            return;
+        }
+        if (event.type() == ChangeEvent.Type.DELETED) {
+            remove(favorite.getReaderId(), favorite.getBookId());
+        } else {
+            add(favorite.getReaderId(), favorite.getBookId());
+        }
+    }
+
+    private void addUnlocked(long readerId, long bookId) {
+        booksByReader.computeIfAbsent(readerId, id -> new RoaringBitmap()).add(id(bookId));
+        readersByBook.computeIfAbsent(bookId, id -> new RoaringBitmap()).add(id(readerId));
+    }
+
+    private static void removeFrom(Map<Long, RoaringBitmap> bitmaps, long key, long value) {
+        var bitmap = bitmaps.get(key);
+        if (bitmap != null) {
+            bitmap.remove(id(value));
+            if (bitmap.isEmpty()) {
+                bitmaps.remove(key);
+            }
+        }
+    }
+
+    private static RoaringBitmap copy(RoaringBitmap bitmap) {
+        return bitmap.clone();
+    }
+
+    private void checkComplete() {
+        var favorite = unindexed;
+        if (favorite != null) {
+            throw new IllegalStateException("FavoritesIndex is missing " + favorite
+                    + " (ids up to " + MAX_ID + "), load it again");
+        }
+    }
+
+    // ids are BIGINT in the schema, but auto-increment values stay far below 2^32
+    private static boolean fits(long readerId, long bookId) {
+        return readerId >= 0 && readerId <= MAX_ID && bookId >= 0 && bookId <= MAX_ID;
+    }
+
+    // unsigned: ids from 2^31 on are negative ints
+    private static int id(long id) {
+        return (int) id;
+    }
+
+    private static long[] toLongs(RoaringBitmap bitmap) {
+        var result = new long[bitmap.getCardinality()];
+        int i = 0;
+        for (var it = bitmap.getIntIterator(); it.hasNext(); ) {
+            result[i++] = Integer.toUnsignedLong(it.next());
+        }
+        return result;
+    }
+}
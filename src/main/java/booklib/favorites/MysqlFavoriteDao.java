@@ -0,0 +1,56 @@
+package booklib.favorites;
+
+import booklib.books.Book;
+import booklib.events.ChangeEvent;
+import booklib.events.ChangeEventBus;
+import org.springframework.jdbc.core.JdbcOperations;
+
+import java.util.List;
+
+public class MysqlFavoriteDao implements FavoriteDao {
+
+    private final JdbcOperations jdbcOperations;
+    private final ChangeEventBus eventBus;
+
+    public MysqlFavoriteDao(JdbcOperations jdbcOperations, ChangeEventBus eventBus) {
+        this.jdbcOperations = jdbcOperations;
+        this.eventBus = eventBus;
+    }
+
+    @Override
+    public List<Favorite> findAll() {
+        return jdbcOperations.query("SELECT reader_id, book_id FROM favorite_books",
+                (rs, rowNum) -> Favorite.fromResultSet(rs));
+    }
+
+    @Override
+    public List<Book> findBooksByReaderId(Long readerId) {
+        String sql =
+            "SELECT b.id, b.title, b.pages, b.genre, b.language, b.created_at " +
+            "FROM favorite_books f " +
+            "JOIN book b ON b.id = f.book_id " +
+            "WHERE f.reader_id = ?";
+
+        return jdbcOperations.query(sql, (rs, rowNum) -> Book.fromResultSet(rs), readerId);
+    }
+
+    @Override
+    public void add(Long readerId, Long bookId) {
+        int inserted = jdbcOperations.update(
+                "INSERT IGNORE INTO favorite_books (reader_id, book_id) VALUES (?, ?)", readerId, bookId);
+        if (inserted > 0) {
+            eventBus.publish(ChangeEvent.created(Favorite.class, null, new Favorite(readerId, bookId)));
+        }
+    }
+
+    @Override
+    public void remove(Long readerId, Long bookId) {
+        int deleted = jdbcOperations.update(
+                "DELETE FROM favorite_books WHERE reader_id = ? AND book_id = ?", readerId, bookId);
+        if (deleted > 0) {
+            // favorites have no single id, so the deleted pair travels as the entity
+            eventBus.publish(new ChangeEvent<>(ChangeEvent.Type.DELETED, Favorite.class, null,
+                    new Favorite(readerId, bookId)));
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package booklib.leaderboards;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Rolling top list over the last {@code days} days, e.g. pages per reader this week.
+ * <p>
+ * Amounts are kept in one bucket per day; when a day leaves the window its bucket is
+ * subtracted from the totals and dropped. The ranking is a concurrent skip list ordered
+ * by total, so {@link #top(int)} does not block writers and costs O(k).
+ */
+public class Leaderboard {
+
+    public record Entry(long id, long score) {
+    }
+
+    private static final Comparator<Entry> ORDER =
+            Comparator.comparingLong(Entry::score).reversed().thenComparingLong(Entry::id);
+
+    private final int days;
+    private final TreeMap<LocalDate, Map<Long, Long>> buckets = new TreeMap<>();
+    private final Map<Long, Long> totals = new HashMap<>();
+    private final ConcurrentSkipListSet<Entry> ranking = new ConcurrentSkipListSet<>(ORDER);
+
+    public Leaderboard(int days) {
+        this.days = days;
+    }
+
+    // delta may be negative (session updated or deleted); days outside the window are ignored
+    public synchronized void add(LocalDate day, long id, long delta, LocalDate today) {
+        expire(today);
+        if (day.isBefore(windowStart(today)) || day.isAfter(today)) {
+            return;
+        }
+        buckets.computeIfAbsent(day, d -> new HashMap<>())
+                .merge(id, delta, (a, b) -> a + b == 0 ? null : a + b);
+        changeTotal(id, delta);
+    }
+
+    public synchronized void expire(LocalDate today) {
+        var expired = buckets.headMap(windowStart(today));
+        for (var bucket : expired.values()) {
+            bucket.forEach((id, amount) -> changeTotal(id, -amount));
+        }
+        expired.clear();
+    }
+
+    public List<Entry> top(int k) {
+        var result = new ArrayList<Entry>(k);
+        for (var entry : ranking) {
+            if (result.size() == k) {
+                break;
+            }
+            result.add(entry);
+        }
+        return result;
+    }
+
+    private LocalDate windowStart(LocalDate today) {
+        return today.minusDays(days - 1);
+    }
+
+    private void changeTotal(long id, long delta) {
+        var old = totals.get(id);
+        if (old != null) {
+            ranking.remove(new Entry(id, old));
+        }
+        long total = (old != null ? old : 0) + delta;
+        if (total > 0) {
+            totals.put(id, total);
+            ranking.add(new Entry(id, total));
+        } else {
+            totals.remove(id);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package booklib.leaderboards;
+
+import booklib.events.ChangeEvent;
+import booklib.events.ChangeEventBus;
+import booklib.readingSessions.ReadingSession;
+import booklib.readingSessions.ReadingSessionDao;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Live "top readers this week / this month" and "most read books today" boards
+ * (rolling 7, 30 and 1 day windows, ranked by pages read).
+ * <p>
+ * Boards are rebuilt from {@code reading_session} on start (one query per day, run in
+ * parallel) and then follow session change events, so a write costs a few map and
+ * skip list updates instead of a GROUP BY. For updates and deletes the service remembers
+ * what each session in the window contributed.
+ */
+public class LeaderboardService {
+
+    private static final int RETENTION_DAYS = 30;
+    private static final int REBUILD_THREADS = 4;
+
+    private record Contribution(long readerId, long bookId, long pages, LocalDate day) {
+    }
+
+    private final Leaderboard readersWeek = new Leaderboard(7);
+    private final Leaderboard readersMonth = new Leaderboard(RETENTION_DAYS);
+    private final Leaderboard booksToday = new Leaderboard(1);
+
+    private final Map<Long, Contribution> contributions = new HashMap<>();
+    // ids deleted while a rebuild is loading, so the rebuild does not bring them back
+    private Set<Long> deletedDuringRebuild = null;
+
+    private ScheduledExecutorService expiry;
+
+    public static LeaderboardService start(ReadingSessionDao sessionDao, ChangeEventBus eventBus) {
+        var service = new LeaderboardService();
+        eventBus.subscribe(ReadingSession.class, service::apply);
+        service.rebuild(sessionDao);
+        service.startExpiry();
+        return service;
+    }
+
+    public List<Leaderboard.Entry> topReadersThisWeek(int k) {
+        readersWeek.expire(LocalDate.now());
+        return readersWeek.top(k);
+    }
+
+    public List<Leaderboard.Entry> topReadersThisMonth(int k) {
+        readersMonth.expire(LocalDate.now());
+        return readersMonth.top(k);
+    }
+
+    public List<Leaderboard.Entry> mostReadBooksToday(int k) {
+        booksToday.expire(LocalDate.now());
+        return booksToday.top(k);
+    }
+
+    public void rebuild(ReadingSessionDao sessionDao) {
+        synchronized (this) {
+            deletedDuringRebuild = new HashSet<>();
+        }
+
+        var today = LocalDate.now();
+        var tasks = new ArrayList<Callable<List<ReadingSession>>>();
+        for (int d = 0; d < RETENTION_DAYS; d++) {
+            var day = today.minusDays(d);
+            tasks.add(() -> sessionDao.findCreatedBetween(day.atStartOfDay(), day.plusDays(1).atStartOfDay()));
+        }
+
+        var executor = Executors.newFixedThreadPool(REBUILD_THREADS);
+        try {
+            for (var future : executor.invokeAll(tasks)) {
+                for (var session : future.get()) {
+                    load(session);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Leaderboard rebuild interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Leaderboard rebuild failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+            synchronized (this) {
+                deletedDuringRebuild = null;
+            }
+        }
+    }
+
+    public synchronized void stop() {
+        if (expiry != null) {
+            expiry.shutdownNow();
+            expiry = null;
+        }
+    }
+
+    private synchronized void startExpiry() {
+        expiry = Executors.newSingleThreadScheduledExecutor(r -> {
+            var thread = new Thread(r, "leaderboard-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        expiry.scheduleWithFixedDelay(this::expire, 1, 1, TimeUnit.MINUTES);
+    }
+
+    private synchronized void expire() {
+        var today = LocalDate.now();
+        readersWeek.expire(today);
+        readersMonth.expire(today);
+        booksToday.expire(today);
+        var oldest = today.minusDays(RETENTION_DAYS - 1);
+        contributions.values().removeIf(c -> c.day().isBefore(oldest));
+    }
+
+    private synchronized void apply(ChangeEvent<ReadingSession> event) {
+        var previous = contributions.remove(event.id());
+        if (previous != null) {
+            count(previous, -1);
+        }
+        if (event.type() == ChangeEvent.Type.DELETED) {
+            if (deletedDuringRebuild != null) {
+                deletedDuringRebuild.add(event.id());
+            }
+        } else {
+            put(event.entity());
+        }
+    }
+
+    // a session already seen through an event is newer than what the scan returned
+    private synchronized void load(ReadingSession session) {
+        if (!contributions.containsKey(session.getId())
+                && (deletedDuringRebuild == null || !deletedDuringRebuild.contains(session.getId()))) {
+            put(session);
+        }
+    }
+
+    private void put(ReadingSession session) {
+        if (session.getCreatedAt() == null) {
+            return;
+        }
+        var contribution = new Contribution(
+                session.getReader().getId(),
+                session.getBook().getId(),
+                session.getPagesRead(),
+                session.getCreatedAt().toLocalDate());
+        if (contribution.day().isBefore(LocalDate.now().minusDays(RETENTION_DAYS - 1))) {
+            return;
+        }
+        contributions.put(session.getId(), contribution);
+        count(contribution, 1);
+    }
+
+    private void count(Contribution contribution, int sign) {
+        var today = LocalDate.now();
+        long pages = sign * contribution.pages();
+        readersWeek.add(contribution.day(), contribution.readerId(), pages, today);
+        readersMonth.add(contribution.day(), contribution.readerId(), pages, today);
+        booksToday.add(contribution.day(), contribution.bookId(), pages, today);
+    }
+}
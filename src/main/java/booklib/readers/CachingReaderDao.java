@@ -0,0 +1,66 @@
+package booklib.readers;
+
+import booklib.cache.QueryCache;
+import booklib.cache.RowType;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Serves the reader list from a {@link QueryCache}; imports bump the table version.
+ * Pages after a key are not cached, see {@code CachingBookDao}.
+ */
+public class CachingReaderDao implements ReaderDao {
+
+    private static final String[] TABLES = {"reader"};
+
+    public static final RowType<Reader> READER_ROWS = new RowType<>(Reader::copy, reader -> RowType.OBJECT
+            + 4 * RowType.FIELD + 2 * RowType.OBJECT
+            + RowType.bytes(reader.getName()) + RowType.bytes(reader.getPasswordHash()));
+
+    private final ReaderDao delegate;
+    private final QueryCache cache;
+
+    public CachingReaderDao(ReaderDao delegate, QueryCache cache) {
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    @Override
+    public int loadFromCsv(File file) {
+        cache.getTableVersions().bump("reader");
+        try {
+            return delegate.loadFromCsv(file);
+        } finally {
+            cache.getTableVersions().bump("reader");
+        }
+    }
+
+    @Override
+    public List<Reader> findAll() {
+        return cache.getList("reader.findAll", List.of(), TABLES, READER_ROWS, delegate::findAll);
+    }
+
+    @Override
+    public List<Reader> findPage(Long afterId, int limit) {
+        if (afterId != null) {
+            return delegate.findPage(afterId, limit);
+        }
+        return cache.getList("reader.findPage", List.of(limit), TABLES, READER_ROWS,
+                () -> delegate.findPage(null, limit));
+    }
+
+    @Override
+    public List<Reader> findByNamePrefix(String prefix, int limit) {
+        return cache.getList("reader.findByNamePrefix", Arrays.asList(prefix, limit), TABLES, READER_ROWS,
+                () -> delegate.findByNamePrefix(prefix, limit));
+    }
+
+    // sets of ids rarely repeat, so these are not cached
+    @Override
+    public List<Reader> findByIds(Collection<Long> ids) {
+        return delegate.findByIds(ids);
+    }
+}
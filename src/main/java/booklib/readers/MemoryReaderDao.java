@@ -1,60 +1,148 @@
 package booklib.readers;
 
+import booklib.csv.Csv;
+import booklib.snapshots.IdIndex;
+import booklib.snapshots.MappedSnapshot;
+import booklib.snapshots.SnapshotList;
+import booklib.snapshots.SnapshotWriter;
+import booklib.snapshots.SortedIds;
+
 import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
 
 public class MemoryReaderDao implements ReaderDao {
 
+    // DAO владеет списком, менять его можно только через DAO
     private final List<Reader> readers;
 
+    // индексы строятся при создании DAO и дополняются в loadFromCsv; reader с повторным id в них не попадает
+    // id -> позиция в readers
+    private final IdIndex positions;
+
+    // id по возрастанию, для findPage
+    private final SortedIds sortedIds = new SortedIds();
+
     public MemoryReaderDao(List<Reader> readers) {
         this.readers = readers;
+        this.positions = new IdIndex(readers.size());
+        index(0);
     }
 
-    @Override
-    public int loadFromCsv(File file) {
-        var existingIds = readers.stream()
-                .map(Reader::getId)
-                .collect(Collectors.toSet());
-
-        var loadedList = new ArrayList<Reader>();
+    // быстрый старт: reader'ы читаются из бинарного снапшота по мере обращения к ним
+    public static MemoryReaderDao fromSnapshot(File file) {
+        return new MemoryReaderDao(new SnapshotList<>(MappedSnapshot.open(file), MemoryReaderDao::decode, Reader::getId));
+    }
 
-        Scanner scanner;
-        try {
-            scanner = new Scanner(file);
-        } catch (FileNotFoundException e) {
-            throw new RuntimeException(e);
+    public void saveSnapshot(File file) {
+        var writer = new SnapshotWriter();
+        for (var reader : readers) {
+            writer.beginRecord();
+            writer.writeLong(reader.getId());
+            writer.writeString(reader.getName());
+            writer.writeString(reader.getPasswordHash());
+            writer.writeDateTime(reader.getCreatedAt());
         }
+        writer.writeTo(file);
+    }
+
+    private static Reader decode(MappedSnapshot.Record record) {
+        var reader = new Reader();
+        reader.setId(record.readLong());
+        reader.setName(record.readString());
+        reader.setPasswordHash(record.readString());
+        reader.setCreatedAt(record.readDateTime());
+        return reader;
+    }
 
-        scanner.nextLine(); // skip header
+    @Override
+    public int loadFromCsv(File file) {
+        var existingIds = positions;
 
-        while (scanner.hasNextLine()) {
-            var line = scanner.nextLine();
-            if (line.isBlank()) continue;
+        var loadedList = new ArrayList<Reader>();
 
-            var parts = line.split(",", -1);
+        try (var records = Csv.open(file)) {
+            records.next(); // пропускаем заголовок
 
-            var id = Long.parseLong(parts[0]);
-            if (existingIds.contains(id)) continue;
+            String[] parts;
+            while ((parts = records.next()) != null) {
+                var id = Long.parseLong(parts[0]);
+                if (existingIds.contains(id)) continue;
 
-            var reader = new Reader();
-            reader.setId(id);
-            reader.setName(parts[1]);
-            reader.setPasswordHash(parts[2]);
-            reader.setCreatedAt(LocalDateTime.parse(parts[3]));
+                var reader = new Reader();
+                reader.setId(id);
+                reader.setName(parts[1]);
+                reader.setPasswordHash(parts[2]);
+                // created_at может быть NULL (пустое значение в экспорте)
+                if (parts.length > 3 && parts[3] != null && !parts[3].isBlank()) {
+                    reader.setCreatedAt(LocalDateTime.parse(parts[3]));
+                }
 
-            loadedList.add(reader);
+                loadedList.add(reader);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
         }
 
+        int first = readers.size();
         readers.addAll(loadedList);
+        index(first);
         return loadedList.size();
     }
 
+    // не копия, а представление только для чтения: reader'ы снапшота декодируются только при обращении
     @Override
     public List<Reader> findAll() {
-        return readers;
+        return Collections.unmodifiableList(readers);
+    }
+
+    @Override
+    public List<Reader> findPage(Long afterId, int limit) {
+        var result = new ArrayList<Reader>();
+        for (var id : sortedIds.after(afterId, limit)) {
+            result.add(readers.get(positions.positionOf(id)));
+        }
+        return result;
+    }
+
+    @Override
+    public List<Reader> findByIds(Collection<Long> ids) {
+        var result = new ArrayList<Reader>(ids.size());
+        for (var id : ids) {
+            int index = id != null ? positions.positionOf(id) : -1;
+            if (index >= 0) {
+                result.add(readers.get(index));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Reader> findByNamePrefix(String prefix, int limit) {
+        return readers.stream()
+                .filter(reader -> reader.getName() != null && reader.getName().startsWith(prefix))
+                .sorted(Comparator.comparing(Reader::getName))
+                .limit(limit)
+                .toList();
+    }
+
+    // reader'ы с позиции from в индексы
+    private void index(int from) {
+        var added = new long[readers.size() - from];
+        int count = 0;
+        for (int i = from; i < readers.size(); i++) {
+            var id = idAt(i);
+            if (id != null && !positions.contains(id)) {
+                positions.add(id, i);
+                added[count++] = id;
+            }
+        }
+        sortedIds.addAll(added, count);
+    }
+
+    // запись снапшота для этого не декодируется, читается только id
+    private Long idAt(int index) {
+        return readers instanceof SnapshotList<Reader> snapshot ? snapshot.id(index) : readers.get(index).getId();
     }
 }
@@ -1,15 +1,21 @@
 package booklib.readers;
 
+import booklib.events.ChangeEvent;
+import booklib.books.MysqlBookDao;
+import booklib.events.ChangeEventBus;
 import org.springframework.jdbc.core.JdbcOperations;
 import org.springframework.jdbc.core.ResultSetExtractor;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 public class MysqlReaderDao implements ReaderDao {
 
     private final JdbcOperations jdbcOperations;
+    private final ChangeEventBus eventBus;
 
     private final ResultSetExtractor<List<Reader>> resultSetExtractor = rs -> {
         var readers = new ArrayList<Reader>();
@@ -20,11 +26,18 @@ public class MysqlReaderDao implements ReaderDao {
         return readers;
     };
 
+    private static final int IN_BATCH_SIZE = 1000;
+
     private final String selectQuery =
             "SELECT id, name, password_hash, created_at FROM reader";
 
     public MysqlReaderDao(JdbcOperations jdbcOperations) {
+        this(jdbcOperations, new ChangeEventBus());
+    }
+
+    public MysqlReaderDao(JdbcOperations jdbcOperations, ChangeEventBus eventBus) {
         this.jdbcOperations = jdbcOperations;
+        this.eventBus = eventBus;
     }
 
     @Override
@@ -34,13 +47,16 @@ public class MysqlReaderDao implements ReaderDao {
         var numLoaded = memoryDao.loadFromCsv(file);
         var readers = memoryDao.findAll();
 
-        readers.forEach(reader -> jdbcOperations.update(
-                "INSERT INTO reader (id, name, password_hash, created_at) VALUES (?, ?, ?, ?)",
-                reader.getId(),
-                reader.getName(),
-                reader.getPasswordHash(),
-                reader.getCreatedAt()
-        ));
+        readers.forEach(reader -> {
+            jdbcOperations.update(
+                    "INSERT INTO reader (id, name, password_hash, created_at) VALUES (?, ?, ?, ?)",
+                    reader.getId(),
+                    reader.getName(),
+                    reader.getPasswordHash(),
+                    reader.getCreatedAt()
+            );
+            eventBus.publish(ChangeEvent.created(Reader.class, reader.getId(), reader));
+        });
 
         return numLoaded;
     }
@@ -49,4 +65,40 @@ public class MysqlReaderDao implements ReaderDao {
     public List<Reader> findAll() {
         return jdbcOperations.query(selectQuery, resultSetExtractor);
     }
+
+    @Override
+    public List<Reader> findPage(Long afterId, int limit) {
+        return jdbcOperations.query(selectQuery + " WHERE id > ? ORDER BY id LIMIT ?", resultSetExtractor,
+                afterId != null ? afterId : Long.MIN_VALUE, limit);
+    }
+
+    // primary key lookups, IN_BATCH_SIZE ids per statement
+    @Override
+    public List<Reader> findByIds(Collection<Long> ids) {
+        var result = new ArrayList<Reader>(ids.size());
+        var batch = new ArrayList<Long>(Math.min(ids.size(), IN_BATCH_SIZE));
+        for (var id : ids) {
+            batch.add(id);
+            if (batch.size() == IN_BATCH_SIZE) {
+                result.addAll(findByIdBatch(batch));
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            result.addAll(findByIdBatch(batch));
+        }
+        return result;
+    }
+
+    // a range on reader_name_idx
+    @Override
+    public List<Reader> findByNamePrefix(String prefix, int limit) {
+        return jdbcOperations.query(selectQuery + " WHERE name LIKE ? ORDER BY name LIMIT ?", resultSetExtractor,
+                MysqlBookDao.likePrefix(prefix), limit);
+    }
+
+    private List<Reader> findByIdBatch(List<Long> ids) {
+        var placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        return jdbcOperations.query(selectQuery + " WHERE id IN (" + placeholders + ")", resultSetExtractor, ids.toArray());
+    }
 }
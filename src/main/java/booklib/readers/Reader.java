@@ -13,6 +13,15 @@ public class Reader {
     private String passwordHash;
     private LocalDateTime createdAt;
 
+    public Reader copy() {
+        var copy = new Reader();
+        copy.setId(id);
+        copy.setName(name);
+        copy.setPasswordHash(passwordHash);
+        copy.setCreatedAt(createdAt);
+        return copy;
+    }
+
     public static Reader fromResultSet(ResultSet rs) throws SQLException {
         return fromResultSet(rs, "");
     }
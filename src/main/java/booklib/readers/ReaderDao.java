@@ -1,9 +1,19 @@
 package booklib.readers;
 
 import java.io.File;
+import java.util.Collection;
 import java.util.List;
 
 public interface ReaderDao {
     int loadFromCsv(File file);
     List<Reader> findAll();
+
+    // readers by ascending id: limit readers with id > afterId (null = from the start), keyset without OFFSET
+    List<Reader> findPage(Long afterId, int limit);
+
+    // readers with the given ids in any order; unknown ids are skipped
+    List<Reader> findByIds(Collection<Long> ids);
+
+    // the first limit readers (by name) whose name starts with prefix, for autocompletion
+    List<Reader> findByNamePrefix(String prefix, int limit);
 }
@@ -0,0 +1,57 @@
+package booklib.readers;
+
+import booklib.remote.RemoteClient;
+import com.fasterxml.jackson.core.type.TypeReference;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+// ReaderDao served by a BookLib server (see BookLibServer); password hashes are not sent
+public class RemoteReaderDao implements ReaderDao {
+
+    private static final TypeReference<List<Reader>> READER_LIST = new TypeReference<>() {
+    };
+
+    private final RemoteClient client;
+
+    public RemoteReaderDao(RemoteClient client) {
+        this.client = client;
+    }
+
+    @Override
+    public int loadFromCsv(File file) {
+        var result = client.upload("/api/readers/csv", file, new TypeReference<Map<String, Integer>>() {
+        });
+        return result.get("loaded");
+    }
+
+    @Override
+    public List<Reader> findAll() {
+        return client.getAll("/api/readers", READER_LIST);
+    }
+
+    @Override
+    public List<Reader> findPage(Long afterId, int limit) {
+        return RemoteClient.page(afterId, limit, Reader::getId, (after, size) ->
+                client.send("GET", "/api/readers?limit=" + size + (after != null ? "&after=" + after : ""),
+                        null, READER_LIST));
+    }
+
+    @Override
+    public List<Reader> findByNamePrefix(String prefix, int limit) {
+        return client.send("GET", "/api/readers?namePrefix=" + RemoteClient.encode(prefix) + "&limit=" + limit,
+                null, READER_LIST);
+    }
+
+    @Override
+    public List<Reader> findByIds(Collection<Long> ids) {
+        var result = new ArrayList<Reader>(ids.size());
+        for (var batch : RemoteClient.batches(ids)) {
+            result.addAll(client.send("GET", "/api/readers?ids=" + batch, null, READER_LIST));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,94 @@
+package booklib.readingSessions;
+
+import booklib.books.CachingBookDao;
+import booklib.cache.QueryCache;
+import booklib.cache.RowType;
+import booklib.readers.CachingReaderDao;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Serves session listings from a {@link QueryCache}; writes go straight to the delegate
+ * and bump the table version so cached listings are invalidated. Pages after a keyset
+ * cursor are not cached, see {@code CachingBookDao}.
+ */
+public class CachingReadingSessionDao implements ReadingSessionDao {
+
+    // listings JOIN reader and book, so writes to those tables invalidate them too
+    private static final String[] TABLES = {"reading_session", "reader", "book"};
+
+    // every session has its own reader and book copies in the cache
+    private static final RowType<ReadingSession> SESSION_ROWS = new RowType<>(ReadingSession::copy, session ->
+            RowType.OBJECT + 6 * RowType.FIELD + 2 * RowType.OBJECT
+                    + (session.getReader() != null ? CachingReaderDao.READER_ROWS.bytes().applyAsLong(session.getReader()) : 0)
+                    + (session.getBook() != null ? CachingBookDao.BOOK_ROWS.bytes().applyAsLong(session.getBook()) : 0));
+
+    private final ReadingSessionDao delegate;
+    private final QueryCache cache;
+
+    public CachingReadingSessionDao(ReadingSessionDao delegate, QueryCache cache) {
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    @Override
+    public List<ReadingSession> findAll() {
+        return cache.getList("session.findAll", List.of(), TABLES, SESSION_ROWS, delegate::findAll);
+    }
+
+    @Override
+    public List<ReadingSession> findAllSortedByDate() {
+        return cache.getList("session.findAllSortedByDate", List.of(), TABLES, SESSION_ROWS, delegate::findAllSortedByDate);
+    }
+
+    @Override
+    public List<ReadingSession> findCreatedBetween(LocalDateTime from, LocalDateTime to) {
+        // bulk scans (e.g. leaderboard rebuild) would only push listings out of the cache
+        return delegate.findCreatedBetween(from, to);
+    }
+
+    @Override
+    public List<ReadingSession> find(SessionQuery query) {
+        if (query.getAfterId() != null || query.getAfterCreatedAt() != null) {
+            return delegate.find(query);
+        }
+        return cache.getList("session.find", query.toParams(), TABLES, SESSION_ROWS, () -> delegate.find(query));
+    }
+
+    @Override
+    public ReadingSession create(ReadingSession session) {
+        // bumped before and after: listeners of the write's change event must not see
+        // the old listing, and a listing read while the write runs must not survive it
+        bump();
+        try {
+            return delegate.create(session);
+        } finally {
+            bump();
+        }
+    }
+
+    @Override
+    public ReadingSession update(ReadingSession session) {
+        bump();
+        try {
+            return delegate.update(session);
+        } finally {
+            bump();
+        }
+    }
+
+    @Override
+    public void delete(Long id) {
+        bump();
+        try {
+            delegate.delete(id);
+        } finally {
+            bump();
+        }
+    }
+
+    private void bump() {
+        cache.getTableVersions().bump("reading_session");
+    }
+}
@@ -0,0 +1,300 @@
+package booklib.readingSessions;
+
+import booklib.books.Book;
+import booklib.csv.Csv;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Struct-of-arrays copy of reading sessions for analytics.
+ * <p>
+ * Every column is a primitive array split into fixed-size chunks (about 40 bytes per
+ * session, no per-row objects), so 100M sessions fit in ~4 GB of heap. Aggregations are
+ * plain counted loops over the arrays that the JIT can unroll and vectorize, and run
+ * in parallel, one chunk per task.
+ * <p>
+ * Timestamps are stored as epoch seconds of the {@code created_at} wall-clock time
+ * (interpreted as UTC), the same convention as the binary snapshots.
+ */
+public class ColumnarSessionStore {
+
+    private static final int CHUNK_SIZE = 1 << 16;
+    private static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
+    private final List<Chunk> chunks = new ArrayList<>();
+    private long size = 0;
+
+    public static ColumnarSessionStore fromDao(ReadingSessionDao dao) {
+        var store = new ColumnarSessionStore();
+        dao.findAll().forEach(store::add);
+        return store;
+    }
+
+    // формат csv: id,reader_id,book_id,pages_read,duration_minutes,created_at
+    public int loadFromCsv(File file) {
+        int loaded = 0;
+        try (var records = Csv.open(file)) {
+            records.next(); // skip header
+            String[] parts;
+            while ((parts = records.next()) != null) {
+                add(Long.parseLong(parts[0]),
+                        Long.parseLong(parts[1]),
+                        Long.parseLong(parts[2]),
+                        Integer.parseInt(parts[3]),
+                        Integer.parseInt(parts[4]),
+                        parts.length > 5 && parts[5] != null && !parts[5].isBlank() ? LocalDateTime.parse(parts[5]) : null);
+                loaded++;
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return loaded;
+    }
+
+    public void add(ReadingSession session) {
+        add(session.getId(),
+                session.getReader().getId(),
+                session.getBook().getId(),
+                session.getPagesRead(),
+                session.getDurationMinutes(),
+                session.getCreatedAt());
+    }
+
+    public void add(long id, long readerId, long bookId, int pagesRead, int durationMinutes, LocalDateTime createdAt) {
+        var chunk = chunks.isEmpty() ? null : chunks.get(chunks.size() - 1);
+        if (chunk == null || chunk.count == CHUNK_SIZE) {
+            chunk = new Chunk();
+            chunks.add(chunk);
+        }
+        int i = chunk.count++;
+        chunk.ids[i] = id;
+        chunk.readerIds[i] = readerId;
+        chunk.bookIds[i] = bookId;
+        chunk.createdAt[i] = createdAt != null ? createdAt.toEpochSecond(ZoneOffset.UTC) : NO_TIMESTAMP;
+        chunk.pagesRead[i] = pagesRead;
+        chunk.durationMinutes[i] = durationMinutes;
+        size++;
+    }
+
+    public long size() {
+        return size;
+    }
+
+    // страницы за период [from, to)
+    public long sumPages(LocalDateTime from, LocalDateTime to) {
+        long fromEpoch = from.toEpochSecond(ZoneOffset.UTC);
+        long toEpoch = to.toEpochSecond(ZoneOffset.UTC);
+        return chunks.parallelStream()
+                .mapToLong(chunk -> sumInRange(chunk.pagesRead, chunk.createdAt, chunk.count, fromEpoch, toEpoch))
+                .sum();
+    }
+
+    // минуты за период [from, to)
+    public long sumMinutes(LocalDateTime from, LocalDateTime to) {
+        long fromEpoch = from.toEpochSecond(ZoneOffset.UTC);
+        long toEpoch = to.toEpochSecond(ZoneOffset.UTC);
+        return chunks.parallelStream()
+                .mapToLong(chunk -> sumInRange(chunk.durationMinutes, chunk.createdAt, chunk.count, fromEpoch, toEpoch))
+                .sum();
+    }
+
+    public long sumPagesForReader(long readerId) {
+        return chunks.parallelStream()
+                .mapToLong(chunk -> {
+                    long sum = 0;
+                    for (int i = 0; i < chunk.count; i++) {
+                        sum += chunk.readerIds[i] == readerId ? chunk.pagesRead[i] : 0;
+                    }
+                    return sum;
+                })
+                .sum();
+    }
+
+    public Map<Long, Map<YearMonth, Long>> pagesPerReaderPerMonth() {
+        var totals = chunks.parallelStream()
+                .map(chunk -> {
+                    var sums = new LongPairMap();
+                    for (int i = 0; i < chunk.count; i++) {
+                        long ts = chunk.createdAt[i];
+                        if (ts != NO_TIMESTAMP) {
+                            sums.add(chunk.readerIds[i], monthIndex(ts), chunk.pagesRead[i]);
+                        }
+                    }
+                    return sums;
+                })
+                .reduce(LongPairMap::merge)
+                .orElseGet(LongPairMap::new);
+
+        var result = new HashMap<Long, Map<YearMonth, Long>>();
+        totals.forEach((readerId, month, pages) -> result
+                .computeIfAbsent(readerId, id -> new TreeMap<>())
+                .put(YearMonth.of(Math.floorDiv(month, 12), Math.floorMod(month, 12) + 1), pages));
+        return result;
+    }
+
+    // жанр берётся из переданных книг; сессии неизвестных книг пропускаются
+    public Map<String, Long> minutesPerGenre(Collection<Book> books) {
+        var genres = new ArrayList<String>();
+        var genreCodes = new HashMap<String, Integer>();
+        var bookGenres = new LongPairMap();
+        for (var book : books) {
+            if (book.getId() == null || book.getGenre() == null) continue;
+            int code = genreCodes.computeIfAbsent(book.getGenre(), g -> {
+                genres.add(g);
+                return genres.size() - 1;
+            });
+            bookGenres.put(book.getId(), 0, code);
+        }
+
+        var totals = chunks.parallelStream()
+                .map(chunk -> {
+                    var sums = new long[genres.size()];
+                    for (int i = 0; i < chunk.count; i++) {
+                        long code = bookGenres.get(chunk.bookIds[i], 0, -1);
+                        if (code >= 0) {
+                            sums[(int) code] += chunk.durationMinutes[i];
+                        }
+                    }
+                    return sums;
+                })
+                .reduce((a, b) -> {
+                    for (int g = 0; g < a.length; g++) a[g] += b[g];
+                    return a;
+                })
+                .orElseGet(() -> new long[genres.size()]);
+
+        var result = new HashMap<String, Long>();
+        for (int g = 0; g < totals.length; g++) {
+            result.put(genres.get(g), totals[g]);
+        }
+        return result;
+    }
+
+    private static long sumInRange(int[] values, long[] createdAt, int count, long fromEpoch, long toEpoch) {
+        long sum = 0;
+        for (int i = 0; i < count; i++) {
+            long ts = createdAt[i];
+            sum += (ts >= fromEpoch & ts < toEpoch) ? values[i] : 0;
+        }
+        return sum;
+    }
+
+    // year * 12 + (month - 1) без создания LocalDate (алгоритм civil_from_days)
+    private static int monthIndex(long epochSecond) {
+        long z = Math.floorDiv(epochSecond, 86_400) + 719_468;
+        long era = Math.floorDiv(z, 146_097);
+        long doe = z - era * 146_097;
+        long yoe = (doe - doe / 1_460 + doe / 36_524 - doe / 146_096) / 365;
+        long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        long mp = (5 * doy + 2) / 153;
+        long month = mp < 10 ? mp + 3 : mp - 9;
+        long year = yoe + era * 400 + (month <= 2 ? 1 : 0);
+        return (int) (year * 12 + month - 1);
+    }
+
+    private static class Chunk {
+        final long[] ids = new long[CHUNK_SIZE];
+        final long[] readerIds = new long[CHUNK_SIZE];
+        final long[] bookIds = new long[CHUNK_SIZE];
+        final long[] createdAt = new long[CHUNK_SIZE];
+        final int[] pagesRead = new int[CHUNK_SIZE];
+        final int[] durationMinutes = new int[CHUNK_SIZE];
+        int count = 0;
+    }
+
+    /**
+     * Open-addressing map from a (long, int) key to a long sum, so group-by loops
+     * do not box keys.
+     */
+    private static class LongPairMap {
+        private long[] keys = new long[64];
+        private int[] subKeys = new int[64];
+        private long[] values = new long[64];
+        private boolean[] used = new boolean[64];
+        private int count = 0;
+
+        interface Visitor {
+            void visit(long key, int subKey, long value);
+        }
+
+        void add(long key, int subKey, long delta) {
+            int slot = insert(key, subKey);
+            values[slot] += delta;
+        }
+
+        void put(long key, int subKey, long value) {
+            int slot = insert(key, subKey);
+            values[slot] = value;
+        }
+
+        long get(long key, int subKey, long missing) {
+            int slot = slot(key, subKey);
+            return used[slot] ? values[slot] : missing;
+        }
+
+        void forEach(Visitor visitor) {
+            for (int slot = 0; slot < keys.length; slot++) {
+                if (used[slot]) {
+                    visitor.visit(keys[slot], subKeys[slot], values[slot]);
+                }
+            }
+        }
+
+        LongPairMap merge(LongPairMap other) {
+            other.forEach(this::add);
+            return this;
+        }
+
+        private int insert(long key, int subKey) {
+            if ((count + 1) * 2 > keys.length) {
+                resize();
+            }
+            int slot = slot(key, subKey);
+            if (!used[slot]) {
+                used[slot] = true;
+                keys[slot] = key;
+                subKeys[slot] = subKey;
+                count++;
+            }
+            return slot;
+        }
+
+        private int slot(long key, int subKey) {
+            int mask = keys.length - 1;
+            long h = (key * 0x9E3779B97F4A7C15L) ^ (subKey * 0xC2B2AE3D27D4EB4FL);
+            int slot = (int) (h ^ (h >>> 32)) & mask;
+            while (used[slot] && (keys[slot] != key || subKeys[slot] != subKey)) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private void resize() {
+            var oldKeys = keys;
+            var oldSubKeys = subKeys;
+            var oldValues = values;
+            var oldUsed = used;
+            int capacity = oldKeys.length * 2;
+            keys = new long[capacity];
+            subKeys = new int[capacity];
+            values = new long[capacity];
+            used = new boolean[capacity];
+            count = 0;
+            for (int slot = 0; slot < oldKeys.length; slot++) {
+                if (oldUsed[slot]) {
+                    add(oldKeys[slot], oldSubKeys[slot], oldValues[slot]);
+                }
+            }
+        }
+    }
+}
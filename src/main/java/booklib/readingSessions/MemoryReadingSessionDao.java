@@ -0,0 +1,234 @@
+package booklib.readingSessions;
+
+import booklib.events.ChangeEvent;
+import booklib.events.ChangeEventBus;
+import booklib.exceptions.NotFoundException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * Reading sessions kept in memory, with the same lookups the database has indexes for:
+ * one timeline sorted by {@code (created_at, id)} and one such timeline per reader and per
+ * book. {@link #find(SessionQuery)} takes the smallest matching timeline, cuts out the
+ * date range with {@code subSet} and walks it newest first until the limit is reached.
+ */
+public class MemoryReadingSessionDao implements ReadingSessionDao {
+
+    // (created_at, id), NULL даты в начале
+    private static final Comparator<ReadingSession> TIMELINE_ORDER = Comparator
+            .comparing(ReadingSession::getCreatedAt, Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder()))
+            .thenComparing(ReadingSession::getId);
+
+    private final ChangeEventBus eventBus;
+
+    // the keys a session was indexed under: callers may change reader, book or date of the
+    // instances they get back before calling update, so unindexing must not read them from it
+    private record Indexed(ReadingSession session, long readerId, long bookId, LocalDateTime createdAt) {
+    }
+
+    private final Map<Long, Indexed> sessionsById = new LinkedHashMap<>();
+    private final TreeSet<ReadingSession> timeline = new TreeSet<>(TIMELINE_ORDER);
+    private final Map<Long, TreeSet<ReadingSession>> byReader = new HashMap<>();
+    private final Map<Long, TreeSet<ReadingSession>> byBook = new HashMap<>();
+    private long nextId = 1;
+
+    public MemoryReadingSessionDao(List<ReadingSession> sessions) {
+        this(sessions, new ChangeEventBus());
+    }
+
+    public MemoryReadingSessionDao(List<ReadingSession> sessions, ChangeEventBus eventBus) {
+        this.eventBus = eventBus;
+        for (var session : sessions) {
+            index(session);
+            nextId = Math.max(nextId, session.getId() + 1);
+        }
+    }
+
+    @Override
+    public synchronized List<ReadingSession> findAll() {
+        var sessions = new ArrayList<ReadingSession>(sessionsById.size());
+        for (var indexed : sessionsById.values()) {
+            sessions.add(indexed.session());
+        }
+        return sessions;
+    }
+
+    @Override
+    public synchronized List<ReadingSession> findAllSortedByDate() {
+        return new ArrayList<>(timeline.descendingSet());
+    }
+
+    @Override
+    public synchronized List<ReadingSession> findCreatedBetween(LocalDateTime from, LocalDateTime to) {
+        return new ArrayList<>(range(timeline, from != null ? probe(from) : null, to != null ? probe(to) : null));
+    }
+
+    @Override
+    public synchronized List<ReadingSession> find(SessionQuery query) {
+        NavigableSet<ReadingSession> candidates = timeline;
+        if (query.getReaderId() != null) {
+            candidates = smaller(candidates, byReader.get(query.getReaderId()));
+        }
+        if (query.getBookId() != null) {
+            candidates = smaller(candidates, byBook.get(query.getBookId()));
+        }
+
+        // the next page starts below the cursor, so deep pages do not walk the earlier ones again
+        var upper = query.getTo() != null ? probe(query.getTo()) : null;
+        if (query.getAfterId() != null && (upper == null || TIMELINE_ORDER.compare(query.cursor(), upper) < 0)) {
+            upper = query.cursor();
+        }
+
+        var result = new ArrayList<ReadingSession>();
+        int limit = query.getLimit() != null ? query.getLimit() : Integer.MAX_VALUE;
+        for (var session : range(candidates, query.getFrom() != null ? probe(query.getFrom()) : null, upper).descendingSet()) {
+            if (result.size() >= limit) {
+                break;
+            }
+            if (query.matches(session)) {
+                result.add(session);
+            }
+        }
+        return result;
+    }
+
+    public synchronized ReadingSession findById(Long id) {
+        return indexed(id).session();
+    }
+
+    // size of the reader's timeline, including entries find would skip
+    synchronized int indexedForReader(long readerId) {
+        var sessions = byReader.get(readerId);
+        return sessions != null ? sessions.size() : 0;
+    }
+
+    private Indexed indexed(Long id) {
+        var indexed = sessionsById.get(id);
+        if (indexed == null) {
+            throw new NotFoundException("Reading session with id " + id + " not found");
+        }
+        return indexed;
+    }
+
+    @Override
+    public ReadingSession create(ReadingSession session) {
+        if (session == null) {
+            throw new IllegalArgumentException("ReadingSession is null");
+        }
+        if (session.getId() != null) {
+            throw new IllegalArgumentException("ReadingSession id must be null for create");
+        }
+
+        synchronized (this) {
+            session.setId(nextId++);
+            if (session.getCreatedAt() == null) {
+                session.setCreatedAt(LocalDateTime.now());
+            }
+            index(session);
+        }
+        eventBus.publish(ChangeEvent.created(ReadingSession.class, session.getId(), session));
+        return session;
+    }
+
+    @Override
+    public ReadingSession update(ReadingSession session) {
+        if (session == null) {
+            throw new IllegalArgumentException("ReadingSession is null");
+        }
+        if (session.getId() == null) {
+            throw new IllegalArgumentException("ReadingSession id is null for update");
+        }
+
+        synchronized (this) {
+            var existing = indexed(session.getId());
+            unindex(existing);
+            // like the UPDATE in MysqlReadingSessionDao, created_at stays
+            session.setCreatedAt(existing.createdAt());
+            index(session);
+        }
+        eventBus.publish(ChangeEvent.updated(ReadingSession.class, session.getId(), session));
+        return session;
+    }
+
+    @Override
+    public void delete(Long id) {
+        Indexed removed;
+        synchronized (this) {
+            removed = sessionsById.get(id);
+            if (removed != null) {
+                unindex(removed);
+            }
+        }
+        if (removed != null) {
+            eventBus.publish(ChangeEvent.deleted(ReadingSession.class, id));
+        }
+    }
+
+    private void index(ReadingSession session) {
+        var indexed = new Indexed(session, session.getReader().getId(), session.getBook().getId(), session.getCreatedAt());
+        sessionsById.put(session.getId(), indexed);
+        timeline.add(session);
+        byReader.computeIfAbsent(indexed.readerId(), id -> new TreeSet<>(TIMELINE_ORDER)).add(session);
+        byBook.computeIfAbsent(indexed.bookId(), id -> new TreeSet<>(TIMELINE_ORDER)).add(session);
+    }
+
+    private void unindex(Indexed indexed) {
+        var session = indexed.session();
+        // a date set on the instance since indexing would not find it in the trees
+        session.setCreatedAt(indexed.createdAt());
+        sessionsById.remove(session.getId());
+        timeline.remove(session);
+        removeFrom(byReader, indexed.readerId(), session);
+        removeFrom(byBook, indexed.bookId(), session);
+    }
+
+    private static void removeFrom(Map<Long, TreeSet<ReadingSession>> index, Long key, ReadingSession session) {
+        var sessions = index.get(key);
+        if (sessions != null) {
+            sessions.remove(session);
+            if (sessions.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    private static NavigableSet<ReadingSession> smaller(NavigableSet<ReadingSession> current, NavigableSet<ReadingSession> other) {
+        if (other == null) {
+            return new TreeSet<>(TIMELINE_ORDER);
+        }
+        return other.size() < current.size() ? other : current;
+    }
+
+    // lower <= session < upper in timeline order; null bounds are open
+    private static NavigableSet<ReadingSession> range(NavigableSet<ReadingSession> sessions,
+                                                      ReadingSession lower, ReadingSession upper) {
+        if (lower != null && upper != null) {
+            return TIMELINE_ORDER.compare(lower, upper) < 0
+                    ? sessions.subSet(lower, true, upper, false)
+                    : new TreeSet<>(TIMELINE_ORDER);
+        }
+        if (lower != null) {
+            return sessions.tailSet(lower, true);
+        }
+        if (upper != null) {
+            return sessions.headSet(upper, false);
+        }
+        return sessions;
+    }
+
+    // sorts before every session created at that time
+    private static ReadingSession probe(LocalDateTime createdAt) {
+        var probe = new ReadingSession();
+        probe.setCreatedAt(createdAt);
+        probe.setId(Long.MIN_VALUE);
+        return probe;
+    }
+}
@@ -4,10 +4,13 @@ import org.springframework.jdbc.core.JdbcOperations;
 import org.springframework.jdbc.core.ResultSetExtractor;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import booklib.books.Book;
+import booklib.events.ChangeEvent;
+import booklib.events.ChangeEventBus;
 import booklib.exceptions.NotFoundException;
 import booklib.readers.Reader;
 
 import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -15,6 +18,7 @@ import java.util.List;
 public class MysqlReadingSessionDao implements ReadingSessionDao {
 
     private final JdbcOperations jdbcOperations;
+    private final ChangeEventBus eventBus;
 
     private final ResultSetExtractor<List<ReadingSession>> resultSetExtractor = rs -> {
         var sessions = new ArrayList<ReadingSession>();
@@ -62,7 +66,12 @@ public class MysqlReadingSessionDao implements ReadingSessionDao {
                     "JOIN book b ON rs.book_id = b.id";
 
     public MysqlReadingSessionDao(JdbcOperations jdbcOperations) {
+        this(jdbcOperations, new ChangeEventBus());
+    }
+
+    public MysqlReadingSessionDao(JdbcOperations jdbcOperations, ChangeEventBus eventBus) {
         this.jdbcOperations = jdbcOperations;
+        this.eventBus = eventBus;
     }
 
     @Override
@@ -76,6 +85,58 @@ public class MysqlReadingSessionDao implements ReadingSessionDao {
         return jdbcOperations.query(query, resultSetExtractor);
     }
 
+    @Override
+    public List<ReadingSession> findCreatedBetween(LocalDateTime from, LocalDateTime to) {
+        var query = SELECT_QUERY + " WHERE rs.created_at >= ? AND rs.created_at < ?";
+        return jdbcOperations.query(query, resultSetExtractor, from, to);
+    }
+
+    // only set criteria become conditions, so MySQL can pick the matching composite index
+    // (reader_id, created_at), (book_id, created_at) or (created_at), see init.sql
+    @Override
+    public List<ReadingSession> find(SessionQuery query) {
+        var conditions = new ArrayList<String>();
+        var args = new ArrayList<Object>();
+        if (query.getReaderId() != null) {
+            conditions.add("rs.reader_id = ?");
+            args.add(query.getReaderId());
+        }
+        if (query.getBookId() != null) {
+            conditions.add("rs.book_id = ?");
+            args.add(query.getBookId());
+        }
+        if (query.getGenre() != null) {
+            conditions.add("b.genre = ?");
+            args.add(query.getGenre());
+        }
+        if (query.getFrom() != null) {
+            conditions.add("rs.created_at >= ?");
+            args.add(query.getFrom());
+        }
+        if (query.getTo() != null) {
+            conditions.add("rs.created_at < ?");
+            args.add(query.getTo());
+        }
+        if (query.getAfterId() != null) {
+            // keyset (created_at, id) < (?, ?); the first part is a range on the created_at column of the index
+            conditions.add("rs.created_at <= ? AND (rs.created_at < ? OR rs.id < ?)");
+            args.add(query.getAfterCreatedAt());
+            args.add(query.getAfterCreatedAt());
+            args.add(query.getAfterId());
+        }
+
+        var sql = new StringBuilder(SELECT_QUERY);
+        if (!conditions.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        sql.append(" ORDER BY rs.created_at DESC, rs.id DESC");
+        if (query.getLimit() != null) {
+            sql.append(" LIMIT ?");
+            args.add(query.getLimit());
+        }
+        return jdbcOperations.query(sql.toString(), resultSetExtractor, args.toArray());
+    }
+
     public ReadingSession findById(Long id) {
         var query = SELECT_QUERY + " WHERE rs.id = ?";
         var sessions = jdbcOperations.query(query, resultSetExtractor, id);
@@ -108,7 +169,9 @@ public class MysqlReadingSessionDao implements ReadingSessionDao {
         }, keyHolder);
 
         long id = keyHolder.getKey().longValue();
-        return findById(id);
+        var created = findById(id);
+        eventBus.publish(ChangeEvent.created(ReadingSession.class, id, created));
+        return created;
     }
 
     @Override
@@ -129,11 +192,16 @@ public class MysqlReadingSessionDao implements ReadingSessionDao {
                 session.getId()
         );
 
-        return findById(session.getId());
+        var updated = findById(session.getId());
+        eventBus.publish(ChangeEvent.updated(ReadingSession.class, updated.getId(), updated));
+        return updated;
     }
 
     @Override
     public void delete(Long id) {
-        jdbcOperations.update("DELETE FROM reading_session WHERE id = ?", id);
+        int deleted = jdbcOperations.update("DELETE FROM reading_session WHERE id = ?", id);
+        if (deleted > 0) {
+            eventBus.publish(ChangeEvent.deleted(ReadingSession.class, id));
+        }
     }
 }
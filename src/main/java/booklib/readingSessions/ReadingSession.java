@@ -17,6 +17,18 @@ public class ReadingSession {
     private int durationMinutes;
     private LocalDateTime createdAt;
 
+    // with copies of the reader and the book
+    public ReadingSession copy() {
+        var copy = new ReadingSession();
+        copy.setId(id);
+        copy.setReader(reader != null ? reader.copy() : null);
+        copy.setBook(book != null ? book.copy() : null);
+        copy.setPagesRead(pagesRead);
+        copy.setDurationMinutes(durationMinutes);
+        copy.setCreatedAt(createdAt);
+        return copy;
+    }
+
     public static ReadingSession fromResultSet(ResultSet rs) throws SQLException {
         return fromResultSet(rs, "");
     }
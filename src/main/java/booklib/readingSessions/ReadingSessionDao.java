@@ -1,10 +1,15 @@
 package booklib.readingSessions;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface ReadingSessionDao {
     List<ReadingSession> findAll();
     List<ReadingSession> findAllSortedByDate();
+    // sessions with from <= created_at < to
+    List<ReadingSession> findCreatedBetween(LocalDateTime from, LocalDateTime to);
+    // sessions matching the query, newest first
+    List<ReadingSession> find(SessionQuery query);
     ReadingSession create(ReadingSession session);
     ReadingSession update(ReadingSession session);
     void delete(Long id);
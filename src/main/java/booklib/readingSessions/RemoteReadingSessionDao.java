@@ -0,0 +1,87 @@
+package booklib.readingSessions;
+
+import booklib.events.ChangeEvent;
+import booklib.events.ChangeEventBus;
+import booklib.remote.RemoteClient;
+import com.fasterxml.jackson.core.type.TypeReference;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ReadingSessionDao served by a BookLib server (see BookLibServer).
+ * Writes made by this client are published on the local event bus like the MySQL DAO does.
+ */
+public class RemoteReadingSessionDao implements ReadingSessionDao {
+
+    private static final TypeReference<List<ReadingSession>> SESSION_LIST = new TypeReference<>() {
+    };
+    private static final TypeReference<ReadingSession> SESSION = new TypeReference<>() {
+    };
+
+    private final RemoteClient client;
+    private final ChangeEventBus eventBus;
+
+    public RemoteReadingSessionDao(RemoteClient client, ChangeEventBus eventBus) {
+        this.client = client;
+        this.eventBus = eventBus;
+    }
+
+    @Override
+    public List<ReadingSession> findAll() {
+        return client.getAll("/api/sessions", SESSION_LIST);
+    }
+
+    @Override
+    public List<ReadingSession> findAllSortedByDate() {
+        return client.getAll("/api/sessions?sort=date", SESSION_LIST);
+    }
+
+    @Override
+    public List<ReadingSession> findCreatedBetween(LocalDateTime from, LocalDateTime to) {
+        return client.getAll("/api/sessions?from=" + RemoteClient.encode(from) + "&to=" + RemoteClient.encode(to),
+                SESSION_LIST);
+    }
+
+    @Override
+    public List<ReadingSession> find(SessionQuery query) {
+        var params = new ArrayList<String>();
+        if (query.getReaderId() != null) params.add("reader=" + query.getReaderId());
+        if (query.getBookId() != null) params.add("book=" + query.getBookId());
+        if (query.getGenre() != null) params.add("genre=" + RemoteClient.encode(query.getGenre()));
+        if (query.getFrom() != null) params.add("from=" + RemoteClient.encode(query.getFrom()));
+        if (query.getTo() != null) params.add("to=" + RemoteClient.encode(query.getTo()));
+        if (query.getAfterId() != null) params.add("afterCreatedAt=" + RemoteClient.encode(query.getAfterCreatedAt())
+                + "&afterId=" + query.getAfterId());
+        if (query.getLimit() != null) params.add("max=" + query.getLimit());
+        var path = "/api/sessions/search" + (params.isEmpty() ? "" : "?" + String.join("&", params));
+        return client.getAll(path, SESSION_LIST);
+    }
+
+    @Override
+    public ReadingSession create(ReadingSession session) {
+        if (session == null) {
+            throw new IllegalArgumentException("ReadingSession is null");
+        }
+        var created = client.send("POST", "/api/sessions", session, SESSION);
+        eventBus.publish(ChangeEvent.created(ReadingSession.class, created.getId(), created));
+        return created;
+    }
+
+    @Override
+    public ReadingSession update(ReadingSession session) {
+        if (session == null || session.getId() == null) {
+            throw new IllegalArgumentException("ReadingSession id is null for update");
+        }
+        var updated = client.send("PUT", "/api/sessions/" + session.getId(), session, SESSION);
+        eventBus.publish(ChangeEvent.updated(ReadingSession.class, updated.getId(), updated));
+        return updated;
+    }
+
+    @Override
+    public void delete(Long id) {
+        client.send("DELETE", "/api/sessions/" + id, null, null);
+        eventBus.publish(ChangeEvent.deleted(ReadingSession.class, id));
+    }
+}
@@ -0,0 +1,482 @@
+package booklib.readingSessions;
+
+import booklib.readingSessions.SessionRows.Row;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Cold storage for old reading sessions: one compressed file per month in a directory,
+ * written by {@link SessionPartitionManager} when a month leaves the database. Every
+ * process that reads sessions through {@link TieredReadingSessionDao} needs the same
+ * directory, so outside of a single machine it belongs on shared storage (e.g. an NFS mount).
+ * <p>
+ * Layout of {@code reading_session-YYYY-MM.blsa}: magic and version, then blocks of up to
+ * {@value #BLOCK_SIZE} rows (rows sorted by id) and a row count of 0 at the end. A block is
+ * its row count, its compressed length and its deflated columns one after another:
+ * <pre>
+ * id deltas, reader_id, book_id, pages_read, duration_minutes, created_at (seconds into the month)
+ * </pre>
+ * All numbers are varints. Neighbouring values in a column are alike, so a session
+ * takes only a few bytes, and writers and readers only ever hold one block.
+ * Archived months are read-only.
+ */
+public class SessionArchive {
+
+    private static final int MAGIC = 0x424C5341; // "BLSA"
+    private static final int VERSION = 1;
+    private static final int BLOCK_SIZE = 4096;
+    private static final Pattern FILE_NAME = Pattern.compile("reading_session-(\\d{4}-\\d{2})\\.blsa");
+
+    private final Path directory;
+
+    public SessionArchive(File directory) {
+        this.directory = directory.toPath();
+        try {
+            Files.createDirectories(this.directory);
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot create archive directory " + directory, e);
+        }
+    }
+
+    // archived months, oldest first
+    public List<YearMonth> months() {
+        var months = new ArrayList<YearMonth>();
+        try (var files = Files.list(directory)) {
+            files.forEach(file -> {
+                var matcher = FILE_NAME.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    months.add(YearMonth.parse(matcher.group(1)));
+                }
+            });
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        months.sort(Comparator.naturalOrder());
+        return months;
+    }
+
+    public boolean contains(YearMonth month) {
+        return Files.exists(file(month));
+    }
+
+    List<Row> findAll() {
+        var rows = new ArrayList<Row>();
+        for (var month : months()) {
+            forEach(month, rows::add);
+        }
+        return rows;
+    }
+
+    // rows with from <= created_at < to; only the months that overlap are opened
+    List<Row> findCreatedBetween(LocalDateTime from, LocalDateTime to) {
+        var rows = new ArrayList<Row>();
+        for (var month : months()) {
+            var start = month.atDay(1).atStartOfDay();
+            var end = month.plusMonths(1).atDay(1).atStartOfDay();
+            if (!start.isBefore(to) || !end.isAfter(from)) {
+                continue;
+            }
+            forEach(month, row -> {
+                if (!row.createdAt().isBefore(from) && row.createdAt().isBefore(to)) {
+                    rows.add(row);
+                }
+            });
+        }
+        return rows;
+    }
+
+    List<Row> read(YearMonth month) {
+        var rows = new ArrayList<Row>();
+        forEach(month, rows::add);
+        return rows;
+    }
+
+    // number of sessions in the month; reads the whole file, so a damaged or cut off file fails here
+    int count(YearMonth month) {
+        int[] count = {0};
+        forEach(month, row -> count[0]++);
+        return count[0];
+    }
+
+    // one block of the month in memory at a time
+    void forEach(YearMonth month, Consumer<Row> action) {
+        try (var reader = new MonthReader(month)) {
+            while (reader.hasNext()) {
+                action.accept(reader.next());
+            }
+        }
+    }
+
+    // replaces the month file; every row must be created in that month
+    void write(YearMonth month, List<Row> rows) {
+        var sorted = new ArrayList<>(rows);
+        sorted.sort(Comparator.comparingLong(Row::id));
+        try (var writer = new MonthWriter(month, false)) {
+            for (var row : sorted) {
+                writer.add(row);
+            }
+            writer.commit();
+        }
+    }
+
+    /**
+     * Writer for one month that keeps the rows already archived for it: added rows are
+     * merged into them by id (an added row replaces an archived one with the same id).
+     * Nothing changes until {@link MonthWriter#commit()}; closing without it drops the new file.
+     */
+    MonthWriter append(YearMonth month) {
+        return new MonthWriter(month, true);
+    }
+
+    final class MonthWriter implements Closeable {
+
+        private final YearMonth month;
+        private final long monthStart;
+        private final Path target;
+        private final Path temp;
+        private final Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        private FileChannel channel;
+        private DataOutputStream out;
+        private MonthReader existing;
+        private Row nextExisting;
+
+        private final long[] ids = new long[BLOCK_SIZE];
+        private final long[] readerIds = new long[BLOCK_SIZE];
+        private final long[] bookIds = new long[BLOCK_SIZE];
+        private final long[] pages = new long[BLOCK_SIZE];
+        private final long[] minutes = new long[BLOCK_SIZE];
+        private final long[] seconds = new long[BLOCK_SIZE];
+        private int blockSize = 0;
+        private int count = 0;
+        private long lastAdded = Long.MIN_VALUE;
+        private boolean done = false;
+
+        private MonthWriter(YearMonth month, boolean keepExisting) {
+            this.month = month;
+            this.monthStart = month.atDay(1).atStartOfDay().toEpochSecond(ZoneOffset.UTC);
+            this.target = file(month);
+            this.temp = directory.resolve(target.getFileName() + ".tmp");
+            try {
+                if (keepExisting && Files.exists(target)) {
+                    existing = new MonthReader(month);
+                    nextExisting = existing.hasNext() ? existing.next() : null;
+                }
+                channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                        StandardOpenOption.WRITE);
+                out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+            } catch (IOException e) {
+                close();
+                throw new RuntimeException("Cannot write " + temp, e);
+            } catch (RuntimeException e) {
+                close();
+                throw e;
+            }
+        }
+
+        // rows in ascending id order
+        void add(Row row) {
+            if (row.id() <= lastAdded) {
+                throw new IllegalArgumentException("Sessions must be added by ascending id, got " + row.id()
+                        + " after " + lastAdded);
+            }
+            if (!YearMonth.from(row.createdAt()).equals(month)) {
+                throw new IllegalArgumentException("Session " + row.id() + " is not from " + month);
+            }
+            lastAdded = row.id();
+            while (nextExisting != null && nextExisting.id() <= row.id()) {
+                if (nextExisting.id() < row.id()) {
+                    append(nextExisting);
+                }
+                nextExisting = existing.hasNext() ? existing.next() : null;
+            }
+            append(row);
+        }
+
+        /**
+         * Writes the rest, forces the file to disk, moves it over the month file and reads
+         * it back: once this returns, the month file holds every row and survives a crash.
+         *
+         * @return number of rows in the month file
+         */
+        int commit() {
+            while (nextExisting != null) {
+                append(nextExisting);
+                nextExisting = existing.hasNext() ? existing.next() : null;
+            }
+            try {
+                writeBlock();
+                out.writeInt(0);
+                out.flush();
+                channel.force(true);
+            } catch (IOException e) {
+                throw new RuntimeException("Cannot write " + temp, e);
+            }
+            closeFiles();
+
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                done = true;
+                syncDirectory();
+            } catch (IOException e) {
+                throw new RuntimeException("Cannot write " + target, e);
+            }
+            int stored = count(month);
+            if (stored != count) {
+                throw new IllegalStateException("Archive " + target + " holds " + stored + " sessions, "
+                        + count + " were written");
+            }
+            return count;
+        }
+
+        @Override
+        public void close() {
+            closeFiles();
+            deflater.end();
+            if (!done) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException e) {
+                    throw new RuntimeException("Cannot delete " + temp, e);
+                }
+            }
+        }
+
+        private void closeFiles() {
+            if (existing != null) {
+                existing.close();
+            }
+            try {
+                if (out != null) {
+                    out.close();
+                } else if (channel != null) {
+                    channel.close();
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("Cannot close " + temp, e);
+            }
+        }
+
+        private void append(Row row) {
+            ids[blockSize] = row.id();
+            readerIds[blockSize] = row.readerId();
+            bookIds[blockSize] = row.bookId();
+            pages[blockSize] = row.pagesRead();
+            minutes[blockSize] = row.durationMinutes();
+            seconds[blockSize] = row.createdAt().toEpochSecond(ZoneOffset.UTC) - monthStart;
+            blockSize++;
+            count++;
+            if (blockSize == BLOCK_SIZE) {
+                try {
+                    writeBlock();
+                } catch (IOException e) {
+                    throw new RuntimeException("Cannot write " + temp, e);
+                }
+            }
+        }
+
+        private void writeBlock() throws IOException {
+            if (blockSize == 0) {
+                return;
+            }
+            var bytes = new ByteArrayOutputStream();
+            deflater.reset();
+            var compressed = new DeflaterOutputStream(bytes, deflater);
+            var columns = new BufferedOutputStream(compressed, 1 << 16);
+            long previousId = 0;
+            for (int i = 0; i < blockSize; i++) {
+                writeVarLong(columns, ids[i] - previousId);
+                previousId = ids[i];
+            }
+            for (int i = 0; i < blockSize; i++) writeVarLong(columns, zigZag(readerIds[i]));
+            for (int i = 0; i < blockSize; i++) writeVarLong(columns, zigZag(bookIds[i]));
+            for (int i = 0; i < blockSize; i++) writeVarLong(columns, zigZag(pages[i]));
+            for (int i = 0; i < blockSize; i++) writeVarLong(columns, zigZag(minutes[i]));
+            for (int i = 0; i < blockSize; i++) writeVarLong(columns, zigZag(seconds[i]));
+            columns.flush();
+            compressed.finish();
+
+            out.writeInt(blockSize);
+            out.writeInt(bytes.size());
+            bytes.writeTo(out);
+            blockSize = 0;
+        }
+    }
+
+    // one block in memory at a time
+    private final class MonthReader implements Closeable {
+
+        private final Path file;
+        private final long monthStart;
+        private final DataInputStream in;
+        private Row[] block = new Row[0];
+        private int position = 0;
+        private boolean ended = false;
+
+        private MonthReader(YearMonth month) {
+            this.file = file(month);
+            this.monthStart = month.atDay(1).atStartOfDay().toEpochSecond(ZoneOffset.UTC);
+            try {
+                in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16));
+            } catch (IOException e) {
+                throw new RuntimeException("Cannot read " + file, e);
+            }
+            try {
+                if (in.readInt() != MAGIC) {
+                    throw new IllegalStateException("Not a session archive: " + file);
+                }
+                int version = in.readInt();
+                if (version != VERSION) {
+                    throw new IllegalStateException("Unsupported session archive version " + version);
+                }
+            } catch (IOException e) {
+                close();
+                throw new RuntimeException("Cannot read " + file, e);
+            } catch (RuntimeException e) {
+                close();
+                throw e;
+            }
+        }
+
+        boolean hasNext() {
+            while (position == block.length && !ended) {
+                try {
+                    readBlock();
+                } catch (EOFException e) {
+                    throw new RuntimeException("Session archive " + file + " is cut off", e);
+                } catch (IOException e) {
+                    throw new RuntimeException("Cannot read " + file, e);
+                }
+            }
+            return position < block.length;
+        }
+
+        Row next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return block[position++];
+        }
+
+        private void readBlock() throws IOException {
+            int count = in.readInt();
+            if (count == 0) {
+                ended = true;
+                return;
+            }
+            var bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            try (var columns = new BufferedInputStream(new InflaterInputStream(new ByteArrayInputStream(bytes)), 1 << 16)) {
+                var ids = new long[count];
+                long id = 0;
+                for (int i = 0; i < count; i++) {
+                    id += readVarLong(columns);
+                    ids[i] = id;
+                }
+                var readerIds = readColumn(columns, count);
+                var bookIds = readColumn(columns, count);
+                var pages = readColumn(columns, count);
+                var minutes = readColumn(columns, count);
+                var createdAt = readColumn(columns, count);
+
+                block = new Row[count];
+                for (int i = 0; i < count; i++) {
+                    block[i] = new Row(ids[i], readerIds[i], bookIds[i], (int) pages[i], (int) minutes[i],
+                            LocalDateTime.ofEpochSecond(monthStart + createdAt[i], 0, ZoneOffset.UTC));
+                }
+                position = 0;
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                in.close();
+            } catch (IOException e) {
+                throw new RuntimeException("Cannot close " + file, e);
+            }
+        }
+    }
+
+    // the rename itself only survives a crash once the directory is on disk too;
+    // Windows cannot open a directory for that (and NTFS journals the rename anyway)
+    private void syncDirectory() throws IOException {
+        if (System.getProperty("os.name", "").startsWith("Windows")) {
+            return;
+        }
+        try (var channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    private Path file(YearMonth month) {
+        return directory.resolve("reading_session-" + month + ".blsa");
+    }
+
+    private static long[] readColumn(InputStream in, int count) throws IOException {
+        var values = new long[count];
+        for (int i = 0; i < count; i++) {
+            long v = readVarLong(in);
+            values[i] = (v >>> 1) ^ -(v & 1);
+        }
+        return values;
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static void writeVarLong(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(InputStream in) throws IOException {
+        long value = 0;
+        int shift = 0;
+        while (true) {
+            int b = in.read();
+            if (b < 0) {
+                throw new IOException("Unexpected end of session archive");
+            }
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+            shift += 7;
+        }
+    }
+}
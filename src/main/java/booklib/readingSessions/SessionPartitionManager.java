@@ -0,0 +1,271 @@
+package booklib.readingSessions;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.io.File;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps {@code reading_session} partitioned by month (see init.sql) and moves old months
+ * to a {@link SessionArchive}.
+ * <ul>
+ *     <li>{@link #ensurePartitions(int)} splits the catch-all {@code pmax} partition so that
+ *     the current month and the next ones have their own partition;</li>
+ *     <li>{@link #archiveOlderThan(int)} moves every partition that ended before the
+ *     retention window out of the table ({@code EXCHANGE PARTITION}), writes it to the
+ *     archive, then drops it. Both are metadata changes, unlike a large {@code DELETE}.</li>
+ * </ul>
+ * Only one process does this: a server started with {@code --server --archive} (see
+ * {@link #start}, once a day) or this class run from cron; a MySQL named lock keeps a second
+ * one out. The archive directory must be the shared one every reader of the archive uses.
+ * <pre>
+ * java -DDB_JDBC=jdbc:mysql://db/bookLib -DDB_ARCHIVE_DIR=/mnt/booklib-archive \
+ *      -DDB_RETENTION_MONTHS=12 booklib.readingSessions.SessionPartitionManager
+ * </pre>
+ */
+public class SessionPartitionManager {
+
+    private static final int MONTHS_AHEAD = 3;
+    private static final DateTimeFormatter NAME = DateTimeFormatter.ofPattern("'p'yyyyMM");
+    private static final DateTimeFormatter BOUND = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    // rows read from a partition per query while it is archived
+    private static final int CHUNK_SIZE = 10_000;
+    private static final String LOCK_NAME = "booklib.session_partitions";
+    // rows of the partition being archived, out of reading_session
+    private static final String STAGING = "reading_session_archiving";
+
+    // lessThan == null for the MAXVALUE partition
+    public record Partition(String name, LocalDateTime lessThan) {
+    }
+
+    private final JdbcOperations jdbcOperations;
+    private final SessionArchive archive;
+
+    public SessionPartitionManager(JdbcOperations jdbcOperations, SessionArchive archive) {
+        this.jdbcOperations = jdbcOperations;
+        this.archive = archive;
+    }
+
+    public static ScheduledExecutorService start(SessionPartitionManager manager, int retentionMonths) {
+        var scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            var thread = new Thread(r, "session-partitions");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                manager.runOnce(retentionMonths);
+            } catch (RuntimeException e) {
+                // the next run tries again
+                var thread = Thread.currentThread();
+                thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+            }
+        }, 0, 1, TimeUnit.DAYS);
+        return scheduler;
+    }
+
+    public static void main(String[] args) {
+        var archiveDir = System.getProperty("DB_ARCHIVE_DIR");
+        if (archiveDir == null || archiveDir.isBlank()) {
+            throw new IllegalArgumentException("DB_ARCHIVE_DIR is not set");
+        }
+        var jdbc = new JdbcTemplate(new DriverManagerDataSource(
+                System.getProperty("DB_JDBC", "jdbc:mysql://localhost:3306/bookLib"),
+                System.getProperty("DB_USER", "bookLib"), System.getProperty("DB_PASSWORD", "bookLib")));
+        var manager = new SessionPartitionManager(jdbc, new SessionArchive(new File(archiveDir)));
+        if (!manager.runOnce(Integer.getInteger("DB_RETENTION_MONTHS", 12))) {
+            System.out.println("another process is archiving sessions, nothing done");
+        }
+    }
+
+    /**
+     * {@link #ensurePartitions} and {@link #archiveOlderThan} under a MySQL named lock.
+     *
+     * @return false if another process holds the lock
+     */
+    public boolean runOnce(int retentionMonths) {
+        // the lock belongs to this connection, the work itself uses others from the pool
+        Boolean ran = jdbcOperations.execute((ConnectionCallback<Boolean>) connection -> {
+            try (var lock = connection.prepareStatement("SELECT GET_LOCK(?, 0)")) {
+                lock.setString(1, LOCK_NAME);
+                try (var rs = lock.executeQuery()) {
+                    if (!rs.next() || rs.getInt(1) != 1) {
+                        return false;
+                    }
+                }
+            }
+            try {
+                ensurePartitions(MONTHS_AHEAD);
+                archiveOlderThan(retentionMonths);
+                return true;
+            } finally {
+                try (var release = connection.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+                    release.setString(1, LOCK_NAME);
+                    release.executeQuery().close();
+                }
+            }
+        });
+        return Boolean.TRUE.equals(ran);
+    }
+
+    // oldest first
+    public List<Partition> partitions() {
+        var partitions = jdbcOperations.query(
+                "SELECT PARTITION_NAME, PARTITION_DESCRIPTION FROM information_schema.PARTITIONS " +
+                        "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'reading_session' AND PARTITION_NAME IS NOT NULL " +
+                        "ORDER BY PARTITION_ORDINAL_POSITION",
+                (rs, rowNum) -> new Partition(rs.getString(1), parseBound(rs.getString(2))));
+        if (partitions.isEmpty()) {
+            throw new IllegalStateException("reading_session is not partitioned, see init.sql");
+        }
+        return partitions;
+    }
+
+    // MySQL shows RANGE COLUMNS bounds as quoted literals, e.g. '2025-02-01 00:00:00'
+    private static LocalDateTime parseBound(String description) {
+        if (description == null || description.equals("MAXVALUE")) {
+            return null;
+        }
+        var value = description.replace("'", "").trim();
+        return value.length() == 10 ? LocalDate.parse(value).atStartOfDay() : LocalDateTime.parse(value, BOUND);
+    }
+
+    // partitions up to and including monthsAhead months after the current one
+    public void ensurePartitions(int monthsAhead) {
+        var partitions = partitions();
+        var last = partitions.get(partitions.size() - 1);
+        var end = YearMonth.now().plusMonths(monthsAhead + 1).atDay(1).atStartOfDay();
+
+        LocalDateTime bound = null;
+        for (var partition : partitions) {
+            if (partition.lessThan() != null) {
+                bound = partition.lessThan();
+            }
+        }
+        if (bound == null) {
+            bound = YearMonth.now().atDay(1).atStartOfDay();
+        }
+
+        var definitions = new ArrayList<String>();
+        while (bound.isBefore(end)) {
+            var next = YearMonth.from(bound).plusMonths(1).atDay(1).atStartOfDay();
+            definitions.add("PARTITION " + NAME.format(bound) + " VALUES LESS THAN ('" + BOUND.format(next) + "')");
+            bound = next;
+        }
+        if (definitions.isEmpty()) {
+            return;
+        }
+
+        if (last.lessThan() == null) {
+            definitions.add("PARTITION " + last.name() + " VALUES LESS THAN (MAXVALUE)");
+            jdbcOperations.execute("ALTER TABLE reading_session REORGANIZE PARTITION " + last.name()
+                    + " INTO (" + String.join(", ", definitions) + ")");
+        } else {
+            jdbcOperations.execute("ALTER TABLE reading_session ADD PARTITION (" + String.join(", ", definitions) + ")");
+        }
+    }
+
+    /**
+     * Archives and drops the partitions that end before the first day of the month
+     * {@code retentionMonths} ago.
+     *
+     * @return number of archived sessions
+     */
+    public int archiveOlderThan(int retentionMonths) {
+        var cutoff = YearMonth.now().minusMonths(retentionMonths).atDay(1).atStartOfDay();
+        var partitions = partitions();
+
+        int archived = 0;
+        // the last partition always stays, it takes the rows below the next bound
+        for (int i = 0; i < partitions.size() - 1; i++) {
+            var partition = partitions.get(i);
+            if (partition.lessThan() == null || partition.lessThan().isAfter(cutoff)) {
+                break;
+            }
+            archived += archive(partition);
+        }
+        return archived;
+    }
+
+    /**
+     * Moves the partition's rows into the empty staging table with {@code EXCHANGE PARTITION}
+     * (a metadata change), archives them from there and drops the partition and the table.
+     * After the exchange an UPDATE or DELETE of an archived session finds no row, instead of
+     * changing one that was already read. Rows a stopped run left in the staging table are
+     * archived first.
+     */
+    int archive(Partition partition) {
+        createStaging();
+        int archived = archiveStaging();
+        jdbcOperations.execute("ALTER TABLE reading_session EXCHANGE PARTITION " + partition.name()
+                + " WITH TABLE " + STAGING);
+        archived += archiveStaging();
+        jdbcOperations.execute("ALTER TABLE reading_session DROP PARTITION " + partition.name());
+        jdbcOperations.execute("DROP TABLE " + STAGING);
+        return archived;
+    }
+
+    // same columns and indexes as reading_session, not partitioned, as EXCHANGE PARTITION needs
+    private void createStaging() {
+        Integer exists = jdbcOperations.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.TABLES WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?",
+                Integer.class, STAGING);
+        if (exists == null || exists == 0) {
+            jdbcOperations.execute("CREATE TABLE " + STAGING + " LIKE reading_session");
+            jdbcOperations.execute("ALTER TABLE " + STAGING + " REMOVE PARTITIONING");
+        }
+    }
+
+    // the staging table is read in id chunks straight into one archive writer per month, so
+    // only a chunk and a block per month are in memory; it is emptied only after every month
+    // file is on disk and was read back complete
+    private int archiveStaging() {
+        var select = "SELECT " + SessionRows.COLUMNS + " FROM " + STAGING + " WHERE id > ? ORDER BY id LIMIT ?";
+        var writers = new TreeMap<YearMonth, SessionArchive.MonthWriter>();
+        int archived = 0;
+        try {
+            long afterId = 0;
+            while (true) {
+                var rows = jdbcOperations.query(select, SessionRows.ROW_MAPPER, afterId, CHUNK_SIZE);
+                // a month already in the archive (split over partitions, or a run that stopped
+                // before the TRUNCATE) is merged by id
+                for (var row : rows) {
+                    writers.computeIfAbsent(YearMonth.from(row.createdAt()), archive::append).add(row);
+                }
+                archived += rows.size();
+                if (rows.size() < CHUNK_SIZE) {
+                    break;
+                }
+                afterId = rows.get(rows.size() - 1).id();
+            }
+
+            // nothing but this class writes the staging table, the count only guards the reads
+            Integer stored = jdbcOperations.queryForObject("SELECT COUNT(*) FROM " + STAGING, Integer.class);
+            if (stored == null || stored != archived) {
+                throw new IllegalStateException(STAGING + " has " + stored + " sessions, " + archived + " were archived");
+            }
+            for (var writer : writers.values()) {
+                writer.commit();
+            }
+        } finally {
+            for (var writer : writers.values()) {
+                writer.close();
+            }
+        }
+
+        jdbcOperations.execute("TRUNCATE TABLE " + STAGING);
+        return archived;
+    }
+}
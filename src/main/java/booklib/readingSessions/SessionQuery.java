@@ -0,0 +1,102 @@
+package booklib.readingSessions;
+
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Filter for {@link ReadingSessionDao#find(SessionQuery)}; unset (null) criteria match
+ * everything. Results are always newest first ({@code created_at DESC, id DESC}).
+ * <pre>
+ * new SessionQuery().setReaderId(1L).setFrom(monthStart).setLimit(100)
+ * </pre>
+ * Long results are read page by page with a keyset on {@code (created_at, id)}:
+ * {@link #nextPage} continues after the last session of the previous page, so every page
+ * is one index range, however deep it is.
+ */
+@Data
+@Accessors(chain = true)
+public class SessionQuery {
+
+    // как ORDER BY created_at DESC, id DESC (NULL в конце)
+    public static final Comparator<ReadingSession> NEWEST_FIRST = Comparator
+            .comparing(ReadingSession::getCreatedAt, Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder()))
+            .thenComparing(ReadingSession::getId)
+            .reversed();
+
+    private Long readerId;
+    private Long bookId;
+    private String genre;
+    // from <= created_at < to
+    private LocalDateTime from;
+    private LocalDateTime to;
+    // at most this many newest sessions (null = all)
+    private Integer limit;
+    // keyset: only sessions after this one in newest-first order, (created_at, id) < (afterCreatedAt, afterId)
+    private LocalDateTime afterCreatedAt;
+    private Long afterId;
+
+    // the same filter for the page after last (null = the first page)
+    public SessionQuery nextPage(ReadingSession last, int pageSize) {
+        var next = new SessionQuery()
+                .setReaderId(readerId)
+                .setBookId(bookId)
+                .setGenre(genre)
+                .setFrom(from)
+                .setTo(to)
+                .setAfterCreatedAt(afterCreatedAt)
+                .setAfterId(afterId)
+                .setLimit(pageSize);
+        if (last != null) {
+            next.setAfterCreatedAt(last.getCreatedAt()).setAfterId(last.getId());
+        }
+        return next;
+    }
+
+    // the same filter in memory, e.g. for rows that arrive through change events
+    public boolean matches(ReadingSession session) {
+        if (readerId != null && (session.getReader() == null || !readerId.equals(session.getReader().getId()))) {
+            return false;
+        }
+        if (bookId != null && (session.getBook() == null || !bookId.equals(session.getBook().getId()))) {
+            return false;
+        }
+        if (genre != null && (session.getBook() == null || !genre.equals(session.getBook().getGenre()))) {
+            return false;
+        }
+        var createdAt = session.getCreatedAt();
+        if (from != null && (createdAt == null || createdAt.isBefore(from))) {
+            return false;
+        }
+        if (afterId != null && NEWEST_FIRST.compare(session, cursor()) <= 0) {
+            return false;
+        }
+        return to == null || createdAt != null && createdAt.isBefore(to);
+    }
+
+    // value snapshot for cache keys (the query object itself is mutable)
+    public List<Object> toParams() {
+        return Arrays.asList(readerId, bookId, genre, from, to, limit, afterCreatedAt, afterId);
+    }
+
+    // the last session of the previous page, as far as the order is concerned
+    ReadingSession cursor() {
+        var cursor = new ReadingSession();
+        cursor.setCreatedAt(afterCreatedAt);
+        cursor.setId(afterId);
+        return cursor;
+    }
+
+    // at most limit items of a list that is already newest first
+    List<ReadingSession> truncate(List<ReadingSession> sessions) {
+        if (limit == null || sessions.size() <= limit) {
+            return sessions;
+        }
+        return new ArrayList<>(sessions.subList(0, Math.max(0, limit)));
+    }
+}
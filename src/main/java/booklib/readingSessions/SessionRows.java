@@ -0,0 +1,130 @@
+package booklib.readingSessions;
+
+import booklib.books.Book;
+import booklib.books.BookDao;
+import booklib.readers.Reader;
+import booklib.readers.ReaderDao;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+
+/**
+ * Sessions stored apart from {@code reader} and {@code book} (shards, the archive):
+ * the bare row and how it becomes a {@link ReadingSession} again.
+ */
+final class SessionRows {
+
+    static final String COLUMNS = "id, reader_id, book_id, pages_read, duration_minutes, created_at";
+
+    // reader and book as ids only
+    record Row(long id, long readerId, long bookId, int pagesRead, int durationMinutes, LocalDateTime createdAt) {
+    }
+
+    static final RowMapper<Row> ROW_MAPPER = (rs, rowNum) -> {
+        var ts = rs.getTimestamp("created_at");
+        return new Row(rs.getLong("id"), rs.getLong("reader_id"), rs.getLong("book_id"),
+                rs.getInt("pages_read"), rs.getInt("duration_minutes"),
+                ts != null ? ts.toLocalDateTime() : null);
+    };
+
+    // как ORDER BY created_at DESC, id DESC в MySQL (NULL в конце)
+    static final Comparator<Row> NEWEST_FIRST = Comparator
+            .comparing(Row::createdAt, Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder()))
+            .thenComparingLong(Row::id)
+            .reversed();
+
+    private SessionRows() {
+    }
+
+    static Row of(ReadingSession session) {
+        return new Row(session.getId(), session.getReader().getId(), session.getBook().getId(),
+                session.getPagesRead(), session.getDurationMinutes(), session.getCreatedAt());
+    }
+
+    // k-way merge of lists that are each sorted by order
+    static <T> List<T> merge(List<List<T>> sorted, Comparator<? super T> order) {
+        record Cursor<T>(List<T> items, int position) {
+            T head() {
+                return items.get(position);
+            }
+        }
+
+        var heap = new PriorityQueue<Cursor<T>>(Math.max(1, sorted.size()),
+                (a, b) -> order.compare(a.head(), b.head()));
+        int total = 0;
+        for (var items : sorted) {
+            if (!items.isEmpty()) {
+                heap.add(new Cursor<>(items, 0));
+            }
+            total += items.size();
+        }
+
+        var merged = new ArrayList<T>(total);
+        while (!heap.isEmpty()) {
+            var cursor = heap.poll();
+            merged.add(cursor.head());
+            if (cursor.position() + 1 < cursor.items().size()) {
+                heap.add(new Cursor<>(cursor.items(), cursor.position() + 1));
+            }
+        }
+        return merged;
+    }
+
+    static List<ReadingSession> toSessions(List<Row> rows, ReaderDao readerDao, BookDao bookDao) {
+        if (rows.isEmpty()) {
+            return new ArrayList<>();
+        }
+        // only the readers and books these rows refer to, one batched lookup each
+        var readerIds = new HashSet<Long>();
+        var bookIds = new HashSet<Long>();
+        for (var row : rows) {
+            readerIds.add(row.readerId());
+            bookIds.add(row.bookId());
+        }
+        Map<Long, Reader> readers = index(readerDao.findByIds(readerIds), Reader::getId);
+        Map<Long, Book> books = index(bookDao.findByIds(bookIds), Book::getId);
+
+        var sessions = new ArrayList<ReadingSession>(rows.size());
+        for (var row : rows) {
+            var session = new ReadingSession();
+            session.setId(row.id());
+            session.setPagesRead(row.pagesRead());
+            session.setDurationMinutes(row.durationMinutes());
+            session.setCreatedAt(row.createdAt());
+            // no foreign keys across databases: a missing reader/book still shows up by id
+            session.setReader(readers.computeIfAbsent(row.readerId(), id -> {
+                var reader = new Reader();
+                reader.setId(id);
+                return reader;
+            }));
+            session.setBook(books.computeIfAbsent(row.bookId(), id -> {
+                var book = new Book();
+                book.setId(id);
+                return book;
+            }));
+            sessions.add(session);
+        }
+        return sessions;
+    }
+
+    static Timestamp toTimestamp(LocalDateTime value) {
+        return value != null ? Timestamp.valueOf(value) : null;
+    }
+
+    private static <T> Map<Long, T> index(List<T> items, Function<T, Long> id) {
+        var map = new HashMap<Long, T>(items.size() * 2);
+        for (var item : items) {
+            map.put(id.apply(item), item);
+        }
+        return map;
+    }
+}
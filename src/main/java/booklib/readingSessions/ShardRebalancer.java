@@ -0,0 +1,131 @@
+package booklib.readingSessions;
+
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+
+/**
+ * Moves reading sessions to the shard that {@link ShardedReadingSessionDao#shardFor} picks
+ * for a new shard list, e.g. after appending a shard, or to split an unsharded
+ * {@code reading_session} table into shards for the first time.
+ * <p>
+ * Rows are copied in id order, {@value #BATCH_SIZE} at a time, and deleted from the source
+ * only after the copy; a run that was interrupted can simply be started again. Meant to
+ * run while no application writes sessions.
+ * <pre>
+ * java -DDB_SHARDS_FROM=jdbc:mysql://db1/bookLib \
+ *      -DDB_SHARDS=jdbc:mysql://db1/bookLib,jdbc:mysql://db2/bookLib booklib.readingSessions.ShardRebalancer
+ * </pre>
+ * Without {@code DB_SHARDS_FROM} the rows are taken from the main database ({@code DB_JDBC}).
+ */
+public class ShardRebalancer {
+
+    private static final int BATCH_SIZE = 1000;
+
+    public static void main(String[] args) {
+        var connections = new HashMap<String, JdbcOperations>();
+        var sources = open(System.getProperty("DB_SHARDS_FROM",
+                System.getProperty("DB_JDBC", "jdbc:mysql://localhost:3306/bookLib")), connections);
+        var targets = open(System.getProperty("DB_SHARDS", ""), connections);
+        if (targets.isEmpty()) {
+            throw new IllegalArgumentException("DB_SHARDS is not set");
+        }
+
+        long start = System.nanoTime();
+        long moved = rebalance(sources, targets);
+        System.out.printf("moved %d sessions in %.1f s%n", moved, (System.nanoTime() - start) / 1e9);
+    }
+
+    // the same url gives the same JdbcOperations, so a database that is source and target is recognized
+    private static List<JdbcOperations> open(String urls, Map<String, JdbcOperations> connections) {
+        var result = new ArrayList<JdbcOperations>();
+        for (var url : urls.split(",")) {
+            if (!url.isBlank()) {
+                result.add(connections.computeIfAbsent(url.trim(), u -> new JdbcTemplate(new DriverManagerDataSource(u,
+                        System.getProperty("DB_USER", "bookLib"), System.getProperty("DB_PASSWORD", "bookLib")))));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Moves every session found in sources to {@code targets.get(shardFor(reader_id, targets.size()))}.
+     * A source may also be a target (compared by identity). Sources are drained in parallel.
+     *
+     * @return number of moved sessions
+     */
+    public static long rebalance(List<JdbcOperations> sources, List<JdbcOperations> targets) {
+        for (var target : targets) {
+            ShardedReadingSessionDao.createTables(target);
+        }
+
+        var tasks = new ArrayList<Callable<Long>>();
+        for (var source : sources) {
+            tasks.add(() -> drain(source, targets));
+        }
+
+        long moved = 0;
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (var future : executor.invokeAll(tasks)) {
+                moved += future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while rebalancing", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Rebalancing failed", e.getCause());
+        }
+
+        // moved ids must never be handed out again by the id blocks on the first shard
+        ShardedReadingSessionDao.raiseNextId(targets);
+        return moved;
+    }
+
+    private static long drain(JdbcOperations source, List<JdbcOperations> targets) {
+        long moved = 0;
+        long afterId = 0;
+        while (true) {
+            var rows = source.query(
+                    "SELECT " + SessionRows.COLUMNS + " FROM reading_session WHERE id > ? ORDER BY id LIMIT ?",
+                    SessionRows.ROW_MAPPER, afterId, BATCH_SIZE);
+            if (rows.isEmpty()) {
+                return moved;
+            }
+            afterId = rows.get(rows.size() - 1).id();
+
+            var byTarget = new IdentityHashMap<JdbcOperations, List<SessionRows.Row>>();
+            for (var row : rows) {
+                var target = targets.get(ShardedReadingSessionDao.shardFor(row.readerId(), targets.size()));
+                if (target != source) {
+                    byTarget.computeIfAbsent(target, t -> new ArrayList<>()).add(row);
+                }
+            }
+
+            for (var entry : byTarget.entrySet()) {
+                var batch = entry.getValue();
+                var ids = new ArrayList<Object[]>(batch.size());
+                var values = new ArrayList<Object[]>(batch.size());
+                for (var row : batch) {
+                    ids.add(new Object[]{row.id()});
+                    values.add(new Object[]{row.id(), row.readerId(), row.bookId(), row.pagesRead(),
+                            row.durationMinutes(), SessionRows.toTimestamp(row.createdAt())});
+                }
+                // delete first: rows copied by an interrupted run are already there
+                entry.getKey().batchUpdate("DELETE FROM reading_session WHERE id = ?", ids);
+                entry.getKey().batchUpdate(
+                        "INSERT INTO reading_session (" + SessionRows.COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?)", values);
+                source.batchUpdate("DELETE FROM reading_session WHERE id = ?", ids);
+                moved += batch.size();
+            }
+        }
+    }
+}
@@ -0,0 +1,409 @@
+package booklib.readingSessions;
+
+import booklib.books.BookDao;
+import booklib.events.ChangeEvent;
+import booklib.events.ChangeEventBus;
+import booklib.exceptions.NotFoundException;
+import booklib.readers.ReaderDao;
+import booklib.readingSessions.SessionRows.Row;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcOperations;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * {@code reading_session} split by reader across several databases (shards).
+ * <p>
+ * A session lives on shard {@link #shardFor(long, int) shardFor(reader_id, N)}, so
+ * writes and per-reader reads touch one database. Global listings query all shards in
+ * parallel; {@link #findAllSortedByDate()} k-way merges the per-shard sorted results.
+ * Lookups by session id alone (update, delete) ask every shard. An update that moves a
+ * session to another reader's shard copies it first and deletes the old row after, and
+ * every update removes copies of the session from the other shards, so an update that
+ * failed halfway is completed by simply repeating it.
+ * <p>
+ * Shards only hold {@code reading_session} (see {@link #createTables()}); readers and
+ * books stay in the main database and are attached from the given DAOs. Session ids are
+ * handed out in blocks from {@code reading_session_id_block} on the first shard, so they
+ * are unique across shards and survive moving rows with {@link ShardRebalancer}.
+ */
+public class ShardedReadingSessionDao implements ReadingSessionDao {
+
+    private static final int ID_BLOCK_SIZE = 100;
+    // book ids of a genre per statement, far below MySQL's 65,535 placeholders
+    static final int BOOK_IDS_PER_QUERY = 1000;
+
+    private final List<JdbcOperations> shards;
+    private final ReaderDao readerDao;
+    private final BookDao bookDao;
+    private final ChangeEventBus eventBus;
+    private final ExecutorService fanOut = Executors.newVirtualThreadPerTaskExecutor();
+
+    private long nextId = 0;
+    private long idBlockEnd = 0;
+
+    public ShardedReadingSessionDao(List<JdbcOperations> shards, ReaderDao readerDao, BookDao bookDao,
+                                    ChangeEventBus eventBus) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        this.shards = List.copyOf(shards);
+        this.readerDao = readerDao;
+        this.bookDao = bookDao;
+        this.eventBus = eventBus;
+    }
+
+    /**
+     * Jump consistent hash (Lamping, Veach 2014): when a shard is appended, only ~1/N of
+     * the readers move to it and none move between the old shards.
+     */
+    public static int shardFor(long readerId, int shardCount) {
+        long key = readerId;
+        long b = -1;
+        long j = 0;
+        while (j < shardCount) {
+            b = j;
+            key = key * 2862933555777941757L + 1;
+            j = (long) ((b + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+        }
+        return (int) b;
+    }
+
+    // schema of a shard; MySQL and H2 (MODE=MySQL)
+    public void createTables() {
+        createTables(shards);
+    }
+
+    public static void createTables(List<JdbcOperations> shards) {
+        for (var shard : shards) {
+            createTables(shard);
+        }
+        raiseNextId(shards);
+    }
+
+    static void createTables(JdbcOperations shard) {
+        shard.execute("CREATE TABLE IF NOT EXISTS reading_session (" +
+                "id BIGINT NOT NULL, " +
+                "reader_id BIGINT NOT NULL, " +
+                "book_id BIGINT NOT NULL, " +
+                "pages_read INT NOT NULL, " +
+                "duration_minutes INT NOT NULL, " +
+                "created_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP, " +
+                "PRIMARY KEY (id), " +
+                "INDEX reading_session_reader_created_idx (reader_id, created_at), " +
+                "INDEX reading_session_book_created_idx (book_id, created_at), " +
+                "INDEX reading_session_created_at_idx (created_at))");
+        shard.execute("CREATE TABLE IF NOT EXISTS reading_session_id_block (next_id BIGINT NOT NULL)");
+    }
+
+    /**
+     * Moves {@code next_id} of the id blocks above every id on the shards, after rows were
+     * written with their own ids (rebalancing, import). Blocks already handed out to a
+     * running DAO are not affected, so do this while no DAO creates sessions.
+     */
+    public static void raiseNextId(List<JdbcOperations> shards) {
+        var sequence = shards.get(0);
+        long next = maxId(shards) + 1;
+        if (sequence.update("UPDATE reading_session_id_block SET next_id = GREATEST(next_id, ?)", next) == 0) {
+            sequence.update("INSERT INTO reading_session_id_block (next_id) VALUES (?)", next);
+        }
+    }
+
+    static long maxId(List<JdbcOperations> databases) {
+        long max = 0;
+        for (var database : databases) {
+            Long id = database.queryForObject("SELECT MAX(id) FROM reading_session", Long.class);
+            if (id != null) {
+                max = Math.max(max, id);
+            }
+        }
+        return max;
+    }
+
+    @Override
+    public List<ReadingSession> findAll() {
+        var perShard = queryAll("SELECT " + SessionRows.COLUMNS + " FROM reading_session");
+        var rows = new ArrayList<Row>();
+        perShard.forEach(rows::addAll);
+        return toSessions(rows);
+    }
+
+    @Override
+    public List<ReadingSession> findAllSortedByDate() {
+        var perShard = queryAll("SELECT " + SessionRows.COLUMNS + " FROM reading_session ORDER BY created_at DESC, id DESC");
+        return toSessions(SessionRows.merge(perShard, SessionRows.NEWEST_FIRST));
+    }
+
+    @Override
+    public List<ReadingSession> findCreatedBetween(LocalDateTime from, LocalDateTime to) {
+        var perShard = queryAll("SELECT " + SessionRows.COLUMNS + " FROM reading_session WHERE created_at >= ? AND created_at < ?",
+                from, to);
+        var rows = new ArrayList<Row>();
+        perShard.forEach(rows::addAll);
+        return toSessions(rows);
+    }
+
+    // with a reader only its shard is asked, otherwise all shards and the sorted results are merged
+    @Override
+    public List<ReadingSession> find(SessionQuery query) {
+        var conditions = new ArrayList<String>();
+        var args = new ArrayList<Object>();
+        if (query.getReaderId() != null) {
+            conditions.add("reader_id = ?");
+            args.add(query.getReaderId());
+        }
+        if (query.getBookId() != null) {
+            conditions.add("book_id = ?");
+            args.add(query.getBookId());
+        }
+        if (query.getFrom() != null) {
+            conditions.add("created_at >= ?");
+            args.add(query.getFrom());
+        }
+        if (query.getTo() != null) {
+            conditions.add("created_at < ?");
+            args.add(query.getTo());
+        }
+        if (query.getAfterId() != null) {
+            conditions.add("created_at <= ? AND (created_at < ? OR id < ?)");
+            args.add(query.getAfterCreatedAt());
+            args.add(query.getAfterCreatedAt());
+            args.add(query.getAfterId());
+        }
+
+        // genres are in the main database: the genre becomes its book ids, so every shard
+        // filters and limits on its own (book_id IN uses reading_session_book_created_idx);
+        // at most BOOK_IDS_PER_QUERY ids per statement, the batches are merged like the shards
+        List<List<Long>> bookIdBatches = Collections.singletonList(null);
+        if (query.getGenre() != null) {
+            var bookIds = bookDao.findIdsByGenre(query.getGenre());
+            if (bookIds.isEmpty()) {
+                return new ArrayList<>();
+            }
+            bookIdBatches = new ArrayList<>();
+            for (int i = 0; i < bookIds.size(); i += BOOK_IDS_PER_QUERY) {
+                bookIdBatches.add(bookIds.subList(i, Math.min(i + BOOK_IDS_PER_QUERY, bookIds.size())));
+            }
+        }
+
+        var targets = query.getReaderId() != null ? List.of(shardOf(query.getReaderId())) : shards;
+        var tasks = new ArrayList<Callable<List<Row>>>();
+        for (var bookIds : bookIdBatches) {
+            var batchConditions = new ArrayList<>(conditions);
+            var batchArgs = new ArrayList<>(args);
+            if (bookIds != null) {
+                batchConditions.add("book_id IN (" + String.join(", ", Collections.nCopies(bookIds.size(), "?")) + ")");
+                batchArgs.addAll(bookIds);
+            }
+            var sql = new StringBuilder("SELECT " + SessionRows.COLUMNS + " FROM reading_session");
+            if (!batchConditions.isEmpty()) {
+                sql.append(" WHERE ").append(String.join(" AND ", batchConditions));
+            }
+            sql.append(" ORDER BY created_at DESC, id DESC");
+            if (query.getLimit() != null) {
+                sql.append(" LIMIT ?");
+                batchArgs.add(query.getLimit());
+            }
+            for (var shard : targets) {
+                tasks.add(() -> shard.query(sql.toString(), SessionRows.ROW_MAPPER, batchArgs.toArray()));
+            }
+        }
+
+        // each statement returned at most limit rows; only the newest limit of them get readers and books
+        var rows = SessionRows.merge(invokeAll(tasks), SessionRows.NEWEST_FIRST);
+        if (query.getLimit() != null && rows.size() > query.getLimit()) {
+            rows = rows.subList(0, query.getLimit());
+        }
+        return toSessions(rows);
+    }
+
+    public List<ReadingSession> findByReaderId(Long readerId) {
+        var rows = shardOf(readerId).query("SELECT " + SessionRows.COLUMNS + " FROM reading_session WHERE reader_id = ?",
+                SessionRows.ROW_MAPPER, readerId);
+        return toSessions(rows);
+    }
+
+    public ReadingSession findById(Long id) {
+        var row = findRow(id);
+        if (row == null) {
+            throw new NotFoundException("Reading session with id " + id + " not found");
+        }
+        return toSessions(List.of(row)).get(0);
+    }
+
+    @Override
+    public ReadingSession create(ReadingSession session) {
+        if (session == null) {
+            throw new IllegalArgumentException("ReadingSession is null");
+        }
+        if (session.getId() != null) {
+            throw new IllegalArgumentException("ReadingSession id must be null for create");
+        }
+
+        long id = allocateId();
+        var shard = shardOf(session.getReader().getId());
+        shard.update("INSERT INTO reading_session (id, reader_id, book_id, pages_read, duration_minutes) VALUES (?, ?, ?, ?, ?)",
+                id,
+                session.getReader().getId(),
+                session.getBook().getId(),
+                session.getPagesRead(),
+                session.getDurationMinutes());
+
+        var created = toSessions(List.of(findRow(shard, id))).get(0);
+        eventBus.publish(ChangeEvent.created(ReadingSession.class, id, created));
+        return created;
+    }
+
+    @Override
+    public ReadingSession update(ReadingSession session) {
+        if (session == null) {
+            throw new IllegalArgumentException("ReadingSession is null");
+        }
+        if (session.getId() == null) {
+            throw new IllegalArgumentException("ReadingSession id is null for update");
+        }
+
+        var target = shardOf(session.getReader().getId());
+        int updated = target.update(
+                "UPDATE reading_session SET reader_id = ?, book_id = ?, pages_read = ?, duration_minutes = ? WHERE id = ?",
+                session.getReader().getId(),
+                session.getBook().getId(),
+                session.getPagesRead(),
+                session.getDurationMinutes(),
+                session.getId()
+        );
+        if (updated == 0) {
+            // the session moved to a reader on another shard (or does not exist at all):
+            // copy it to the target first, so a failure in between never loses it
+            var existing = findRow(session.getId());
+            if (existing == null) {
+                throw new NotFoundException("Reading session with id " + session.getId() + " not found");
+            }
+            target.update("INSERT INTO reading_session (" + SessionRows.COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?)",
+                    session.getId(),
+                    session.getReader().getId(),
+                    session.getBook().getId(),
+                    session.getPagesRead(),
+                    session.getDurationMinutes(),
+                    SessionRows.toTimestamp(existing.createdAt()));
+        }
+        // then drop every other copy; this also cleans up after a move that failed halfway,
+        // so repeating the update always ends with the one row on the target
+        if (shards.size() > 1) {
+            fanOut(shard -> shard == target ? 0 : shard.update("DELETE FROM reading_session WHERE id = ?", session.getId()));
+        }
+
+        var result = toSessions(List.of(findRow(target, session.getId()))).get(0);
+        eventBus.publish(ChangeEvent.updated(ReadingSession.class, result.getId(), result));
+        return result;
+    }
+
+    @Override
+    public void delete(Long id) {
+        int deleted = 0;
+        for (var count : fanOut(shard -> shard.update("DELETE FROM reading_session WHERE id = ?", id))) {
+            deleted += count;
+        }
+        if (deleted > 0) {
+            eventBus.publish(ChangeEvent.deleted(ReadingSession.class, id));
+        }
+    }
+
+    private JdbcOperations shardOf(Long readerId) {
+        return shards.get(shardFor(readerId, shards.size()));
+    }
+
+    private Row findRow(Long id) {
+        for (var rows : queryAll("SELECT " + SessionRows.COLUMNS + " FROM reading_session WHERE id = ?", id)) {
+            if (!rows.isEmpty()) {
+                return rows.get(0);
+            }
+        }
+        return null;
+    }
+
+    private static Row findRow(JdbcOperations shard, long id) {
+        var rows = shard.query("SELECT " + SessionRows.COLUMNS + " FROM reading_session WHERE id = ?", SessionRows.ROW_MAPPER, id);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    private List<List<Row>> queryAll(String sql, Object... args) {
+        return fanOut(shard -> shard.query(sql, SessionRows.ROW_MAPPER, args));
+    }
+
+    // runs the call on every shard at once, results in shard order
+    private <T> List<T> fanOut(Function<JdbcOperations, T> call) {
+        var tasks = new ArrayList<Callable<T>>();
+        for (var shard : shards) {
+            tasks.add(() -> call.apply(shard));
+        }
+        return invokeAll(tasks);
+    }
+
+    private <T> List<T> invokeAll(List<Callable<T>> tasks) {
+        try {
+            var results = new ArrayList<T>();
+            for (var future : fanOut.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while querying shards", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    private List<ReadingSession> toSessions(List<Row> rows) {
+        return SessionRows.toSessions(rows, readerDao, bookDao);
+    }
+
+    private synchronized long allocateId() {
+        if (nextId == idBlockEnd) {
+            nextId = reserveIds(shards.get(0), ID_BLOCK_SIZE);
+            idBlockEnd = nextId + ID_BLOCK_SIZE;
+        }
+        return nextId++;
+    }
+
+    // returns the first of count reserved ids; the row lock keeps other app instances out
+    static long reserveIds(JdbcOperations sequence, int count) {
+        Long first = sequence.execute((ConnectionCallback<Long>) connection -> {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (var select = connection.prepareStatement("SELECT next_id FROM reading_session_id_block FOR UPDATE");
+                 var update = connection.prepareStatement("UPDATE reading_session_id_block SET next_id = next_id + ?")) {
+                long next;
+                try (var rs = select.executeQuery()) {
+                    if (!rs.next()) {
+                        throw new IllegalStateException("reading_session_id_block is empty, call createTables() first");
+                    }
+                    next = rs.getLong(1);
+                }
+                update.setInt(1, count);
+                update.executeUpdate();
+                connection.commit();
+                return next;
+            } catch (RuntimeException | SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        });
+        return first;
+    }
+}
@@ -0,0 +1,149 @@
+package booklib.readingSessions;
+
+import booklib.books.BookDao;
+import booklib.readers.ReaderDao;
+import booklib.readingSessions.SessionRows.Row;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Sessions from the database ("hot") plus the months moved to a {@link SessionArchive}
+ * ("cold"), as if they were one table.
+ * <p>
+ * Date range queries only open the archive files of the months they overlap, so the
+ * usual queries over recent days never touch the archive. Writes go to the database;
+ * archived sessions are read-only (update and delete do not find them).
+ */
+public class TieredReadingSessionDao implements ReadingSessionDao {
+
+    private final ReadingSessionDao hot;
+    private final SessionArchive archive;
+    private final ReaderDao readerDao;
+    private final BookDao bookDao;
+
+    public TieredReadingSessionDao(ReadingSessionDao hot, SessionArchive archive, ReaderDao readerDao, BookDao bookDao) {
+        this.hot = hot;
+        this.archive = archive;
+        this.readerDao = readerDao;
+        this.bookDao = bookDao;
+    }
+
+    @Override
+    public List<ReadingSession> findAll() {
+        var sessions = new ArrayList<>(hot.findAll());
+        sessions.addAll(SessionRows.toSessions(archive.findAll(), readerDao, bookDao));
+        return sessions;
+    }
+
+    @Override
+    public List<ReadingSession> findAllSortedByDate() {
+        var cold = SessionRows.toSessions(archive.findAll(), readerDao, bookDao);
+        cold.sort(SessionQuery.NEWEST_FIRST);
+        // archived months are usually all older, but a late row may sit in the database
+        return SessionRows.merge(List.of(hot.findAllSortedByDate(), cold), SessionQuery.NEWEST_FIRST);
+    }
+
+    @Override
+    public List<ReadingSession> findCreatedBetween(LocalDateTime from, LocalDateTime to) {
+        var sessions = new ArrayList<>(hot.findCreatedBetween(from, to));
+        var cold = archive.findCreatedBetween(from, to);
+        if (!cold.isEmpty()) {
+            sessions.addAll(SessionRows.toSessions(cold, readerDao, bookDao));
+        }
+        return sessions;
+    }
+
+    /**
+     * The archive is read newest month first, starting at the month of {@code to} or of the
+     * page cursor. Rows are filtered while a month is decoded and only the newest
+     * {@code limit} of them are kept; once that many rows newer than the next month are
+     * found, the older months are not opened.
+     */
+    @Override
+    public List<ReadingSession> find(SessionQuery query) {
+        var sessions = hot.find(query);
+        var months = archive.months();
+        if (months.isEmpty()) {
+            return sessions;
+        }
+
+        Set<Long> genreBookIds = query.getGenre() != null ? new HashSet<>(bookDao.findIdsByGenre(query.getGenre())) : null;
+        if (genreBookIds != null && genreBookIds.isEmpty()) {
+            return sessions;
+        }
+        int limit = query.getLimit() != null ? query.getLimit() : Integer.MAX_VALUE;
+        // the oldest kept row on top, so it is the one dropped when a newer one comes
+        var newest = new PriorityQueue<Row>(SessionRows.NEWEST_FIRST.reversed());
+        for (int i = months.size() - 1; i >= 0; i--) {
+            var month = months.get(i);
+            var start = month.atDay(1).atStartOfDay();
+            var end = month.plusMonths(1).atDay(1).atStartOfDay();
+            if (query.getTo() != null && !start.isBefore(query.getTo())
+                    || query.getAfterId() != null && start.isAfter(query.getAfterCreatedAt())) {
+                continue;
+            }
+            if (query.getFrom() != null && !end.isAfter(query.getFrom())) {
+                break;
+            }
+            // every row of this and the older months is older than all of these
+            long newer = newest.size() + sessions.stream()
+                    .filter(session -> session.getCreatedAt() != null && !session.getCreatedAt().isBefore(end))
+                    .count();
+            if (newer >= limit) {
+                break;
+            }
+            archive.forEach(month, row -> {
+                if (matches(row, query, genreBookIds)) {
+                    newest.add(row);
+                    if (newest.size() > limit) {
+                        newest.poll();
+                    }
+                }
+            });
+        }
+        if (newest.isEmpty()) {
+            return sessions;
+        }
+
+        var rows = new ArrayList<>(newest);
+        rows.sort(SessionRows.NEWEST_FIRST);
+        var cold = SessionRows.toSessions(rows, readerDao, bookDao);
+        return query.truncate(SessionRows.merge(List.of(sessions, cold), SessionQuery.NEWEST_FIRST));
+    }
+
+    // SessionQuery.matches on a row, with the genre as its book ids
+    private static boolean matches(Row row, SessionQuery query, Set<Long> genreBookIds) {
+        if (query.getReaderId() != null && row.readerId() != query.getReaderId()
+                || query.getBookId() != null && row.bookId() != query.getBookId()
+                || genreBookIds != null && !genreBookIds.contains(row.bookId())) {
+            return false;
+        }
+        var createdAt = row.createdAt();
+        if (query.getFrom() != null && createdAt.isBefore(query.getFrom())
+                || query.getTo() != null && !createdAt.isBefore(query.getTo())) {
+            return false;
+        }
+        return query.getAfterId() == null || createdAt.isBefore(query.getAfterCreatedAt())
+                || createdAt.isEqual(query.getAfterCreatedAt()) && row.id() < query.getAfterId();
+    }
+
+    @Override
+    public ReadingSession create(ReadingSession session) {
+        return hot.create(session);
+    }
+
+    @Override
+    public ReadingSession update(ReadingSession session) {
+        return hot.update(session);
+    }
+
+    @Override
+    public void delete(Long id) {
+        hot.delete(id);
+    }
+}
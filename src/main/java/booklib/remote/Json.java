@@ -0,0 +1,28 @@
+package booklib.remote;
+
+import booklib.readers.Reader;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+// JSON mapping shared by BookLibServer and the remote DAOs
+public final class Json {
+
+    // password hashes never leave the server
+    @JsonIgnoreProperties({"passwordHash"})
+    private abstract static class ReaderMixin {
+    }
+
+    public static final ObjectMapper MAPPER = JsonMapper.builder()
+            .addModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .addMixIn(Reader.class, ReaderMixin.class)
+            .build();
+
+    private Json() {
+    }
+}
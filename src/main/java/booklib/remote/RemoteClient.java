@@ -0,0 +1,187 @@
+package booklib.remote;
+
+import booklib.exceptions.NotFoundException;
+import booklib.server.BookLibServer;
+import com.fasterxml.jackson.core.type.TypeReference;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.BiFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * HTTP/JSON access to a BookLib server for the remote DAOs.
+ * <p>
+ * Status codes map back to the exceptions the local DAOs throw: 404 becomes
+ * {@link NotFoundException}, 400 {@link IllegalArgumentException}, 401 (no or wrong
+ * {@code BOOKLIB_TOKEN}) {@link IllegalStateException}.
+ * Responses are parsed straight from the connection, without a byte[] copy of the body.
+ * A request fails if the server cannot be reached within the connect timeout or has not
+ * started its response within the request timeout; uploads only have the connect timeout,
+ * since the server answers once the whole file is loaded.
+ */
+public class RemoteClient {
+
+    private static final int IDS_PER_REQUEST = 200;
+
+    private final HttpClient http;
+    // X-BookLib-Client: the server keeps reads after a write on the primary per client
+    private final String clientId = UUID.randomUUID().toString();
+    private final String baseUrl;
+    // sent with every request; null = read-only client
+    private final String token;
+    private final Duration requestTimeout;
+
+    public RemoteClient(String baseUrl, String token) {
+        this(baseUrl, token, Duration.ofSeconds(5), Duration.ofSeconds(30));
+    }
+
+    public RemoteClient(String baseUrl, String token, Duration connectTimeout, Duration requestTimeout) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.token = token == null || token.isBlank() ? null : token;
+        this.http = HttpClient.newBuilder().connectTimeout(connectTimeout).build();
+        this.requestTimeout = requestTimeout;
+    }
+
+    // null for 404
+    public <T> T get(String path, TypeReference<T> type) {
+        try {
+            return send("GET", path, null, type);
+        } catch (NotFoundException e) {
+            return null;
+        }
+    }
+
+    // the server streams the whole list as one array (keyset pages on its side)
+    public <T> List<T> getAll(String path, TypeReference<List<T>> type) {
+        return send("GET", path, null, type);
+    }
+
+    public <T> T send(String method, String path, Object body, TypeReference<T> type) {
+        try {
+            var publisher = body == null
+                    ? HttpRequest.BodyPublishers.noBody()
+                    : HttpRequest.BodyPublishers.ofByteArray(Json.MAPPER.writeValueAsBytes(body));
+            return execute(request(path)
+                    .timeout(requestTimeout)
+                    .header("Content-Type", "application/json")
+                    .method(method, publisher)
+                    .build(), type);
+        } catch (IOException e) {
+            throw new RuntimeException("Error calling " + method + " " + path, e);
+        }
+    }
+
+    public <T> T upload(String path, File file, TypeReference<T> type) {
+        try {
+            return execute(request(path)
+                    .header("Content-Type", "text/csv")
+                    .POST(HttpRequest.BodyPublishers.ofFile(file.toPath()))
+                    .build(), type);
+        } catch (FileNotFoundException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * A keyset page of any size: the server caps {@code limit} at {@link BookLibServer#MAX_LIMIT},
+     * so a larger one is fetched as several requests.
+     */
+    public static <T> List<T> page(Long afterId, int limit, ToLongFunction<T> id,
+                                   BiFunction<Long, Integer, List<T>> fetch) {
+        var result = new ArrayList<T>(Math.min(limit, BookLibServer.MAX_LIMIT));
+        while (true) {
+            int size = Math.min(limit - result.size(), BookLibServer.MAX_LIMIT);
+            var page = fetch.apply(afterId, size);
+            result.addAll(page);
+            if (page.size() < size || result.size() >= limit) {
+                return result;
+            }
+            afterId = id.applyAsLong(page.get(page.size() - 1));
+        }
+    }
+
+    // ids as comma separated lists for ?ids=, short enough for a request line
+    public static List<String> batches(Collection<Long> ids) {
+        var batches = new ArrayList<String>();
+        var batch = new StringBuilder();
+        int count = 0;
+        for (var id : ids) {
+            if (count == IDS_PER_REQUEST) {
+                batches.add(batch.toString());
+                batch.setLength(0);
+                count = 0;
+            }
+            if (count > 0) {
+                batch.append(',');
+            }
+            batch.append(id);
+            count++;
+        }
+        if (count > 0) {
+            batches.add(batch.toString());
+        }
+        return batches;
+    }
+
+    public static String encode(Object value) {
+        return URLEncoder.encode(String.valueOf(value), StandardCharsets.UTF_8);
+    }
+
+    private HttpRequest.Builder request(String path) {
+        var builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header(BookLibServer.CLIENT_HEADER, clientId);
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder;
+    }
+
+    private <T> T execute(HttpRequest request, TypeReference<T> type) {
+        HttpResponse<InputStream> response;
+        try {
+            response = http.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        } catch (IOException e) {
+            throw new RuntimeException("Error calling " + request.method() + " " + request.uri(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted calling " + request.uri(), e);
+        }
+
+        try (var body = response.body()) {
+            var status = response.statusCode();
+            if (status >= 300) {
+                var message = new String(body.readAllBytes(), StandardCharsets.UTF_8);
+                if (status == 404) {
+                    throw new NotFoundException(message);
+                }
+                if (status == 400) {
+                    throw new IllegalArgumentException(message);
+                }
+                if (status == 401) {
+                    throw new IllegalStateException(message + " - set BOOKLIB_TOKEN to the token of the server");
+                }
+                throw new RuntimeException("Server error " + status + ": " + message);
+            }
+            if (type == null || response.headers().firstValueAsLong("Content-Length").orElse(-1) == 0) {
+                return null;
+            }
+            return Json.MAPPER.readValue(body, type);
+        } catch (IOException e) {
+            throw new RuntimeException("Invalid response from " + request.uri(), e);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package booklib.routing;
+
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.jdbc.core.JdbcOperations;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link JdbcOperations} that sends {@code query*} calls to a replica and everything else
+ * to the primary, so the DAOs do not need to know about routing.
+ * <p>
+ * After a write the reads of the same caller go to the primary as well, for
+ * {@code readYourWritesMillis} but at least for {@link ReplicaSet#maxStalenessMillis()}, so
+ * a list reloaded after saving already contains the change. A shorter window would let a
+ * lagging replica answer. The caller is the thread's {@link #as(String) caller id}: the
+ * server sets one per client, so one client's writes do not move every other client's
+ * reads to the primary; everything else is the one local caller. Other callers may still
+ * read the replica right after a write, which is why the {@code QueryCache} does not keep
+ * results of tables written within the staleness window.
+ * <p>
+ * A read that fails to reach a replica marks it down and is retried on the next one,
+ * then on the primary.
+ */
+public class ReadWriteRouter implements InvocationHandler {
+
+    private static final String LOCAL = "";
+    // beyond this many callers the expired windows are dropped on the next write
+    private static final int MAX_CALLERS = 10_000;
+    private static final ThreadLocal<String> CALLER = new ThreadLocal<>();
+
+    private final JdbcOperations primary;
+    private final ReplicaSet replicas;
+    private final long readYourWritesMillis;
+
+    // caller -> time of its last write
+    private final Map<String, Long> lastWriteAt = new ConcurrentHashMap<>();
+
+    private ReadWriteRouter(JdbcOperations primary, ReplicaSet replicas, long readYourWritesMillis) {
+        this.primary = primary;
+        this.replicas = replicas;
+        this.readYourWritesMillis = readYourWritesMillis;
+    }
+
+    public static JdbcOperations create(JdbcOperations primary, ReplicaSet replicas, long readYourWritesMillis) {
+        return (JdbcOperations) Proxy.newProxyInstance(
+                JdbcOperations.class.getClassLoader(),
+                new Class<?>[]{JdbcOperations.class},
+                new ReadWriteRouter(primary, replicas, readYourWritesMillis));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (method.getDeclaringClass() == Object.class) {
+            return method.invoke(this, args);
+        }
+
+        var caller = caller();
+        long window = Math.max(readYourWritesMillis, replicas.maxStalenessMillis());
+        if (!method.getName().startsWith("query")) {
+            // marked before and after, so the window also covers a write that takes long
+            wrote(caller, window);
+            try {
+                return call(primary, method, args);
+            } finally {
+                wrote(caller, window);
+            }
+        }
+
+        var lastWrite = lastWriteAt.get(caller);
+        if (lastWrite == null || System.currentTimeMillis() - lastWrite >= window) {
+            for (var replica : replicas.candidates()) {
+                try {
+                    return call(replica.getJdbcOperations(), method, args);
+                } catch (DataAccessResourceFailureException | TransientDataAccessResourceException |
+                         RecoverableDataAccessException e) {
+                    replicas.markDown(replica);
+                }
+            }
+        }
+        return call(primary, method, args);
+    }
+
+    /**
+     * Makes the current thread act for {@code caller} until the returned scope is closed:
+     * <pre>
+     * try (var ignored = ReadWriteRouter.as(clientId)) { ... }
+     * </pre>
+     */
+    public static Scope as(String caller) {
+        var previous = CALLER.get();
+        CALLER.set(caller);
+        return () -> {
+            if (previous != null) {
+                CALLER.set(previous);
+            } else {
+                CALLER.remove();
+            }
+        };
+    }
+
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private static String caller() {
+        var caller = CALLER.get();
+        return caller != null ? caller : LOCAL;
+    }
+
+    private void wrote(String caller, long window) {
+        long now = System.currentTimeMillis();
+        lastWriteAt.put(caller, now);
+        if (lastWriteAt.size() > MAX_CALLERS) {
+            lastWriteAt.values().removeIf(at -> now - at >= window);
+        }
+    }
+
+    private static Object call(JdbcOperations target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
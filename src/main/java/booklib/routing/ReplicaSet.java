@@ -0,0 +1,149 @@
+package booklib.routing;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcOperations;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Read replicas with their health state.
+ * <p>
+ * A replica is skipped while it is marked down (after a connection failure, for
+ * {@code retryAfterMillis}) or while its reported lag exceeds {@code maxLagSeconds}.
+ * The health check pings every replica and reads {@code Seconds_Behind_Source}; a server
+ * that is not configured as a replica (e.g. a local stand-in) reports no lag.
+ */
+public class ReplicaSet {
+
+    public static class Replica {
+        private final String name;
+        private final JdbcOperations jdbcOperations;
+        private volatile long downUntil = 0;
+        private volatile long lagSeconds = 0;
+
+        public Replica(String name, JdbcOperations jdbcOperations) {
+            this.name = name;
+            this.jdbcOperations = jdbcOperations;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public JdbcOperations getJdbcOperations() {
+            return jdbcOperations;
+        }
+
+        public boolean isDown() {
+            return System.currentTimeMillis() < downUntil;
+        }
+
+        public long getLagSeconds() {
+            return lagSeconds;
+        }
+
+        @Override
+        public String toString() {
+            return name + (isDown() ? " [down]" : " [lag " + lagSeconds + "s]");
+        }
+    }
+
+    private final List<Replica> replicas;
+    private final long maxLagSeconds;
+    private final long retryAfterMillis;
+    private final AtomicInteger next = new AtomicInteger();
+
+    private ScheduledExecutorService healthChecker;
+    private volatile long checkIntervalMillis = 0;
+
+    public ReplicaSet(List<Replica> replicas, long maxLagSeconds, long retryAfterMillis) {
+        this.replicas = List.copyOf(replicas);
+        this.maxLagSeconds = maxLagSeconds;
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    // usable replicas, starting with the next one in round-robin order
+    public List<Replica> candidates() {
+        var result = new ArrayList<Replica>(replicas.size());
+        int start = Math.floorMod(next.getAndIncrement(), Math.max(1, replicas.size()));
+        for (int i = 0; i < replicas.size(); i++) {
+            var replica = replicas.get((start + i) % replicas.size());
+            if (!replica.isDown() && replica.lagSeconds <= maxLagSeconds) {
+                result.add(replica);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * How far a replica returned by {@link #candidates()} can be behind the primary: the
+     * allowed lag (reported in whole seconds, so up to a second more) plus whatever it fell
+     * behind since the last health check.
+     */
+    public long maxStalenessMillis() {
+        return (maxLagSeconds + 1) * 1000 + checkIntervalMillis;
+    }
+
+    public void markDown(Replica replica) {
+        replica.downUntil = System.currentTimeMillis() + retryAfterMillis;
+    }
+
+    public void checkHealth() {
+        for (var replica : replicas) {
+            try {
+                replica.jdbcOperations.queryForObject("SELECT 1", Integer.class);
+            } catch (DataAccessException e) {
+                markDown(replica);
+                continue;
+            }
+            replica.downUntil = 0;
+            replica.lagSeconds = readLag(replica);
+        }
+    }
+
+    public synchronized void startHealthChecks(long intervalMillis) {
+        if (healthChecker != null) {
+            return;
+        }
+        checkIntervalMillis = intervalMillis;
+        healthChecker = Executors.newSingleThreadScheduledExecutor(r -> {
+            var thread = new Thread(r, "replica-health-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        healthChecker.scheduleWithFixedDelay(this::checkHealth, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stopHealthChecks() {
+        if (healthChecker != null) {
+            healthChecker.shutdownNow();
+            healthChecker = null;
+        }
+    }
+
+    private static long readLag(Replica replica) {
+        try {
+            var lag = replica.jdbcOperations.query("SHOW REPLICA STATUS", rs -> {
+                if (!rs.next()) {
+                    return 0L; // not a replica
+                }
+                long seconds = rs.getLong("Seconds_Behind_Source");
+                // NULL = replication is not running, so the data can be arbitrarily old
+                return rs.wasNull() ? Long.MAX_VALUE : seconds;
+            });
+            return lag != null ? lag : 0;
+        } catch (DataAccessException e) {
+            // e.g. missing REPLICATION CLIENT privilege: liveness is all we know
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,431 @@
+package booklib.server;
+
+import booklib.Factory;
+import booklib.books.Book;
+import booklib.books.BookDao;
+import booklib.exceptions.NotFoundException;
+import booklib.readers.Reader;
+import booklib.readers.ReaderDao;
+import booklib.readingSessions.ReadingSession;
+import booklib.readingSessions.ReadingSessionDao;
+import booklib.readingSessions.SessionQuery;
+import booklib.remote.Json;
+import booklib.routing.ReadWriteRouter;
+import com.fasterxml.jackson.core.JacksonException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.function.BiFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * Headless mode: serves the DAOs of {@link Factory} over HTTP/JSON, so all clients share
+ * one connection pool and one query cache. Every request runs on its own virtual thread.
+ * <p>
+ * List responses are one JSON array written straight to the socket: the server reads the
+ * DAO keyset page by page ({@code WHERE id > ? ORDER BY id LIMIT ?}, sessions by
+ * {@code (created_at, id)}), so neither side ever holds the whole table. Books and readers
+ * can also be fetched as a single page with {@code after}/{@code limit}; {@code limit} is
+ * capped at {@link #MAX_LIMIT}. The first page is read before the status goes out, so a
+ * failing query is an error response; if a later page fails, the connection is dropped
+ * without the end of the array and the client sees a broken response, not a shorter list.
+ * <p>
+ * Requests that change data (everything but GET) need {@code Authorization: Bearer <token>}
+ * with the token the server was started with.
+ * <pre>
+ * GET    /api/books[/{id}|?after=&amp;limit=|?ids=1,2|?titlePrefix=&amp;limit=]   POST /api/books/csv
+ * GET    /api/books/genres, /api/books/ids?genre=
+ * GET    /api/readers[?after=&amp;limit=|?ids=1,2|?namePrefix=&amp;limit=]       POST /api/readers/csv
+ * GET    /api/readers/{id}/books[?status=|?after=&amp;limit=]
+ * GET    /api/readers/{id}/books/{bookId}/history
+ * PUT    /api/readers/{id}/books/{bookId}?status=
+ * GET    /api/sessions[?sort=date|?from=&amp;to=]  POST /api/sessions
+ * GET    /api/sessions/search[?reader=&amp;book=&amp;genre=&amp;from=&amp;to=&amp;afterCreatedAt=&amp;afterId=&amp;max=]
+ * PUT    /api/sessions/{id}                 DELETE /api/sessions/{id}
+ * </pre>
+ */
+public class BookLibServer {
+
+    private interface Handler {
+        void handle(HttpExchange exchange, String[] path, Map<String, String> params) throws IOException;
+    }
+
+    // id of the client instance, so its reads follow its own writes (see ReadWriteRouter)
+    public static final String CLIENT_HEADER = "X-BookLib-Client";
+
+    // rows per DAO call while a list is streamed
+    private static final int PAGE_SIZE = 1000;
+    // largest limit of a single page and of a prefix search, and most ids per ?ids=
+    public static final int MAX_LIMIT = 1000;
+
+    // a page after the first one failed: the status and part of the array are already out
+    private static class BrokenStreamException extends RuntimeException {
+        BrokenStreamException(RuntimeException cause) {
+            super(cause);
+        }
+    }
+
+    private final BookDao bookDao;
+    private final ReaderDao readerDao;
+    private final ReadingSessionDao sessionDao;
+    private final byte[] token;
+
+    public BookLibServer(BookDao bookDao, ReaderDao readerDao, ReadingSessionDao sessionDao, String token) {
+        if (token == null || token.isBlank()) {
+            throw new IllegalArgumentException("Server token is empty");
+        }
+        this.bookDao = bookDao;
+        this.readerDao = readerDao;
+        this.sessionDao = sessionDao;
+        this.token = token.getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static HttpServer start(int port, String token) {
+        var factory = Factory.INSTANCE;
+        return new BookLibServer(factory.getBookDao(), factory.getReaderDao(), factory.getReadingSessionDao(), token)
+                .listen(port);
+    }
+
+    // 32 random bytes, url-safe
+    public static String randomToken() {
+        var bytes = new byte[32];
+        new SecureRandom().nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    public HttpServer listen(int port) {
+        HttpServer server;
+        try {
+            server = HttpServer.create(new InetSocketAddress(port), 0);
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot listen on port " + port, e);
+        }
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/api/books", exchange -> dispatch(exchange, this::books));
+        server.createContext("/api/readers", exchange -> dispatch(exchange, this::readers));
+        server.createContext("/api/sessions", exchange -> dispatch(exchange, this::sessions));
+        server.start();
+        return server;
+    }
+
+    private void books(HttpExchange exchange, String[] path, Map<String, String> params) throws IOException {
+        var method = exchange.getRequestMethod();
+        // path = ["books", ...]
+        if (path.length == 1 && method.equals("GET") && params.containsKey("ids")) {
+            writeList(exchange, bookDao.findByIds(parseIds(params.get("ids"))));
+        } else if (path.length == 1 && method.equals("GET") && params.containsKey("titlePrefix")) {
+            writeList(exchange, bookDao.findByTitlePrefix(params.get("titlePrefix"), parseLimit(params.get("limit"), 20)));
+        } else if (path.length == 2 && path[1].equals("genres") && method.equals("GET")) {
+            writeList(exchange, bookDao.findGenres());
+        } else if (path.length == 2 && path[1].equals("ids") && method.equals("GET")) {
+            var genre = params.get("genre");
+            if (genre == null) {
+                throw new IllegalArgumentException("genre is required");
+            }
+            writeList(exchange, bookDao.findIdsByGenre(genre));
+        } else if (path.length == 1 && method.equals("GET") && params.containsKey("limit")) {
+            writeList(exchange, bookDao.findPage(parseAfter(params), parseLimit(params.get("limit"), MAX_LIMIT)));
+        } else if (path.length == 1 && method.equals("GET")) {
+            writePages(exchange, (Book last, Integer limit) -> bookDao.findPage(last != null ? last.getId() : null, limit), Long.MAX_VALUE);
+        } else if (path.length == 2 && path[1].equals("csv") && method.equals("POST")) {
+            writeJson(exchange, 200, Map.of("loaded", importCsv(exchange, bookDao::loadFromCsv)));
+        } else if (path.length == 2 && method.equals("GET")) {
+            var book = bookDao.findById(parseId(path[1]));
+            if (book == null) {
+                throw new NotFoundException("Book with id " + path[1] + " not found");
+            }
+            writeJson(exchange, 200, book);
+        } else {
+            notFound(exchange);
+        }
+    }
+
+    private void readers(HttpExchange exchange, String[] path, Map<String, String> params) throws IOException {
+        var method = exchange.getRequestMethod();
+        // path = ["readers", ...]
+        if (path.length == 1 && method.equals("GET") && params.containsKey("ids")) {
+            writeList(exchange, readerDao.findByIds(parseIds(params.get("ids"))));
+        } else if (path.length == 1 && method.equals("GET") && params.containsKey("namePrefix")) {
+            writeList(exchange, readerDao.findByNamePrefix(params.get("namePrefix"), parseLimit(params.get("limit"), 20)));
+        } else if (path.length == 1 && method.equals("GET") && params.containsKey("limit")) {
+            writeList(exchange, readerDao.findPage(parseAfter(params), parseLimit(params.get("limit"), MAX_LIMIT)));
+        } else if (path.length == 1 && method.equals("GET")) {
+            writePages(exchange, (Reader last, Integer limit) -> readerDao.findPage(last != null ? last.getId() : null, limit), Long.MAX_VALUE);
+        } else if (path.length == 2 && path[1].equals("csv") && method.equals("POST")) {
+            writeJson(exchange, 200, Map.of("loaded", importCsv(exchange, readerDao::loadFromCsv)));
+        } else if (path.length == 3 && path[2].equals("books") && method.equals("GET")) {
+            var readerId = parseId(path[1]);
+            if (params.containsKey("status")) {
+                writeList(exchange, bookDao.findByReaderIdAndStatus(readerId, params.get("status")));
+            } else if (params.containsKey("after")) {
+                writeList(exchange, bookDao.findByReaderId(readerId, parseAfter(params), parseLimit(params.get("limit"), 100)));
+            } else {
+                writePages(exchange, (Book last, Integer limit) ->
+                        bookDao.findByReaderId(readerId, last != null ? last.getId() : null, limit), Long.MAX_VALUE);
+            }
+        } else if (path.length == 4 && path[2].equals("books") && method.equals("PUT")) {
+            var status = params.get("status");
+            if (status == null) {
+                throw new IllegalArgumentException("status is required");
+            }
+            bookDao.addBookForReader(parseId(path[3]), parseId(path[1]), status);
+            noContent(exchange);
+        } else if (path.length == 5 && path[2].equals("books") && path[4].equals("history") && method.equals("GET")) {
+            writeList(exchange, bookDao.findStatusHistory(parseId(path[1]), parseId(path[3])));
+        } else {
+            notFound(exchange);
+        }
+    }
+
+    private void sessions(HttpExchange exchange, String[] path, Map<String, String> params) throws IOException {
+        var method = exchange.getRequestMethod();
+        // path = ["sessions", ...]
+        if (path.length == 1 && method.equals("GET")) {
+            // findAll, findAllSortedByDate and findCreatedBetween alike: newest first, one keyset page at a time
+            var query = new SessionQuery()
+                    .setFrom(params.containsKey("from") ? LocalDateTime.parse(params.get("from")) : null)
+                    .setTo(params.containsKey("to") ? LocalDateTime.parse(params.get("to")) : null);
+            writePages(exchange, (ReadingSession last, Integer limit) -> sessionDao.find(query.nextPage(last, limit)), Long.MAX_VALUE);
+        } else if (path.length == 2 && path[1].equals("search") && method.equals("GET")) {
+            var query = new SessionQuery()
+                    .setReaderId(params.containsKey("reader") ? parseId(params.get("reader")) : null)
+                    .setBookId(params.containsKey("book") ? parseId(params.get("book")) : null)
+                    .setGenre(params.get("genre"))
+                    .setFrom(params.containsKey("from") ? LocalDateTime.parse(params.get("from")) : null)
+                    .setTo(params.containsKey("to") ? LocalDateTime.parse(params.get("to")) : null)
+                    .setAfterCreatedAt(params.containsKey("afterCreatedAt") ? LocalDateTime.parse(params.get("afterCreatedAt")) : null)
+                    .setAfterId(params.containsKey("afterId") ? parseId(params.get("afterId")) : null);
+            if ((query.getAfterId() == null) != (query.getAfterCreatedAt() == null)) {
+                throw new IllegalArgumentException("afterId and afterCreatedAt go together");
+            }
+            long max = params.containsKey("max") ? parseCount(params.get("max")) : Long.MAX_VALUE;
+            writePages(exchange, (ReadingSession last, Integer limit) -> sessionDao.find(query.nextPage(last, limit)), max);
+        } else if (path.length == 1 && method.equals("POST")) {
+            var session = readJson(exchange, ReadingSession.class);
+            writeJson(exchange, 201, sessionDao.create(session));
+        } else if (path.length == 2 && method.equals("PUT")) {
+            var session = readJson(exchange, ReadingSession.class);
+            session.setId(parseId(path[1]));
+            writeJson(exchange, 200, sessionDao.update(session));
+        } else if (path.length == 2 && method.equals("DELETE")) {
+            sessionDao.delete(parseId(path[1]));
+            noContent(exchange);
+        } else {
+            notFound(exchange);
+        }
+    }
+
+    private void dispatch(HttpExchange exchange, Handler handler) throws IOException {
+        try {
+            respond(exchange, handler);
+        } catch (BrokenStreamException e) {
+            // not closed: HttpServer drops the connection for an exception from the handler,
+            // without the last chunk, so the client cannot take the list for complete
+            throw e;
+        }
+        exchange.close();
+    }
+
+    private void respond(HttpExchange exchange, Handler handler) throws IOException {
+        if (!exchange.getRequestMethod().equals("GET") && !authorized(exchange)) {
+            writeText(exchange, 401, "Missing or wrong token (Authorization: Bearer <token>)");
+            return;
+        }
+        var path = exchange.getRequestURI().getPath().substring("/api/".length()).split("/");
+        try (var ignored = ReadWriteRouter.as(client(exchange))) {
+            handler.handle(exchange, path, parseQuery(exchange.getRequestURI().getRawQuery()));
+        } catch (NotFoundException e) {
+            writeText(exchange, 404, e.getMessage());
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            writeText(exchange, 400, e.getMessage());
+        } catch (BrokenStreamException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            writeText(exchange, 500, e.toString());
+        }
+    }
+
+    // чтение своих записей с основной базы считается по клиенту, а не по всему серверу
+    private static String client(HttpExchange exchange) {
+        var client = exchange.getRequestHeaders().getFirst(CLIENT_HEADER);
+        return client != null && !client.isBlank()
+                ? client
+                : exchange.getRemoteAddress().getAddress().getHostAddress();
+    }
+
+    // сравнение за постоянное время, чтобы токен нельзя было подобрать по времени ответа
+    private boolean authorized(HttpExchange exchange) {
+        var header = exchange.getRequestHeaders().getFirst("Authorization");
+        if (header == null || !header.startsWith("Bearer ")) {
+            return false;
+        }
+        return MessageDigest.isEqual(token, header.substring("Bearer ".length()).getBytes(StandardCharsets.UTF_8));
+    }
+
+    // списки одного читателя: они небольшие и уже в памяти
+    private static void writeList(HttpExchange exchange, List<?> items) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, 0);
+        try (var generator = Json.MAPPER.createGenerator(exchange.getResponseBody())) {
+            generator.writeStartArray();
+            for (var item : items) {
+                generator.writeObject(item);
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    // потоковая запись: страницы читаются из DAO по ключу (после последнего элемента предыдущей)
+    // и сразу уходят в сокет одним JSON-массивом; max ограничивает общее число элементов.
+    // Первая страница читается до отправки статуса, ошибка на следующих обрывает соединение
+    private static <T> void writePages(HttpExchange exchange, BiFunction<T, Integer, List<T>> nextPage,
+                                       long max) throws IOException {
+        int limit = (int) Math.min(PAGE_SIZE, max);
+        var page = limit > 0 ? nextPage.apply(null, limit) : List.<T>of();
+
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, 0);
+        // не try-with-resources: close() дописал бы ']' и к оборванному списку
+        var generator = Json.MAPPER.createGenerator(exchange.getResponseBody());
+        generator.writeStartArray();
+        long written = 0;
+        while (true) {
+            for (var item : page) {
+                generator.writeObject(item);
+            }
+            generator.flush();
+            written += page.size();
+            if (page.size() < limit || written >= max) {
+                break;
+            }
+            var last = page.get(page.size() - 1);
+            limit = (int) Math.min(PAGE_SIZE, max - written);
+            try {
+                page = nextPage.apply(last, limit);
+            } catch (RuntimeException e) {
+                throw new BrokenStreamException(e);
+            }
+        }
+        generator.writeEndArray();
+        generator.close();
+    }
+
+    private static void writeJson(HttpExchange exchange, int status, Object value) throws IOException {
+        var body = Json.MAPPER.writeValueAsBytes(value);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    private static void writeText(HttpExchange exchange, int status, String text) throws IOException {
+        var body = String.valueOf(text).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    private static void noContent(HttpExchange exchange) throws IOException {
+        exchange.sendResponseHeaders(204, -1);
+    }
+
+    private static void notFound(HttpExchange exchange) throws IOException {
+        writeText(exchange, 404, "No such endpoint: " + exchange.getRequestMethod() + " " + exchange.getRequestURI());
+    }
+
+    private static <T> T readJson(HttpExchange exchange, Class<T> type) throws IOException {
+        try (var body = exchange.getRequestBody()) {
+            return Json.MAPPER.readValue(body, type);
+        } catch (JacksonException e) {
+            throw new IllegalArgumentException("Invalid JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    // loadFromCsv works on files, so the upload is spooled to a temp file first
+    private static int importCsv(HttpExchange exchange, ToIntFunction<File> loader) throws IOException {
+        var file = Files.createTempFile("booklib-import", ".csv");
+        try (var body = exchange.getRequestBody()) {
+            Files.copy(body, file, StandardCopyOption.REPLACE_EXISTING);
+            return loader.applyAsInt(file.toFile());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        var params = new HashMap<String, String>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return params;
+        }
+        for (var pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            var key = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            var value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            params.put(key, value);
+        }
+        return params;
+    }
+
+    // null = from the start
+    private static Long parseAfter(Map<String, String> params) {
+        return params.containsKey("after") ? parseId(params.get("after")) : null;
+    }
+
+    private static List<Long> parseIds(String value) {
+        var ids = new ArrayList<Long>();
+        for (var id : value.split(",")) {
+            if (!id.isBlank()) {
+                ids.add(parseId(id.trim()));
+            }
+        }
+        if (ids.size() > MAX_LIMIT) {
+            throw new IllegalArgumentException("At most " + MAX_LIMIT + " ids per request, got " + ids.size());
+        }
+        return ids;
+    }
+
+    private static Long parseId(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid id: " + value);
+        }
+    }
+
+    // не больше MAX_LIMIT: больше страница не бывает, следующую клиент запросит сам
+    private static int parseLimit(String value, int defaultValue) {
+        if (value == null) {
+            return defaultValue;
+        }
+        return (int) Math.min(parseCount(value), MAX_LIMIT);
+    }
+
+    private static long parseCount(String value) {
+        long count;
+        try {
+            count = Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number: " + value);
+        }
+        if (count < 0) {
+            throw new IllegalArgumentException("Negative number: " + value);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,78 @@
+package booklib.snapshots;
+
+import java.util.Arrays;
+
+/**
+ * Position of each id in a list (id -> index), as two primitive arrays with open
+ * addressing: no boxed keys and no entry objects, about 24 bytes per id.
+ * For duplicate ids the first position is kept, like a linear search would find it.
+ */
+public class IdIndex {
+
+    private static final int EMPTY = -1;
+
+    private long[] ids;
+    private int[] positions;
+    private int size = 0;
+
+    public IdIndex(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedSize * 2 - 1)) << 1;
+        ids = new long[capacity];
+        positions = new int[capacity];
+        Arrays.fill(positions, EMPTY);
+    }
+
+    // -1 = not in the list
+    public int positionOf(long id) {
+        int mask = ids.length - 1;
+        for (int slot = slot(id, mask); positions[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (ids[slot] == id) {
+                return positions[slot];
+            }
+        }
+        return EMPTY;
+    }
+
+    public boolean contains(long id) {
+        return positionOf(id) != EMPTY;
+    }
+
+    public void add(long id, int position) {
+        if ((size + 1) * 2 > ids.length) {
+            resize();
+        }
+        int mask = ids.length - 1;
+        int slot = slot(id, mask);
+        while (positions[slot] != EMPTY) {
+            if (ids[slot] == id) {
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        ids[slot] = id;
+        positions[slot] = position;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void resize() {
+        var oldIds = ids;
+        var oldPositions = positions;
+        ids = new long[oldIds.length * 2];
+        positions = new int[oldIds.length * 2];
+        Arrays.fill(positions, EMPTY);
+        size = 0;
+        for (int i = 0; i < oldIds.length; i++) {
+            if (oldPositions[i] != EMPTY) {
+                add(oldIds[i], oldPositions[i]);
+            }
+        }
+    }
+
+    private static int slot(long id, int mask) {
+        return (int) ((id * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+}
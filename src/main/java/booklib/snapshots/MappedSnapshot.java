@@ -0,0 +1,134 @@
+package booklib.snapshots;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Read-only view of a snapshot written by {@link SnapshotWriter}.
+ * <p>
+ * The file is memory-mapped and only the header is parsed on open; strings and records
+ * are decoded on demand, so opening is cheap no matter how many records the file holds.
+ */
+public class MappedSnapshot {
+
+    private final ByteBuffer buffer;
+    private final int stringCount;
+    private final int stringOffsetsStart;
+    private final int stringDataStart;
+    private final int recordCount;
+    private final int recordOffsetsStart;
+    private final int recordDataStart;
+    private final String[] strings;
+
+    private MappedSnapshot(ByteBuffer buffer) {
+        this.buffer = buffer;
+        if (buffer.getInt(0) != SnapshotWriter.MAGIC) {
+            throw new IllegalArgumentException("Not a BookLib snapshot file");
+        }
+        if (buffer.getInt(4) != SnapshotWriter.VERSION) {
+            throw new IllegalArgumentException("Unsupported snapshot version " + buffer.getInt(4));
+        }
+
+        stringCount = buffer.getInt(8);
+        stringOffsetsStart = 12;
+        stringDataStart = stringOffsetsStart + (stringCount + 1) * Integer.BYTES;
+        int stringDataEnd = stringDataStart + buffer.getInt(stringOffsetsStart + stringCount * Integer.BYTES);
+
+        recordCount = buffer.getInt(stringDataEnd);
+        recordOffsetsStart = stringDataEnd + Integer.BYTES;
+        recordDataStart = recordOffsetsStart + (recordCount + 1) * Integer.BYTES;
+
+        strings = new String[stringCount];
+    }
+
+    public static MappedSnapshot open(File file) {
+        try (var channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            // mapping stays valid after the channel is closed
+            return new MappedSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IOException e) {
+            throw new RuntimeException("Error opening snapshot " + file, e);
+        }
+    }
+
+    public int size() {
+        return recordCount;
+    }
+
+    public Record record(int index) {
+        if (index < 0 || index >= recordCount) {
+            throw new IndexOutOfBoundsException("Record " + index + " out of " + recordCount);
+        }
+        return new Record(recordDataStart + buffer.getInt(recordOffsetsStart + index * Integer.BYTES));
+    }
+
+    private String string(int index) {
+        var s = strings[index];
+        if (s == null) {
+            int start = buffer.getInt(stringOffsetsStart + index * Integer.BYTES);
+            int end = buffer.getInt(stringOffsetsStart + (index + 1) * Integer.BYTES);
+            var bytes = new byte[end - start];
+            buffer.get(stringDataStart + start, bytes);
+            s = new String(bytes, StandardCharsets.UTF_8);
+            strings[index] = s;
+        }
+        return s;
+    }
+
+    /**
+     * Sequential reader over the fields of one record, in the order they were written.
+     */
+    public class Record {
+        private int position;
+
+        private Record(int position) {
+            this.position = position;
+        }
+
+        public Long readLong() {
+            long raw = readVarLong();
+            if (raw == 0) {
+                return null;
+            }
+            long zigZag = raw - 1;
+            return (zigZag >>> 1) ^ -(zigZag & 1);
+        }
+
+        public Integer readInt() {
+            var value = readLong();
+            return value == null ? null : value.intValue();
+        }
+
+        public String readString() {
+            long raw = readVarLong();
+            return raw == 0 ? null : string((int) (raw - 1));
+        }
+
+        public LocalDateTime readDateTime() {
+            var epochSecond = readLong();
+            return epochSecond == null ? null : LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+        }
+
+        // over a field of any type, without decoding it (e.g. a string that is not needed)
+        public void skip() {
+            readVarLong();
+        }
+
+        private long readVarLong() {
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = buffer.get(position++);
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package booklib.snapshots;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * List backed by a {@link MappedSnapshot}. Each element is decoded the first time it is
+ * accessed and then kept, so untouched records cost nothing but their slot in the cache.
+ * New elements can be appended after the snapshot ones (e.g. by {@code loadFromCsv}).
+ */
+public class SnapshotList<T> extends AbstractList<T> {
+
+    private final MappedSnapshot snapshot;
+    private final Function<MappedSnapshot.Record, T> decoder;
+    private final Function<T, Long> idOf;
+    private final Object[] materialized;
+    private final List<T> appended = new ArrayList<>();
+
+    // every record starts with the id of its element (see the saveSnapshot methods)
+    public SnapshotList(MappedSnapshot snapshot, Function<MappedSnapshot.Record, T> decoder, Function<T, Long> idOf) {
+        this.snapshot = snapshot;
+        this.decoder = decoder;
+        this.idOf = idOf;
+        this.materialized = new Object[snapshot.size()];
+    }
+
+    // id of the element; a record that was not decoded yet is not decoded for it, only its first field is read
+    public Long id(int index) {
+        return read(index, idOf, MappedSnapshot.Record::readLong);
+    }
+
+    // one field of the element: from the element once it is decoded (or appended), otherwise from its record
+    @SuppressWarnings("unchecked")
+    public <R> R read(int index, Function<T, R> ofElement, Function<MappedSnapshot.Record, R> ofRecord) {
+        if (index >= materialized.length) {
+            return ofElement.apply(appended.get(index - materialized.length));
+        }
+        var element = (T) materialized[index];
+        return element != null ? ofElement.apply(element) : ofRecord.apply(snapshot.record(index));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        if (index >= materialized.length) {
+            return appended.get(index - materialized.length);
+        }
+        var element = (T) materialized[index];
+        if (element == null) {
+            element = decoder.apply(snapshot.record(index));
+            materialized[index] = element;
+        }
+        return element;
+    }
+
+    @Override
+    public T set(int index, T element) {
+        if (index >= materialized.length) {
+            return appended.set(index - materialized.length, element);
+        }
+        var previous = get(index);
+        materialized[index] = element;
+        return previous;
+    }
+
+    @Override
+    public void add(int index, T element) {
+        if (index != size()) {
+            throw new UnsupportedOperationException("Snapshot list only supports appending");
+        }
+        appended.add(element);
+        modCount++;
+    }
+
+    @Override
+    public int size() {
+        return materialized.length + appended.size();
+    }
+}
@@ -0,0 +1,113 @@
+package booklib.snapshots;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Builds a binary snapshot file record by record.
+ * <p>
+ * Layout (all ints big-endian):
+ * <pre>
+ * magic, version, stringCount, stringOffsets[stringCount + 1], string bytes (UTF-8),
+ * recordCount, recordOffsets[recordCount + 1], record bytes
+ * </pre>
+ * Strings are dictionary-encoded, numbers are varints and timestamps are epoch seconds,
+ * so a record is usually just a handful of bytes. The offset tables let
+ * {@link MappedSnapshot} jump straight to any record without scanning the file.
+ */
+public class SnapshotWriter {
+
+    static final int MAGIC = 0x424C534E; // "BLSN"
+    static final int VERSION = 1;
+
+    private final Map<String, Integer> dictionary = new LinkedHashMap<>();
+    private final ByteArrayOutputStream records = new ByteArrayOutputStream();
+    private int[] recordOffsets = new int[1024];
+    private int recordCount = 0;
+
+    public void beginRecord() {
+        if (recordCount == recordOffsets.length) {
+            recordOffsets = Arrays.copyOf(recordOffsets, recordCount * 2);
+        }
+        recordOffsets[recordCount++] = records.size();
+    }
+
+    // 0 = null, иначе zigzag(value) + 1
+    public void writeLong(Long value) {
+        writeVarLong(value == null ? 0 : zigZag(value) + 1);
+    }
+
+    public void writeInt(Integer value) {
+        writeLong(value == null ? null : value.longValue());
+    }
+
+    // 0 = null, иначе индекс в словаре + 1
+    public void writeString(String value) {
+        if (value == null) {
+            writeVarLong(0);
+            return;
+        }
+        int index = dictionary.computeIfAbsent(value, v -> dictionary.size());
+        writeVarLong(index + 1L);
+    }
+
+    // секунды с эпохи; доли секунды отбрасываются (как и в TIMESTAMP колонках)
+    public void writeDateTime(LocalDateTime value) {
+        writeLong(value == null ? null : value.toEpochSecond(ZoneOffset.UTC));
+    }
+
+    public void writeTo(File file) {
+        try (var out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+
+            var encoded = new byte[dictionary.size()][];
+            int i = 0;
+            for (var s : dictionary.keySet()) {
+                encoded[i++] = s.getBytes(StandardCharsets.UTF_8);
+            }
+
+            out.writeInt(encoded.length);
+            int offset = 0;
+            for (var bytes : encoded) {
+                out.writeInt(offset);
+                offset += bytes.length;
+            }
+            out.writeInt(offset);
+            for (var bytes : encoded) {
+                out.write(bytes);
+            }
+
+            out.writeInt(recordCount);
+            for (int r = 0; r < recordCount; r++) {
+                out.writeInt(recordOffsets[r]);
+            }
+            out.writeInt(records.size());
+            records.writeTo(out);
+        } catch (IOException e) {
+            throw new RuntimeException("Error writing snapshot " + file, e);
+        }
+    }
+
+    private void writeVarLong(long value) {
+        while ((value & ~0x7FL) != 0) {
+            records.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        records.write((int) value);
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+}
@@ -0,0 +1,43 @@
+package booklib.snapshots;
+
+import java.util.Arrays;
+
+/**
+ * Ids in ascending order, for keyset pages ({@code id > afterId}) by binary search instead
+ * of a pass over the whole list. Ids come in batches (the initial list, one CSV import);
+ * each batch is sorted and merged in at once.
+ */
+public class SortedIds {
+
+    private long[] ids = new long[0];
+
+    // ids that are not in here yet, each one once
+    public void addAll(long[] batch, int count) {
+        var added = Arrays.copyOf(batch, count);
+        Arrays.sort(added);
+        var merged = new long[ids.length + count];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < ids.length && j < count) {
+            merged[k++] = ids[i] <= added[j] ? ids[i++] : added[j++];
+        }
+        System.arraycopy(ids, i, merged, k, ids.length - i);
+        System.arraycopy(added, j, merged, k + ids.length - i, count - j);
+        ids = merged;
+    }
+
+    // up to limit ids > afterId (null = from the first one)
+    public long[] after(Long afterId, int limit) {
+        int from = 0;
+        if (afterId != null) {
+            from = Arrays.binarySearch(ids, afterId);
+            from = from >= 0 ? from + 1 : -from - 1;
+        }
+        return Arrays.copyOfRange(ids, from, from + Math.max(0, Math.min(limit, ids.length - from)));
+    }
+
+    public int size() {
+        return ids.length;
+    }
+}
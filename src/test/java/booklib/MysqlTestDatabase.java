@@ -0,0 +1,41 @@
+package booklib;
+
+import org.junit.jupiter.api.Assumptions;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.MySQLContainer;
+
+/**
+ * One MySQL container (with {@code init.sql}) shared by all tests that need real MySQL
+ * behaviour: upserts, partitions. Tests calling {@link #jdbc()} are skipped without Docker.
+ */
+public final class MysqlTestDatabase {
+
+    private static MySQLContainer<?> container;
+    private static JdbcTemplate jdbc;
+
+    private MysqlTestDatabase() {
+    }
+
+    public static synchronized JdbcTemplate jdbc() {
+        Assumptions.assumeTrue(DockerClientFactory.instance().isDockerAvailable(), "Docker is not available");
+        if (jdbc == null) {
+            container = new MySQLContainer<>("mysql:8.4")
+                    .withDatabaseName("bookLib")
+                    .withUsername("root")
+                    .withPassword("bookLib");
+            container.start();
+            jdbc = new JdbcTemplate(new DriverManagerDataSource(
+                    container.getJdbcUrl(), container.getUsername(), container.getPassword()));
+            jdbc.execute((ConnectionCallback<Void>) connection -> {
+                ScriptUtils.executeSqlScript(connection, new FileSystemResource("init.sql"));
+                return null;
+            });
+        }
+        return jdbc;
+    }
+}
@@ -0,0 +1,56 @@
+package booklib.books;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Heap used by one million books as {@code ArrayList<Book>} versus {@link CompactBookList}.
+ * Numbers are heap deltas after a full GC, so run it alone, e.g. {@code -Xmx2g}.
+ */
+public class BookFootprintBenchmark {
+
+    private static final int BOOKS = 1_000_000;
+    private static final String[] GENRES = {"fantasy", "sci-fi", "drama", "poetry", "history", "crime"};
+    private static final String[] LANGUAGES = {"en", "sk", "uk", "ru", "de"};
+
+    public static void main(String[] args) {
+        long before = usedHeap();
+        List<Book> plain = fill(new ArrayList<>(BOOKS));
+        long plainBytes = usedHeap() - before;
+        plain.clear();
+        plain = null;
+
+        before = usedHeap();
+        List<Book> compact = fill(new CompactBookList(BOOKS));
+        long compactBytes = usedHeap() - before;
+
+        System.out.printf("ArrayList<Book>:  %6.1f MB per million books%n", plainBytes / 1e6 * 1_000_000 / BOOKS);
+        System.out.printf("CompactBookList:  %6.1f MB per million books (size %d)%n",
+                compactBytes / 1e6 * 1_000_000 / BOOKS, compact.size());
+    }
+
+    // как при загрузке из БД/csv: у каждой книги свои экземпляры строк
+    private static List<Book> fill(List<Book> books) {
+        var start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        for (int i = 0; i < BOOKS; i++) {
+            var book = new Book();
+            book.setId((long) i + 1);
+            book.setTitle("Book title " + i);
+            book.setPages(100 + i % 900);
+            book.setGenre(new String(GENRES[i % GENRES.length]));
+            book.setLanguage(new String(LANGUAGES[i % LANGUAGES.length]));
+            book.setCreatedAt(start.plusSeconds(i));
+            books.add(book);
+        }
+        return books;
+    }
+
+    private static long usedHeap() {
+        var runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,106 @@
+package booklib.books;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactBookListTest {
+
+    @Test
+    void nullFieldsStayNull() {
+        var books = new CompactBookList(1);
+        books.add(new Book());
+        var book = book(7, "novel", "en");
+        book.setPages(0);
+        book.setCreatedAt(LocalDateTime.of(1969, 12, 31, 23, 59, 59));
+        books.add(book);
+
+        var empty = books.get(0);
+        assertNull(empty.getId());
+        assertNull(empty.getTitle());
+        assertNull(empty.getPages());
+        assertNull(empty.getGenre());
+        assertNull(empty.getLanguage());
+        assertNull(empty.getCreatedAt());
+        assertNull(books.idAt(0));
+        assertNull(books.genreAt(0));
+
+        var stored = books.get(1);
+        assertEquals(7L, stored.getId());
+        assertEquals(0, stored.getPages());
+        assertEquals("novel", stored.getGenre());
+        assertEquals("en", stored.getLanguage());
+        assertEquals(LocalDateTime.of(1969, 12, 31, 23, 59, 59), stored.getCreatedAt());
+
+        books.set(1, book(7, null, null));
+        assertNull(books.get(1).getGenre());
+        assertNull(books.get(1).getLanguage());
+        assertNull(books.genreAt(1));
+    }
+
+    @Test
+    void getReturnsADetachedCopy() {
+        var books = new CompactBookList();
+        var original = book(1, "novel", "en");
+        books.add(original);
+        original.setTitle("changed after add");
+
+        var copy = books.get(0);
+        assertNotSame(copy, books.get(0));
+        assertEquals("Title 1", copy.getTitle());
+        copy.setTitle("changed");
+        copy.setGenre("poetry");
+        assertEquals("Title 1", books.get(0).getTitle());
+        assertEquals("novel", books.get(0).getGenre());
+
+        books.set(0, copy);
+        assertEquals("changed", books.get(0).getTitle());
+        assertEquals("poetry", books.genreAt(0));
+    }
+
+    @Test
+    void dictionaryOverflowLeavesTheListUnchanged() {
+        var books = new CompactBookList();
+        // codes are shorts: 0 .. Short.MAX_VALUE
+        for (int i = 0; i <= Short.MAX_VALUE; i++) {
+            books.add(book(i, "genre " + i, "en"));
+        }
+        assertEquals("genre " + Short.MAX_VALUE, books.get(Short.MAX_VALUE).getGenre());
+
+        assertThrows(IllegalStateException.class, () -> books.add(book(-1, "one too many", "en")));
+        assertEquals(Short.MAX_VALUE + 1, books.size());
+        assertThrows(IllegalStateException.class, () -> books.set(0, book(-1, "one too many", "en")));
+        assertEquals(0L, books.idAt(0));
+        assertEquals("genre 0", books.get(0).getGenre());
+
+        // a known value still fits
+        books.add(book(-1, "genre 5", "ru"));
+        assertEquals("genre 5", books.get(books.size() - 1).getGenre());
+        assertEquals(-1L, books.idAt(books.size() - 1));
+    }
+
+    @Test
+    void memoryBookDaoOnTheColumns() {
+        var books = new CompactBookList();
+        for (long id = 10; id >= 1; id--) {
+            books.add(book(id, id % 2 == 0 ? "novel" : "poetry", "en"));
+        }
+        var dao = new MemoryBookDao(books);
+        assertEquals(List.of(1L, 2L, 3L), dao.findPage(null, 3).stream().map(Book::getId).toList());
+        assertEquals(List.of("novel", "poetry"), dao.findGenres());
+        assertEquals(List.of(9L, 7L, 5L, 3L, 1L), dao.findIdsByGenre("poetry"));
+    }
+
+    private static Book book(long id, String genre, String language) {
+        var book = new Book();
+        book.setId(id);
+        book.setTitle("Title " + id);
+        book.setPages(100);
+        book.setGenre(genre);
+        book.setLanguage(language);
+        return book;
+    }
+}
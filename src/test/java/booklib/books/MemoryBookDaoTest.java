@@ -0,0 +1,142 @@
+package booklib.books;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MemoryBookDaoTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void snapshotLookupAndCsvImport() throws Exception {
+        var books = new ArrayList<Book>();
+        for (long id = 1; id <= 500; id++) {
+            books.add(book(id * 2, "Title " + id));
+        }
+        var snapshot = dir.resolve("books.blsn").toFile();
+        new MemoryBookDao(books).saveSnapshot(snapshot);
+
+        var dao = MemoryBookDao.fromSnapshot(snapshot);
+        assertEquals("Title 250", dao.findById(500L).getTitle());
+        assertNull(dao.findById(501L));
+
+        var csv = dir.resolve("books.csv");
+        Files.writeString(csv, "id,title,pages,genre,language,created_at\n"
+                + "4,Duplicate,1,novel,en,2025-01-01T10:00\n"
+                + "1001,New,10,novel,en,2025-01-01T10:00\n");
+        assertEquals(1, dao.loadFromCsv(csv.toFile()));
+        assertEquals("Title 2", dao.findById(4L).getTitle());
+        assertEquals("New", dao.findById(1001L).getTitle());
+        assertEquals(501, dao.findAll().size());
+    }
+
+    @Test
+    void compactListLookup() {
+        var books = new CompactBookList();
+        for (long id = 1; id <= 100; id++) {
+            books.add(book(id, "Title " + id));
+        }
+        var dao = new MemoryBookDao(books);
+        assertEquals("Title 42", dao.findById(42L).getTitle());
+        assertNull(dao.findById(0L));
+    }
+
+    @Test
+    void readerPagesFollowBookIds() {
+        var books = new ArrayList<Book>();
+        for (long id = 1; id <= 50; id++) {
+            books.add(book(id, "Title " + id));
+        }
+        var dao = new MemoryBookDao(books);
+        for (long id = 50; id >= 1; id -= 3) {
+            dao.addBookForReader(id, 7L, id % 2 == 0 ? "READING" : "FINISHED");
+        }
+
+        var first = dao.findByReaderId(7L, null, 5);
+        assertEquals(List.of(2L, 5L, 8L, 11L, 14L), first.stream().map(Book::getId).toList());
+        var next = dao.findByReaderId(7L, 14L, 5);
+        assertEquals(17L, next.get(0).getId());
+        assertEquals(17, dao.findByReaderId(7L).size());
+        assertTrue(dao.findByReaderIdAndStatus(7L, "READING").stream().allMatch(b -> b.getId() % 2 == 0));
+        assertTrue(dao.findByReaderId(8L, null, 5).isEmpty());
+    }
+
+    @Test
+    void pagesAndGenresFromTheIndexes() throws Exception {
+        var books = new ArrayList<Book>();
+        // id не по порядку, с пропусками и одним повтором
+        for (long id = 300; id >= 1; id--) {
+            var book = book(id * 3 % 301, "Title " + id);
+            book.setGenre(id % 3 == 0 ? "poetry" : id % 3 == 1 ? "novel" : null);
+            books.add(book);
+        }
+        books.add(book(3, "Duplicate"));
+        var snapshot = dir.resolve("books.blsn").toFile();
+        new MemoryBookDao(books).saveSnapshot(snapshot);
+
+        for (var dao : List.of(new MemoryBookDao(books), MemoryBookDao.fromSnapshot(snapshot))) {
+            var csv = dir.resolve("books.csv");
+            Files.writeString(csv, "id,title,pages,genre,language,created_at\n"
+                    + "1000,New,10,drama,en,2025-01-01T10:00\n"
+                    + "0,Zero,10,poetry,,\n");
+            assertEquals(2, dao.loadFromCsv(csv.toFile()));
+
+            var all = new ArrayList<Long>();
+            Long last = null;
+            List<Book> page;
+            while (!(page = dao.findPage(last, 7)).isEmpty()) {
+                page.forEach(book -> all.add(book.getId()));
+                last = page.get(page.size() - 1).getId();
+            }
+            var expected = new ArrayList<Long>();
+            for (long id = 0; id <= 300; id++) {
+                expected.add(id);
+            }
+            expected.add(1000L);
+            assertEquals(expected, all);
+            assertEquals("Title 1", dao.findPage(2L, 1).get(0).getTitle());
+            assertTrue(dao.findPage(1000L, 7).isEmpty());
+            assertTrue(dao.findPage(null, 0).isEmpty());
+
+            assertEquals(List.of("drama", "novel", "poetry"), dao.findGenres());
+            assertEquals(List.of(1000L), dao.findIdsByGenre("drama"));
+            var poetry = dao.findIdsByGenre("poetry");
+            assertEquals(101, poetry.size());
+            assertEquals(0L, poetry.get(poetry.size() - 1));
+            for (var id : poetry) {
+                assertEquals("poetry", dao.findById(id).getGenre());
+            }
+            assertTrue(dao.findIdsByGenre("unknown").isEmpty());
+        }
+    }
+
+    @Test
+    void findAllReturnsACopy() {
+        var books = new ArrayList<>(List.of(book(1, "One"), book(2, "Two")));
+        var dao = new MemoryBookDao(books);
+        var all = dao.findAll();
+        all.clear();
+        assertEquals(2, dao.findAll().size());
+        assertEquals("Two", dao.findById(2L).getTitle());
+    }
+
+    private static Book book(long id, String title) {
+        var book = new Book();
+        book.setId(id);
+        book.setTitle(title);
+        book.setPages(100);
+        book.setGenre("novel");
+        book.setLanguage("en");
+        book.setCreatedAt(LocalDateTime.of(2025, 1, 1, 10, 0));
+        return book;
+    }
+}
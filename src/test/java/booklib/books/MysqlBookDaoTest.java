@@ -0,0 +1,35 @@
+package booklib.books;
+
+import booklib.MysqlTestDatabase;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MysqlBookDaoTest {
+
+    @Test
+    void statusAndHistoryAreWrittenTogether() {
+        var jdbc = MysqlTestDatabase.jdbc();
+        jdbc.update("INSERT INTO reader (id, name, password_hash) VALUES (3201, 'status reader', 'x')");
+        jdbc.update("INSERT INTO book (id, title, pages, genre) VALUES (3201, 'status book', 10, 'novel')");
+        var dao = new MysqlBookDao(jdbc);
+
+        dao.addBookForReader(3201L, 3201L, "READING");
+        assertEquals("READING", dao.findStatusHistory(3201L, 3201L).get(0).getStatus());
+
+        // the history insert fails after the upsert of the current status succeeded
+        jdbc.execute("CREATE TRIGGER book_status_fail BEFORE INSERT ON book_status FOR EACH ROW " +
+                "BEGIN IF NEW.status = 'FINISHED' THEN " +
+                "SIGNAL SQLSTATE '45000' SET MESSAGE_TEXT = 'history write failed'; END IF; END");
+        try {
+            assertThrows(RuntimeException.class, () -> dao.addBookForReader(3201L, 3201L, "FINISHED"));
+        } finally {
+            jdbc.execute("DROP TRIGGER book_status_fail");
+        }
+
+        assertEquals("READING", jdbc.queryForObject(
+                "SELECT status FROM book_status_current WHERE reader_id = 3201 AND book_id = 3201", String.class));
+        assertEquals(1, dao.findStatusHistory(3201L, 3201L).size());
+        assertEquals(1, dao.findByReaderIdAndStatus(3201L, "READING").size());
+    }
+}
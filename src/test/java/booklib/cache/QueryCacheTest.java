@@ -0,0 +1,178 @@
+package booklib.cache;
+
+import booklib.books.Book;
+import booklib.books.CachingBookDao;
+import booklib.books.MemoryBookDao;
+import booklib.readers.Reader;
+import booklib.readingSessions.CachingReadingSessionDao;
+import booklib.readingSessions.MemoryReadingSessionDao;
+import booklib.readingSessions.ReadingSession;
+import booklib.readingSessions.SessionQuery;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryCacheTest {
+
+    private static final String[] BOOK = {"book"};
+    private static final String[] SHELF = {"book", "book_status_current"};
+
+    @Test
+    void aWriteToAnyOfItsTablesInvalidatesAnEntry() {
+        var versions = new TableVersions();
+        var cache = new QueryCache(versions, 1 << 20);
+        var loads = new AtomicInteger();
+
+        cache.getList("shelf", List.of(1L), SHELF, RowType.LONG, () -> List.of((long) loads.incrementAndGet()));
+        assertEquals(List.of(1L), cache.getList("shelf", List.of(1L), SHELF, RowType.LONG,
+                () -> List.of((long) loads.incrementAndGet())));
+
+        versions.bump("reader");
+        assertEquals(List.of(1L), cache.getList("shelf", List.of(1L), SHELF, RowType.LONG,
+                () -> List.of((long) loads.incrementAndGet())));
+
+        versions.bump("book_status_current");
+        assertEquals(List.of(2L), cache.getList("shelf", List.of(1L), SHELF, RowType.LONG,
+                () -> List.of((long) loads.incrementAndGet())));
+        // other parameters are another entry
+        assertEquals(List.of(3L), cache.getList("shelf", List.of(2L), SHELF, RowType.LONG,
+                () -> List.of((long) loads.incrementAndGet())));
+        assertEquals(2, cache.getHits());
+        assertEquals(3, cache.getMisses());
+    }
+
+    @Test
+    void aResultReadWhileATableIsWrittenIsNotReturnedAfterTheWrite() {
+        var versions = new TableVersions();
+        var cache = new QueryCache(versions, 1 << 20);
+
+        // the versions are taken before the query runs, so a write during it invalidates the result
+        cache.getList("all", List.of(), BOOK, RowType.STRING, () -> {
+            versions.bump("book");
+            return List.of("old");
+        });
+        assertEquals(List.of("new"), cache.getList("all", List.of(), BOOK, RowType.STRING, () -> List.of("new")));
+    }
+
+    @Test
+    void entriesAreEvictedByEstimatedSizeInLruOrder() {
+        var cache = new QueryCache(new TableVersions(), 10_000);
+        var text = "x".repeat(1000);
+
+        cache.getList("a", List.of(), BOOK, RowType.STRING, () -> List.of(text, text));
+        cache.getList("b", List.of(), BOOK, RowType.STRING, () -> List.of(text, text));
+        assertTrue(cache.getCachedBytes() > 8000 && cache.getCachedBytes() <= 10_000, cache.toString());
+        cache.getList("a", List.of(), BOOK, RowType.STRING, () -> fail("a is cached"));
+
+        // b is the least recently used one
+        cache.getList("c", List.of(), BOOK, RowType.STRING, () -> List.of(text, text));
+        assertEquals(1, cache.getEvictions());
+        cache.getList("a", List.of(), BOOK, RowType.STRING, () -> fail("a is cached"));
+        assertEquals(List.of("b"), cache.getList("b", List.of(), BOOK, RowType.STRING, () -> List.of("b")));
+
+        // larger than the whole cache: returned, not cached
+        var large = List.of("y".repeat(6000));
+        assertEquals(large, cache.getList("large", List.of(), BOOK, RowType.STRING, () -> large));
+        assertSame(large, cache.getList("large", List.of(), BOOK, RowType.STRING, () -> large));
+    }
+
+    @Test
+    void cachedEntitiesAreCopies() {
+        var cache = new QueryCache(new TableVersions(), 1 << 20);
+        var session = session(1, "Title");
+
+        var first = cache.getList("sessions", List.of(), BOOK, rows(), () -> new ArrayList<>(List.of(session)));
+        // as Controller.applyChange does with a list row
+        session.setPagesRead(99);
+        first.get(0).getBook().setTitle("Changed");
+
+        var second = cache.getList("sessions", List.of(), BOOK, rows(), () -> fail("cached"));
+        assertEquals(10, second.get(0).getPagesRead());
+        assertEquals("Title", second.get(0).getBook().getTitle());
+        second.get(0).setPagesRead(50);
+        assertEquals(10, cache.getList("sessions", List.of(), BOOK, rows(), () -> fail("cached")).get(0).getPagesRead());
+    }
+
+    @Test
+    void pagesAfterAKeyAreNotCached() {
+        var books = new ArrayList<Book>();
+        for (long id = 1; id <= 10; id++) {
+            var book = new Book();
+            book.setId(id);
+            book.setTitle("Title " + id);
+            books.add(book);
+        }
+        var cache = new QueryCache(new TableVersions(), 1 << 20);
+        var bookDao = new CachingBookDao(new MemoryBookDao(books), cache);
+
+        bookDao.findPage(null, 3);
+        bookDao.findPage(null, 3);
+        assertEquals(1, cache.getHits());
+        bookDao.findPage(3L, 3);
+        bookDao.findPage(3L, 3);
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+
+        var sessionDao = new CachingReadingSessionDao(new MemoryReadingSessionDao(
+                new ArrayList<>(List.of(session(1, "A"), session(2, "B")))), cache);
+        var first = sessionDao.find(new SessionQuery().setLimit(1));
+        sessionDao.find(new SessionQuery().setLimit(1));
+        assertEquals(2, cache.getHits());
+        sessionDao.find(new SessionQuery().nextPage(first.get(0), 1));
+        assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    void resultsOfARecentlyWrittenTableAreNotKeptWithReplicas() {
+        var versions = new TableVersions();
+        var cache = new QueryCache(versions, 1 << 20, () -> 60_000);
+        var loads = new AtomicInteger();
+
+        cache.getList("all", List.of(), BOOK, RowType.LONG, () -> List.of((long) loads.incrementAndGet()));
+        assertEquals(List.of(1L), cache.getList("all", List.of(), BOOK, RowType.LONG,
+                () -> List.of((long) loads.incrementAndGet())));
+
+        // a replica may not have the write yet, so the next results are not cached
+        versions.bump("book");
+        cache.getList("all", List.of(), BOOK, RowType.LONG, () -> List.of((long) loads.incrementAndGet()));
+        cache.getList("all", List.of(), BOOK, RowType.LONG, () -> List.of((long) loads.incrementAndGet()));
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void withoutReplicasAResultIsCachedRightAfterAWrite() {
+        var versions = new TableVersions();
+        var cache = new QueryCache(versions, 1 << 20);
+        var loads = new AtomicInteger();
+
+        versions.bump("book");
+        cache.getList("all", List.of(), BOOK, RowType.LONG, () -> List.of((long) loads.incrementAndGet()));
+        assertEquals(List.of(1L), cache.getList("all", List.of(), BOOK, RowType.LONG,
+                () -> List.of((long) loads.incrementAndGet())));
+        assertEquals(1, loads.get());
+    }
+
+    private static RowType<ReadingSession> rows() {
+        return new RowType<>(ReadingSession::copy, session -> 100);
+    }
+
+    private static ReadingSession session(long id, String title) {
+        var book = new Book();
+        book.setId(id);
+        book.setTitle(title);
+        var reader = new Reader();
+        reader.setId(id);
+        var session = new ReadingSession();
+        session.setId(id);
+        session.setReader(reader);
+        session.setBook(book);
+        session.setPagesRead(10);
+        session.setCreatedAt(LocalDateTime.of(2025, 1, 1, 0, 0).plusHours(id));
+        return session;
+    }
+}
@@ -0,0 +1,24 @@
+package booklib.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TableVersionsTest {
+
+    @Test
+    void aBumpMovesOnlyTheTablesWritten() {
+        var versions = new TableVersions();
+        assertEquals(0, versions.get("book"));
+        assertEquals(0, versions.lastWriteMillis("book"));
+
+        long before = System.currentTimeMillis();
+        versions.bump("book", "book_status");
+        versions.bump("book");
+        assertEquals(2, versions.get("book"));
+        assertEquals(1, versions.get("book_status"));
+        assertEquals(0, versions.get("reader"));
+        assertTrue(versions.lastWriteMillis("book") >= before);
+        assertEquals(0, versions.lastWriteMillis("reader"));
+    }
+}
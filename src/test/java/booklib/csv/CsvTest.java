@@ -0,0 +1,74 @@
+package booklib.csv;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvTest {
+
+    private static final List<String> VALUES = Arrays.asList("plain", "", null, "a,b", "say \"hi\"", "\"", ",", "\"\"",
+            "trailing,", " spaced ", "Война и мир", "two\nlines", "windows\r\nline", "lone\rreturn", "\n", "end\r");
+
+    @Test
+    void quotedValuesRoundTrip() {
+        // every value at every position, so quotes at the start, middle and end of a line are covered
+        var text = new StringBuilder();
+        var records = new ArrayList<List<String>>();
+        for (int shift = 0; shift < VALUES.size(); shift++) {
+            var record = new ArrayList<String>();
+            for (int i = 0; i < VALUES.size(); i++) {
+                record.add(VALUES.get((i + shift) % VALUES.size()));
+            }
+            var line = line(record);
+            assertEquals(record, Arrays.asList(Csv.split(line)), line);
+            records.add(record);
+            text.append(line).append(shift % 2 == 0 ? "\n" : "\r\n");
+        }
+
+        // the same records as one stream, with line breaks inside values
+        var read = new ArrayList<List<String>>();
+        try (var in = new Csv.Records(new StringReader(text.toString()))) {
+            String[] record;
+            while ((record = in.next()) != null) {
+                read.add(Arrays.asList(record));
+            }
+        } catch (Exception e) {
+            fail(e);
+        }
+        assertEquals(records, read);
+    }
+
+    @Test
+    void nullAndEmptyStringDiffer() {
+        assertEquals("1,,\"\",x", line(Arrays.asList("1", null, "", "x")));
+        assertArrayEquals(new String[]{"1", null, "", "x"}, Csv.split("1,,\"\",x"));
+        // hand-written files: an empty field is NULL
+        assertArrayEquals(new String[]{"1", "Title", null, "novel", null}, Csv.split("1,Title,,novel,"));
+    }
+
+    @Test
+    void emptyLinesAreSkippedAndOpenQuotesRejected() throws Exception {
+        try (var in = new Csv.Records(new StringReader("a,b\n\n\r\nc,d\n"))) {
+            assertArrayEquals(new String[]{"a", "b"}, in.next());
+            assertArrayEquals(new String[]{"c", "d"}, in.next());
+            assertNull(in.next());
+        }
+        assertThrows(IllegalArgumentException.class, () -> Csv.split("1,\"open"));
+    }
+
+    private static String line(List<String> values) {
+        var line = new StringBuilder();
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            Csv.append(line, values.get(i));
+        }
+        return line.toString();
+    }
+}
@@ -0,0 +1,226 @@
+package booklib.export;
+
+import booklib.books.Book;
+import booklib.books.MemoryBookDao;
+import booklib.events.ChangeEventBus;
+import booklib.readers.MemoryReaderDao;
+import booklib.readers.Reader;
+import booklib.readingSessions.ReadingSession;
+import booklib.readingSessions.ShardedReadingSessionDao;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@link LibraryExporter} to {@link LibraryImporter} and to {@code loadFromCsv}, on H2.
+ */
+class LibraryImporterTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void importRestoresEveryTable() {
+        var source = database(true);
+        fill(source);
+        var directory = dir.toFile();
+        // small parts, so every table but the empty one has several files
+        new LibraryExporter(source, List.of(), 4, 100, 128, 1).export(directory);
+
+        var target = database(true);
+        var shards = List.of(database(false), database(false), database(false));
+        var importer = new LibraryImporter(target, shards, 4, 50);
+        var results = importer.load(directory);
+        assertTrue(results.stream().filter(r -> r.table().equals("reading_session")).count() > 1);
+        for (var result : results) {
+            assertEquals(result.lines(), result.rows(), result.fileName());
+        }
+
+        for (var table : LibraryExporter.TABLES) {
+            var expected = rows(List.of(source), table);
+            var actual = rows(table.name().equals("reading_session") ? shards : List.of(target), table);
+            assertEquals(expected, actual, table.name());
+        }
+        for (var row : shards.get(1).queryForList("SELECT reader_id FROM reading_session")) {
+            assertEquals(1, ShardedReadingSessionDao.shardFor(((Number) row.get("READER_ID")).longValue(), 3));
+        }
+
+        // rows already present are kept, so a second run changes nothing
+        importer.load(directory);
+        assertEquals(rows(List.of(source), LibraryExporter.TABLES.get(3)), rows(List.of(target), LibraryExporter.TABLES.get(3)));
+        assertEquals(2000, shards.stream()
+                .mapToLong(shard -> shard.queryForObject("SELECT COUNT(*) FROM reading_session", Long.class)).sum());
+
+        // new sessions get ids after the imported ones
+        var reader = new Reader();
+        reader.setId(7L);
+        var book = new Book();
+        book.setId(1L);
+        var dao = new ShardedReadingSessionDao(shards, new MemoryReaderDao(new ArrayList<>(List.of(reader))),
+                new MemoryBookDao(new ArrayList<>(List.of(book))), new ChangeEventBus());
+        dao.createTables();
+        var session = new ReadingSession();
+        session.setReader(reader);
+        session.setBook(book);
+        session.setCreatedAt(START);
+        assertEquals(2001, dao.create(session).getId());
+        var ids = dao.findAll().stream().map(ReadingSession::getId).toList();
+        assertEquals(2001, ids.size());
+        assertEquals(2001, ids.stream().distinct().count());
+    }
+
+    @Test
+    void invalidRowsFailTheImport() throws Exception {
+        var target = database(true);
+        var directory = dir.toFile();
+        Files.writeString(dir.resolve("book.csv"), "id,title,pages,genre,language,created_at\n"
+                + "1,Fine,10,novel,en,2025-01-01T10:00\n"
+                + "2,Too long,10," + "x".repeat(51) + ",en,2025-01-01T10:00\n");
+        assertThrows(RuntimeException.class, () -> new LibraryImporter(target, List.of(), 1, 1).load(directory));
+
+        Files.writeString(dir.resolve("book.csv"), "id,title,pages,genre,language,created_at\n"
+                + "1,Fine,10,novel,en,2025-01-01T10:00\n"
+                + "2,Wrong,10,novel,en,tomorrow\n");
+        assertThrows(RuntimeException.class, () -> new LibraryImporter(target, List.of(), 1, 1).load(directory));
+    }
+
+    @Test
+    void exportedBooksAndReadersLoadFromCsv() {
+        var source = database(true);
+        fill(source);
+        var directory = dir.toFile();
+        new LibraryExporter(source, List.of(), 2, 100, 128, 1).export(directory);
+
+        var books = new MemoryBookDao(new ArrayList<>());
+        var readers = new MemoryReaderDao(new ArrayList<>());
+        for (var file : files(directory, "book")) {
+            books.loadFromCsv(file);
+        }
+        for (var file : files(directory, "reader")) {
+            readers.loadFromCsv(file);
+        }
+
+        var loadedBooks = new ArrayList<>(books.findAll());
+        loadedBooks.sort(Comparator.comparing(Book::getId));
+        assertEquals(300, loadedBooks.size());
+        for (var book : loadedBooks) {
+            long id = book.getId();
+            assertEquals(title(id), book.getTitle());
+            assertEquals((int) id, book.getPages());
+            assertEquals(language(id), book.getLanguage());
+            assertEquals(START.plusMinutes(id), book.getCreatedAt());
+        }
+
+        var loadedReaders = new ArrayList<>(readers.findAll());
+        loadedReaders.sort(Comparator.comparing(Reader::getId));
+        assertEquals(200, loadedReaders.size());
+        for (var reader : loadedReaders) {
+            long id = reader.getId();
+            assertEquals("Reader \"" + id + "\", jr.", reader.getName());
+            assertEquals(id % 3 == 0 ? null : START.plusHours(id), reader.getCreatedAt());
+        }
+    }
+
+    private static String title(long id) {
+        return switch ((int) (id % 5)) {
+            case 0 -> "Title " + id;
+            case 1 -> "Title, vol. " + id;
+            case 2 -> "\"Quoted\" " + id + ",";
+            case 3 -> "Two\nlines " + id;
+            default -> "Windows\r\nline " + id;
+        };
+    }
+
+    // NULL and an empty string must both survive
+    private static String language(long id) {
+        return id % 5 == 0 ? null : id % 7 == 0 ? "" : "en";
+    }
+
+    private static void fill(JdbcOperations jdbc) {
+        for (long id = 1; id <= 300; id++) {
+            jdbc.update("INSERT INTO book (id, title, pages, genre, language, created_at) VALUES (?, ?, ?, ?, ?, ?)",
+                    id, title(id), id, id % 2 == 0 ? "novel" : "poetry", language(id), START.plusMinutes(id));
+        }
+        for (long id = 1; id <= 200; id++) {
+            jdbc.update("INSERT INTO reader (id, name, password_hash, created_at) VALUES (?, ?, ?, ?)",
+                    id, "Reader \"" + id + "\", jr.", "hash" + id, id % 3 == 0 ? null : START.plusHours(id));
+        }
+        var random = new Random(3);
+        for (long id = 1; id <= 2000; id++) {
+            jdbc.update("INSERT INTO reading_session (id, reader_id, book_id, pages_read, duration_minutes, created_at) " +
+                            "VALUES (?, ?, ?, ?, ?, ?)",
+                    id, 1 + random.nextInt(200), 1 + random.nextInt(300), random.nextInt(50), random.nextInt(90),
+                    START.plusMinutes(random.nextInt(100_000)));
+        }
+        var statuses = new String[]{"WANT_TO_READ", "READING", "FINISHED"};
+        for (long id = 1; id <= 500; id++) {
+            jdbc.update("INSERT INTO book_status (id, reader_id, book_id, status, created_at) VALUES (?, ?, ?, ?, ?)",
+                    id, 1 + id % 200, 1 + id % 300, statuses[(int) (id % 3)], START.plusSeconds(id));
+        }
+        for (long reader = 1; reader <= 200; reader++) {
+            jdbc.update("INSERT INTO book_status_current (reader_id, book_id, status, updated_at) VALUES (?, ?, ?, ?)",
+                    reader, 1 + reader % 300, statuses[(int) (reader % 3)], reader % 7 == 0 ? null : START.plusDays(reader));
+            for (long book = reader; book < reader + 3; book++) {
+                jdbc.update("INSERT INTO favorite_books (reader_id, book_id) VALUES (?, ?)", reader, book);
+            }
+        }
+    }
+
+    private static List<Map<String, Object>> rows(List<JdbcOperations> sources, LibraryExporter.Table table) {
+        var rows = new ArrayList<Map<String, Object>>();
+        for (var source : sources) {
+            rows.addAll(source.queryForList("SELECT " + table.columns() + " FROM " + table.name()));
+        }
+        rows.sort(Comparator.comparing(Object::toString));
+        return rows;
+    }
+
+    private static List<File> files(File directory, String table) {
+        var files = directory.listFiles((d, name) -> name.startsWith(table + "-") || name.equals(table + ".csv.gz"));
+        assertNotNull(files);
+        assertTrue(files.length > 1);
+        return List.of(files);
+    }
+
+    // the tables of init.sql without partitions and foreign keys, or an empty shard
+    private static JdbcOperations database(boolean full) {
+        var jdbc = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", ""));
+        if (!full) {
+            // a shard, the importer creates its tables
+            return jdbc;
+        }
+        jdbc.execute("CREATE TABLE reading_session (id BIGINT NOT NULL, reader_id BIGINT NOT NULL, book_id BIGINT NOT NULL, " +
+                "pages_read INT NOT NULL, duration_minutes INT NOT NULL, created_at DATETIME NOT NULL, " +
+                "PRIMARY KEY (id, created_at))");
+        jdbc.execute("CREATE TABLE book (id BIGINT PRIMARY KEY, title VARCHAR(255) NOT NULL, pages INT NOT NULL, " +
+                "genre VARCHAR(50) NOT NULL, language VARCHAR(10) NULL, created_at TIMESTAMP NULL)");
+        jdbc.execute("CREATE TABLE reader (id BIGINT PRIMARY KEY, name VARCHAR(100) NOT NULL, " +
+                "password_hash VARCHAR(255) NOT NULL, created_at TIMESTAMP NULL)");
+        jdbc.execute("CREATE TABLE book_status (id BIGINT PRIMARY KEY, reader_id BIGINT NOT NULL, book_id BIGINT NOT NULL, " +
+                "status ENUM('WANT_TO_READ', 'READING', 'FINISHED') NOT NULL, created_at TIMESTAMP NULL)");
+        jdbc.execute("CREATE TABLE book_status_current (reader_id BIGINT NOT NULL, book_id BIGINT NOT NULL, " +
+                "status ENUM('WANT_TO_READ', 'READING', 'FINISHED') NOT NULL, updated_at TIMESTAMP NULL, " +
+                "PRIMARY KEY (reader_id, book_id))");
+        jdbc.execute("CREATE TABLE favorite_books (reader_id BIGINT NOT NULL, book_id BIGINT NOT NULL, " +
+                "PRIMARY KEY (reader_id, book_id))");
+        return jdbc;
+    }
+}
@@ -0,0 +1,96 @@
+package booklib.favorites;
+
+import java.util.Random;
+
+/**
+ * Rough latency check of {@link FavoritesIndex} on synthetic data (no database needed):
+ * 1M readers with 20 favorites each out of 200k books, popularity skewed towards
+ * low book ids. Run with e.g. {@code -Xmx4g}; the heap figure is a delta after a full GC,
+ * so run it alone.
+ */
+public class FavoritesBenchmark {
+
+    private static final int READERS = 1_000_000;
+    private static final int BOOKS = 200_000;
+    private static final int FAVORITES_PER_READER = 20;
+    private static final int QUERIES = 200_000;
+
+    public static void main(String[] args) {
+        var random = new Random(42);
+        var index = new FavoritesIndex();
+
+        long heapBefore = usedHeap();
+        long start = System.nanoTime();
+        for (long reader = 1; reader <= READERS; reader++) {
+            for (int i = 0; i < FAVORITES_PER_READER; i++) {
+                index.add(reader, skewedBook(random));
+            }
+        }
+        long buildNanos = System.nanoTime() - start;
+        // the bitmaps alone, and the heap with the maps holding them (Long keys, entries, tables)
+        System.out.printf("build: %d readers in %.0f ms, bitmaps %.1f MB, heap %.1f MB%n",
+                READERS, buildNanos / 1e6, index.sizeInBytes() / 1e6, (usedHeap() - heapBefore) / 1e6);
+
+        // warm-up, then measure
+        for (int round = 0; round < 2; round++) {
+            boolean report = round == 1;
+            long sink = 0;
+
+            start = System.nanoTime();
+            for (int i = 0; i < QUERIES; i++) {
+                sink += index.countFavoritesInCommon(randomReader(random), randomReader(random));
+            }
+            print(report, "countFavoritesInCommon", start);
+
+            start = System.nanoTime();
+            for (int i = 0; i < QUERIES; i++) {
+                sink += index.favoritesInCommon(randomReader(random), randomReader(random)).length;
+            }
+            print(report, "favoritesInCommon", start);
+
+            start = System.nanoTime();
+            for (int i = 0; i < QUERIES; i++) {
+                sink += index.favoriteCount(skewedBook(random));
+            }
+            print(report, "favoriteCount", start);
+
+            start = System.nanoTime();
+            for (int i = 0; i < QUERIES / 100; i++) {
+                sink += index.readersWhoFavoritedAll(skewedBook(random), skewedBook(random)).length;
+            }
+            print(report, "readersWhoFavoritedAll(2 books)", start, QUERIES / 100);
+
+            if (report) {
+                System.out.println("(checksum " + sink + ")");
+            }
+        }
+    }
+
+    private static long usedHeap() {
+        var runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static long randomReader(Random random) {
+        return 1 + random.nextInt(READERS);
+    }
+
+    // квадрат равномерного числа: книги с малым id заметно популярнее
+    private static long skewedBook(Random random) {
+        double u = random.nextDouble();
+        return 1 + (long) (u * u * BOOKS);
+    }
+
+    private static void print(boolean report, String name, long start) {
+        print(report, name, start, QUERIES);
+    }
+
+    private static void print(boolean report, String name, long start, int queries) {
+        if (report) {
+            System.out.printf("%-34s %8.2f us/query%n", name, (System.nanoTime() - start) / 1e3 / queries);
+        }
+    }
+}
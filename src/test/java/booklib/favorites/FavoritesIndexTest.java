@@ -0,0 +1,161 @@
+package booklib.favorites;
+
+import booklib.books.Book;
+import booklib.events.ChangeEvent;
+import booklib.events.ChangeEventBus;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Overlap queries of {@link FavoritesIndex} against plain sets of (reader, book) pairs.
+ */
+class FavoritesIndexTest {
+
+    @Test
+    void overlapQueriesMatchSetsAfterAddsAndRemoves() {
+        var random = new Random(9);
+        var index = new FavoritesIndex();
+        var books = new HashMap<Long, Set<Long>>();
+        // some ids at and above 2^31
+        long[] ids = {1, 2, 3, 5, 8, 13, 21, 34, 55, 89, Integer.MAX_VALUE, 1L << 31, FavoritesIndex.MAX_ID};
+
+        for (int step = 0; step < 3000; step++) {
+            long reader = ids[random.nextInt(ids.length)];
+            long book = ids[random.nextInt(ids.length)];
+            if (random.nextInt(3) == 0) {
+                index.remove(reader, book);
+                var set = books.get(reader);
+                if (set != null) {
+                    set.remove(book);
+                }
+            } else {
+                index.add(reader, book);
+                books.computeIfAbsent(reader, r -> new HashSet<>()).add(book);
+            }
+        }
+
+        for (long a : ids) {
+            for (long b : ids) {
+                var common = new TreeSet<>(books.getOrDefault(a, Set.of()));
+                common.retainAll(books.getOrDefault(b, Set.of()));
+                assertEquals(common, sorted(index.favoritesInCommon(a, b)), a + " and " + b);
+                assertEquals(common.size(), index.countFavoritesInCommon(a, b));
+                assertEquals(books.getOrDefault(a, Set.of()).contains(b), index.isFavorite(a, b));
+                assertEquals(readersOf(books, b).size(), index.favoriteCount(b));
+                assertEquals(readersOf(books, a, b), sorted(index.readersWhoFavoritedAll(a, b)));
+                var any = new TreeSet<>(readersOf(books, a));
+                any.addAll(readersOf(books, b));
+                assertEquals(any, sorted(index.readersWhoFavoritedAny(a, b)));
+            }
+        }
+        assertArrayEquals(new long[0], index.readersWhoFavoritedAll());
+        assertArrayEquals(new long[0], index.favoritesInCommon(1, 404));
+    }
+
+    @Test
+    void removingTheLastFavoriteLeavesNothingBehind() {
+        var index = new FavoritesIndex();
+        index.add(1, 10);
+        index.add(1, 10);
+        index.add(2, 10);
+        assertEquals(2, index.favoriteCount(10));
+
+        index.remove(1, 10);
+        index.remove(1, 10);
+        index.remove(3, 10);
+        assertEquals(1, index.favoriteCount(10));
+        index.remove(2, 10);
+        assertEquals(0, index.favoriteCount(10));
+        assertEquals(0, index.sizeInBytes());
+    }
+
+    @Test
+    void eventsKeepALoadedIndexCurrent() {
+        var bus = new ChangeEventBus();
+        var dao = new ListFavoriteDao(List.of(new Favorite(1L, 10L), new Favorite(2L, 10L)));
+        var index = FavoritesIndex.load(dao, bus);
+        assertArrayEquals(new long[]{1, 2}, index.readersWhoFavoritedAll(10));
+
+        bus.publish(ChangeEvent.created(Favorite.class, null, new Favorite(3L, 10L)));
+        bus.publish(new ChangeEvent<>(ChangeEvent.Type.DELETED, Favorite.class, null, new Favorite(1L, 10L)));
+        assertArrayEquals(new long[]{2, 3}, index.readersWhoFavoritedAll(10));
+    }
+
+    @Test
+    void idsBeyondTheRangeAreRejectedNotThrownFromTheListener() {
+        var tooLarge = FavoritesIndex.MAX_ID + 1;
+        assertThrows(IllegalStateException.class, () -> FavoritesIndex.load(
+                new ListFavoriteDao(List.of(new Favorite(1L, 10L), new Favorite(tooLarge, 10L))), new ChangeEventBus()));
+
+        var index = new FavoritesIndex();
+        assertThrows(IllegalArgumentException.class, () -> index.add(1, tooLarge));
+        // nothing half added
+        assertEquals(0, index.sizeInBytes());
+
+        var bus = new ChangeEventBus();
+        var loaded = FavoritesIndex.load(new ListFavoriteDao(List.of(new Favorite(1L, 10L))), bus);
+        var failures = new ArrayList<Throwable>();
+        var thread = Thread.currentThread();
+        var handler = thread.getUncaughtExceptionHandler();
+        thread.setUncaughtExceptionHandler((t, e) -> failures.add(e));
+        try {
+            bus.publish(ChangeEvent.created(Favorite.class, null, new Favorite(tooLarge, 10L)));
+        } finally {
+            thread.setUncaughtExceptionHandler(handler);
+        }
+        assertEquals(List.of(), failures);
+        // the index would answer without that favorite, so it does not answer at all
+        assertThrows(IllegalStateException.class, () -> loaded.favoriteCount(10));
+    }
+
+    private static Set<Long> readersOf(Map<Long, Set<Long>> books, long... bookIds) {
+        var readers = new TreeSet<Long>();
+        books.forEach((reader, favorites) -> {
+            if (Arrays.stream(bookIds).allMatch(favorites::contains)) {
+                readers.add(reader);
+            }
+        });
+        return readers;
+    }
+
+    private static Set<Long> sorted(long[] ids) {
+        var set = new TreeSet<Long>();
+        for (long id : ids) {
+            assertTrue(set.add(id), "duplicate " + id);
+        }
+        return set;
+    }
+
+    private record ListFavoriteDao(List<Favorite> favorites) implements FavoriteDao {
+        @Override
+        public List<Favorite> findAll() {
+            return favorites;
+        }
+
+        @Override
+        public List<Book> findBooksByReaderId(Long readerId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void add(Long readerId, Long bookId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void remove(Long readerId, Long bookId) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
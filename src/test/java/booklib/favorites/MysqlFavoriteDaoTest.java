@@ -0,0 +1,59 @@
+package booklib.favorites;
+
+import booklib.books.Book;
+import booklib.events.ChangeEvent;
+import booklib.events.ChangeEventBus;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MysqlFavoriteDaoTest {
+
+    @Test
+    void addsAndRemovesPublishOnlyRealChanges() {
+        var jdbc = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", ""));
+        jdbc.execute("CREATE TABLE book (id BIGINT PRIMARY KEY, title VARCHAR(255), pages INT, genre VARCHAR(50), " +
+                "language VARCHAR(10), created_at TIMESTAMP NULL)");
+        jdbc.execute("CREATE TABLE favorite_books (reader_id BIGINT NOT NULL, book_id BIGINT NOT NULL, " +
+                "PRIMARY KEY (reader_id, book_id))");
+        for (long id = 10; id <= 12; id++) {
+            jdbc.update("INSERT INTO book (id, title, pages, genre) VALUES (?, ?, 100, 'novel')", id, "Title " + id);
+        }
+        var bus = new ChangeEventBus();
+        var events = new ArrayList<ChangeEvent<Favorite>>();
+        bus.subscribe(Favorite.class, events::add);
+        var dao = new MysqlFavoriteDao(jdbc, bus);
+        var index = FavoritesIndex.load(dao, bus);
+
+        dao.add(1L, 10L);
+        dao.add(1L, 11L);
+        dao.add(2L, 11L);
+        // already there: no event
+        dao.add(1L, 10L);
+        assertEquals(3, events.size());
+        assertEquals(new Favorite(1L, 10L), events.get(0).entity());
+        assertEquals(ChangeEvent.Type.CREATED, events.get(0).type());
+
+        dao.remove(1L, 11L);
+        dao.remove(1L, 12L);
+        assertEquals(4, events.size());
+        assertEquals(ChangeEvent.Type.DELETED, events.get(3).type());
+        assertEquals(new Favorite(1L, 11L), events.get(3).entity());
+
+        assertEquals(List.of(10L), dao.findBooksByReaderId(1L).stream().map(Book::getId).toList());
+        assertEquals(2, dao.findAll().size());
+        // the index followed the events and agrees with a fresh load
+        var reloaded = FavoritesIndex.load(dao, new ChangeEventBus());
+        for (long book = 10; book <= 12; book++) {
+            assertArrayEquals(reloaded.readersWhoFavoritedAll(book), index.readersWhoFavoritedAll(book));
+        }
+        assertArrayEquals(new long[]{2}, index.readersWhoFavoritedAll(11));
+    }
+}
@@ -0,0 +1,133 @@
+package booklib.leaderboards;
+
+import booklib.books.Book;
+import booklib.events.ChangeEventBus;
+import booklib.readers.Reader;
+import booklib.readingSessions.MemoryReadingSessionDao;
+import booklib.readingSessions.ReadingSession;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The boards after session events, compared with a recomputation from all sessions.
+ */
+class LeaderboardServiceTest {
+
+    private final Random random = new Random(5);
+
+    @Test
+    void eventsGiveTheSameBoardsAsARebuild() {
+        var bus = new ChangeEventBus();
+        var dao = new MemoryReadingSessionDao(new ArrayList<>(), bus);
+        var service = LeaderboardService.start(dao, bus);
+        try {
+            for (int step = 0; step < 2000; step++) {
+                var existing = dao.findAll();
+                int action = existing.isEmpty() ? 0 : random.nextInt(3);
+                if (action == 0) {
+                    dao.create(session(null, null));
+                } else if (action == 1) {
+                    // another reader, book and page count: the old contribution is undone
+                    var old = existing.get(random.nextInt(existing.size()));
+                    dao.update(session(old.getId(), old.getCreatedAt()));
+                } else {
+                    dao.delete(existing.get(random.nextInt(existing.size())).getId());
+                }
+                if (step % 50 == 0) {
+                    assertBoards(service, dao.findAll());
+                }
+            }
+            assertBoards(service, dao.findAll());
+        } finally {
+            service.stop();
+        }
+    }
+
+    @Test
+    void eventsDuringARebuildWinOverTheScan() {
+        var bus = new ChangeEventBus();
+        var sessions = new ArrayList<ReadingSession>();
+        for (long id = 1; id <= 300; id++) {
+            sessions.add(session(id, null));
+        }
+        var changed = new AtomicBoolean();
+        var dao = new MemoryReadingSessionDao(sessions, bus) {
+            // returns what the day had before the writes made while it was read
+            @Override
+            public List<ReadingSession> findCreatedBetween(LocalDateTime from, LocalDateTime to) {
+                var scanned = super.findCreatedBetween(from, to);
+                if (!scanned.isEmpty() && changed.compareAndSet(false, true)) {
+                    var first = scanned.get(0);
+                    delete(first.getId());
+                    if (scanned.size() > 1) {
+                        update(session(scanned.get(1).getId(), scanned.get(1).getCreatedAt()));
+                    }
+                    create(session(null, from.plusHours(1)));
+                }
+                return scanned;
+            }
+        };
+
+        var service = LeaderboardService.start(dao, bus);
+        try {
+            assertTrue(changed.get());
+            assertBoards(service, dao.findAll());
+        } finally {
+            service.stop();
+        }
+    }
+
+    private static void assertBoards(LeaderboardService service, Collection<ReadingSession> sessions) {
+        var readerId = (Function<ReadingSession, Long>) session -> session.getReader().getId();
+        var bookId = (Function<ReadingSession, Long>) session -> session.getBook().getId();
+        assertEquals(expected(sessions, 7, readerId), service.topReadersThisWeek(1000), "readers this week");
+        assertEquals(expected(sessions, 30, readerId), service.topReadersThisMonth(1000), "readers this month");
+        assertEquals(expected(sessions, 1, bookId), service.mostReadBooksToday(1000), "books today");
+    }
+
+    private static List<Leaderboard.Entry> expected(Collection<ReadingSession> sessions, int days,
+                                                    Function<ReadingSession, Long> key) {
+        var today = LocalDate.now();
+        var totals = new HashMap<Long, Long>();
+        for (var session : sessions) {
+            var day = session.getCreatedAt().toLocalDate();
+            if (!day.isBefore(today.minusDays(days - 1)) && !day.isAfter(today)) {
+                totals.merge(key.apply(session), (long) session.getPagesRead(), Long::sum);
+            }
+        }
+        return totals.entrySet().stream()
+                .filter(e -> e.getValue() > 0)
+                .map(e -> new Leaderboard.Entry(e.getKey(), e.getValue()))
+                .sorted(Comparator.comparingLong(Leaderboard.Entry::score).reversed()
+                        .thenComparingLong(Leaderboard.Entry::id))
+                .toList();
+    }
+
+    // created within the last 40 days (partly outside the 30-day window), unless given
+    private ReadingSession session(Long id, LocalDateTime createdAt) {
+        var reader = new Reader();
+        reader.setId(1L + random.nextInt(20));
+        var book = new Book();
+        book.setId(1L + random.nextInt(15));
+        var session = new ReadingSession();
+        session.setId(id);
+        session.setReader(reader);
+        session.setBook(book);
+        session.setPagesRead(1 + random.nextInt(100));
+        session.setCreatedAt(createdAt != null ? createdAt
+                : LocalDate.now().atStartOfDay().minusDays(random.nextInt(40)).plusMinutes(random.nextInt(24 * 60)));
+        return session;
+    }
+}
@@ -0,0 +1,85 @@
+package booklib.leaderboards;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeaderboardTest {
+
+    private record Added(LocalDate day, long id, long delta) {
+    }
+
+    @Test
+    void matchesASumOverTheWindowWhileDaysExpire() {
+        int days = 7;
+        var board = new Leaderboard(days);
+        var accepted = new ArrayList<Added>();
+        var random = new Random(3);
+        var today = LocalDate.of(2025, 1, 1);
+
+        for (int step = 0; step < 5000; step++) {
+            if (random.nextInt(50) == 0) {
+                // sometimes several days at once, so more than one bucket expires
+                today = today.plusDays(1 + random.nextInt(3));
+            }
+            if (!accepted.isEmpty() && random.nextInt(4) == 0) {
+                // undo an earlier amount once, as for an updated or deleted session;
+                // a day that has left the window meanwhile is ignored like any other
+                var earlier = accepted.remove(random.nextInt(accepted.size()));
+                board.add(earlier.day(), earlier.id(), -earlier.delta(), today);
+            } else {
+                // a day or two in the future and some days already out of the window are ignored
+                var added = new Added(today.minusDays(random.nextInt(days + 3) - 2), 1 + random.nextInt(30), 1 + random.nextInt(100));
+                board.add(added.day(), added.id(), added.delta(), today);
+                if (!added.day().isBefore(today.minusDays(days - 1)) && !added.day().isAfter(today)) {
+                    accepted.add(added);
+                }
+            }
+
+            if (step % 100 == 0) {
+                board.expire(today);
+                assertEquals(expected(accepted, today, days), board.top(100), "step " + step + ", " + today);
+            }
+        }
+    }
+
+    @Test
+    void aDayLeavesTheWindowAsAWhole() {
+        var board = new Leaderboard(2);
+        var monday = LocalDate.of(2025, 3, 3);
+        board.add(monday, 1, 10, monday);
+        board.add(monday, 2, 5, monday);
+        board.add(monday.plusDays(1), 2, 7, monday.plusDays(1));
+        assertEquals(List.of(new Leaderboard.Entry(2, 12), new Leaderboard.Entry(1, 10)), board.top(5));
+
+        board.expire(monday.plusDays(2));
+        assertEquals(List.of(new Leaderboard.Entry(2, 7)), board.top(5));
+
+        // undone to zero: off the board
+        board.add(monday.plusDays(1), 2, -7, monday.plusDays(2));
+        assertEquals(List.of(), board.top(5));
+    }
+
+    private static List<Leaderboard.Entry> expected(List<Added> accepted, LocalDate today, int days) {
+        var totals = new HashMap<Long, Long>();
+        for (var added : accepted) {
+            if (!added.day().isBefore(today.minusDays(days - 1))) {
+                totals.merge(added.id(), added.delta(), Long::sum);
+            }
+        }
+        return totals.entrySet().stream()
+                .filter(e -> e.getValue() > 0)
+                .map(e -> new Leaderboard.Entry(e.getKey(), e.getValue()))
+                .sorted(Comparator.comparingLong(Leaderboard.Entry::score).reversed()
+                        .thenComparingLong(Leaderboard.Entry::id))
+                .limit(100)
+                .toList();
+    }
+}
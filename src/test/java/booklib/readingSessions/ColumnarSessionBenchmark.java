@@ -0,0 +1,113 @@
+package booklib.readingSessions;
+
+import booklib.books.Book;
+import booklib.readers.Reader;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Aggregation times of {@link ColumnarSessionStore} versus a loop over
+ * {@code List<ReadingSession>} on synthetic data: 10M sessions (or the first argument) of
+ * 100k readers over two years. Run with e.g. {@code -Xmx6g}.
+ */
+public class ColumnarSessionBenchmark {
+
+    private static final int READERS = 100_000;
+    private static final int BOOKS = 50_000;
+    private static final String[] GENRES = {"fantasy", "sci-fi", "drama", "poetry", "history", "crime"};
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        var random = new Random(42);
+        var readers = new ArrayList<Reader>(READERS);
+        for (long id = 1; id <= READERS; id++) {
+            var reader = new Reader();
+            reader.setId(id);
+            readers.add(reader);
+        }
+        var books = new ArrayList<Book>(BOOKS);
+        for (long id = 1; id <= BOOKS; id++) {
+            var book = new Book();
+            book.setId(id);
+            book.setGenre(GENRES[(int) (id % GENRES.length)]);
+            books.add(book);
+        }
+        var sessions = new ArrayList<ReadingSession>(count);
+        var store = new ColumnarSessionStore();
+        for (long id = 1; id <= count; id++) {
+            var session = new ReadingSession();
+            session.setId(id);
+            session.setReader(readers.get(random.nextInt(READERS)));
+            session.setBook(books.get(random.nextInt(BOOKS)));
+            session.setPagesRead(1 + random.nextInt(100));
+            session.setDurationMinutes(1 + random.nextInt(120));
+            session.setCreatedAt(START.plusSeconds(random.nextInt(730 * 86_400)));
+            sessions.add(session);
+            store.add(session);
+        }
+        var from = START.plusMonths(3);
+        var to = START.plusMonths(9);
+        System.out.printf("%,d sessions, %d cores%n", count, Runtime.getRuntime().availableProcessors());
+
+        // warm-up, then measure
+        for (int round = 0; round < 3; round++) {
+            boolean report = round == 2;
+            long sink = 0;
+
+            long start = System.nanoTime();
+            sink += listSumPages(sessions, from, to);
+            print(report, "sumPages, list", start);
+            start = System.nanoTime();
+            sink += store.sumPages(from, to);
+            print(report, "sumPages, columnar", start);
+
+            start = System.nanoTime();
+            sink += listPagesPerReaderPerMonth(sessions).size();
+            print(report, "pagesPerReaderPerMonth, list", start);
+            start = System.nanoTime();
+            sink += store.pagesPerReaderPerMonth().size();
+            print(report, "pagesPerReaderPerMonth, columnar", start);
+
+            start = System.nanoTime();
+            sink += store.minutesPerGenre(books).size();
+            print(report, "minutesPerGenre, columnar", start);
+
+            if (report) {
+                System.out.println("(checksum " + sink + ")");
+            }
+        }
+    }
+
+    private static long listSumPages(List<ReadingSession> sessions, LocalDateTime from, LocalDateTime to) {
+        long sum = 0;
+        for (var session : sessions) {
+            var createdAt = session.getCreatedAt();
+            if (!createdAt.isBefore(from) && createdAt.isBefore(to)) {
+                sum += session.getPagesRead();
+            }
+        }
+        return sum;
+    }
+
+    private static Map<Long, Map<YearMonth, Long>> listPagesPerReaderPerMonth(List<ReadingSession> sessions) {
+        var result = new HashMap<Long, Map<YearMonth, Long>>();
+        for (var session : sessions) {
+            result.computeIfAbsent(session.getReader().getId(), id -> new HashMap<>())
+                    .merge(YearMonth.from(session.getCreatedAt()), (long) session.getPagesRead(), Long::sum);
+        }
+        return result;
+    }
+
+    private static void print(boolean report, String name, long start) {
+        if (report) {
+            System.out.printf("%-34s %8.1f ms%n", name, (System.nanoTime() - start) / 1e6);
+        }
+    }
+}
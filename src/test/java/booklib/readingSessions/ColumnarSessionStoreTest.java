@@ -0,0 +1,160 @@
+package booklib.readingSessions;
+
+import booklib.books.Book;
+import booklib.readers.Reader;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Every aggregation of {@link ColumnarSessionStore} against a plain loop over the sessions.
+ */
+class ColumnarSessionStoreTest {
+
+    // more than two chunks of the store
+    private static final int SESSIONS = 150_000;
+    private static final LocalDateTime START = LocalDateTime.of(1969, 11, 1, 0, 0);
+    private static final String[] GENRES = {"novel", "poetry", "drama"};
+
+    private static final List<Reader> readers = new ArrayList<>();
+    private static final List<Book> books = new ArrayList<>();
+    private static final List<ReadingSession> sessions = new ArrayList<>();
+    private static final ColumnarSessionStore store = new ColumnarSessionStore();
+
+    @BeforeAll
+    static void fill() {
+        for (long id = 1; id <= 50; id++) {
+            var reader = new Reader();
+            reader.setId(id);
+            readers.add(reader);
+        }
+        for (long id = 1; id <= 40; id++) {
+            var book = new Book();
+            book.setId(id);
+            // every tenth book without a genre
+            book.setGenre(id % 10 == 0 ? null : GENRES[(int) (id % GENRES.length)]);
+            books.add(book);
+        }
+        var random = new Random(11);
+        for (long id = 1; id <= SESSIONS; id++) {
+            var session = new ReadingSession();
+            session.setId(id);
+            session.setReader(readers.get(random.nextInt(readers.size())));
+            // ids up to 45: some sessions of books that are not passed to minutesPerGenre
+            var book = new Book();
+            book.setId(1L + random.nextInt(45));
+            session.setBook(book);
+            session.setPagesRead(random.nextInt(300));
+            session.setDurationMinutes(random.nextInt(240));
+            // across 1970 and several month ends, some without a timestamp
+            session.setCreatedAt(random.nextInt(100) == 0 ? null : START.plusSeconds(random.nextInt(400 * 86_400)));
+            sessions.add(session);
+            store.add(session);
+        }
+    }
+
+    @Test
+    void sumsOverAPeriodMatchALoop() {
+        var ranges = List.of(
+                List.of(START, START.plusYears(2)),
+                List.of(LocalDateTime.of(1969, 12, 31, 23, 0), LocalDateTime.of(1970, 1, 1, 1, 0)),
+                List.of(LocalDateTime.of(1970, 3, 1, 0, 0), LocalDateTime.of(1970, 3, 1, 0, 0)),
+                List.of(LocalDateTime.of(1970, 2, 15, 12, 30), LocalDateTime.of(1970, 7, 1, 0, 0)),
+                List.of(LocalDateTime.of(2000, 1, 1, 0, 0), LocalDateTime.of(2001, 1, 1, 0, 0)));
+        for (var range : ranges) {
+            var from = range.get(0);
+            var to = range.get(1);
+            long pages = 0;
+            long minutes = 0;
+            for (var session : sessions) {
+                var createdAt = session.getCreatedAt();
+                if (createdAt != null && !createdAt.isBefore(from) && createdAt.isBefore(to)) {
+                    pages += session.getPagesRead();
+                    minutes += session.getDurationMinutes();
+                }
+            }
+            assertEquals(pages, store.sumPages(from, to), range.toString());
+            assertEquals(minutes, store.sumMinutes(from, to), range.toString());
+        }
+        assertEquals(SESSIONS, store.size());
+    }
+
+    @Test
+    void pagesPerReaderMatchALoop() {
+        for (long readerId : new long[]{1, 17, 50, 51}) {
+            long pages = 0;
+            for (var session : sessions) {
+                if (session.getReader().getId() == readerId) {
+                    pages += session.getPagesRead();
+                }
+            }
+            assertEquals(pages, store.sumPagesForReader(readerId), "reader " + readerId);
+        }
+    }
+
+    @Test
+    void pagesPerReaderPerMonthMatchALoop() {
+        var expected = new HashMap<Long, Map<YearMonth, Long>>();
+        for (var session : sessions) {
+            if (session.getCreatedAt() != null) {
+                expected.computeIfAbsent(session.getReader().getId(), id -> new TreeMap<>())
+                        .merge(YearMonth.from(session.getCreatedAt()), (long) session.getPagesRead(), Long::sum);
+            }
+        }
+        assertEquals(expected, store.pagesPerReaderPerMonth());
+    }
+
+    @Test
+    void minutesPerGenreMatchALoop() {
+        var genres = new HashMap<Long, String>();
+        books.forEach(book -> genres.put(book.getId(), book.getGenre()));
+        var expected = new HashMap<String, Long>();
+        for (var genre : GENRES) {
+            expected.put(genre, 0L);
+        }
+        for (var session : sessions) {
+            var genre = genres.get(session.getBook().getId());
+            if (genre != null) {
+                expected.merge(genre, (long) session.getDurationMinutes(), Long::sum);
+            }
+        }
+        assertEquals(expected, store.minutesPerGenre(books));
+        assertEquals(Map.of(), store.minutesPerGenre(List.of()));
+    }
+
+    @Test
+    void csvLoadsTheSameSessions(@TempDir Path dir) throws Exception {
+        var file = new File(dir.toFile(), "sessions.csv");
+        var csv = new StringBuilder("id,reader_id,book_id,pages_read,duration_minutes,created_at\n");
+        for (var session : sessions.subList(0, 1000)) {
+            csv.append(session.getId()).append(',')
+                    .append(session.getReader().getId()).append(',')
+                    .append(session.getBook().getId()).append(',')
+                    .append(session.getPagesRead()).append(',')
+                    .append(session.getDurationMinutes()).append(',')
+                    .append(session.getCreatedAt() != null ? session.getCreatedAt() : "").append('\n');
+        }
+        Files.writeString(file.toPath(), csv);
+
+        var loaded = new ColumnarSessionStore();
+        assertEquals(1000, loaded.loadFromCsv(file));
+        var fromList = new ColumnarSessionStore();
+        sessions.subList(0, 1000).forEach(fromList::add);
+        assertEquals(fromList.pagesPerReaderPerMonth(), loaded.pagesPerReaderPerMonth());
+        assertEquals(fromList.sumMinutes(START, START.plusYears(2)), loaded.sumMinutes(START, START.plusYears(2)));
+    }
+}
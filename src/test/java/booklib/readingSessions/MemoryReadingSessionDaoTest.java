@@ -0,0 +1,59 @@
+package booklib.readingSessions;
+
+import booklib.books.Book;
+import booklib.readers.Reader;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MemoryReadingSessionDaoTest {
+
+    @Test
+    void updateOfAChangedInstanceLeavesNoStaleIndexEntries() {
+        var first = reader(1L);
+        var second = reader(2L);
+        var book = new Book();
+        book.setId(10L);
+        var other = new Book();
+        other.setId(20L);
+        var dao = new MemoryReadingSessionDao(new ArrayList<>());
+        var start = LocalDateTime.of(2025, 1, 1, 0, 0);
+        for (int i = 0; i < 3; i++) {
+            var session = new ReadingSession();
+            session.setReader(first);
+            session.setBook(book);
+            session.setCreatedAt(start.plusHours(i));
+            dao.create(session);
+        }
+
+        // the caller changes the instance it got back, then updates it
+        var session = dao.find(new SessionQuery().setReaderId(1L).setLimit(1)).get(0);
+        session.setReader(second);
+        session.setBook(other);
+        session.setCreatedAt(start.minusYears(1));
+        dao.update(session);
+
+        assertEquals(2, dao.indexedForReader(1L));
+        assertEquals(1, dao.indexedForReader(2L));
+        assertEquals(start.plusHours(2), dao.findById(session.getId()).getCreatedAt());
+        assertEquals(3, dao.findAllSortedByDate().size());
+        assertEquals(1, dao.find(new SessionQuery().setBookId(20L)).size());
+        assertEquals(2, dao.find(new SessionQuery().setBookId(10L)).size());
+
+        var moved = dao.find(new SessionQuery().setReaderId(1L)).get(0);
+        moved.setReader(second);
+        dao.delete(moved.getId());
+        assertEquals(1, dao.indexedForReader(1L));
+        assertEquals(1, dao.indexedForReader(2L));
+        assertEquals(2, dao.findAll().size());
+    }
+
+    private static Reader reader(long id) {
+        var reader = new Reader();
+        reader.setId(id);
+        return reader;
+    }
+}
@@ -0,0 +1,107 @@
+package booklib.readingSessions;
+
+import booklib.readingSessions.SessionRows.Row;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionArchiveTest {
+
+    private static final YearMonth MONTH = YearMonth.of(2024, 2);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void roundTripOverSeveralBlocks() {
+        var archive = new SessionArchive(dir.toFile());
+        var rows = rows(1, 10_000, 3);
+        archive.write(MONTH, rows);
+
+        assertEquals(List.of(MONTH), archive.months());
+        assertEquals(rows, archive.read(MONTH));
+        assertEquals(rows.size(), archive.count(MONTH));
+        var day = archive.findCreatedBetween(LocalDateTime.of(2024, 2, 10, 0, 0), LocalDateTime.of(2024, 2, 11, 0, 0));
+        assertEquals(rows.stream().filter(r -> r.createdAt().getDayOfMonth() == 10).toList(), day);
+    }
+
+    @Test
+    void appendMergesByIdAndNewRowsWin() {
+        var archive = new SessionArchive(dir.toFile());
+        archive.write(MONTH, rows(1, 5_000, 2));
+
+        var added = rows(4_001, 3_000, 1).stream()
+                .map(r -> new Row(r.id(), r.readerId(), r.bookId(), 99, r.durationMinutes(), r.createdAt()))
+                .toList();
+        try (var writer = archive.append(MONTH)) {
+            added.forEach(writer::add);
+            // ids 1, 3, ..., 3999 and 7001, ..., 9999 stay, 4001..7000 come from the added rows
+            assertEquals(2_000 + 3_000 + 1_500, writer.commit());
+        }
+
+        var stored = archive.read(MONTH);
+        assertEquals(6_500, stored.size());
+        assertEquals(1, stored.get(0).id());
+        assertEquals(added, stored.subList(2_000, 5_000));
+        assertEquals(7_001, stored.get(5_000).id());
+        for (int i = 1; i < stored.size(); i++) {
+            assertTrue(stored.get(i).id() > stored.get(i - 1).id());
+        }
+    }
+
+    @Test
+    void nothingChangesWithoutCommit() throws Exception {
+        var archive = new SessionArchive(dir.toFile());
+        var rows = rows(1, 100, 1);
+        archive.write(MONTH, rows);
+
+        try (var writer = archive.append(MONTH)) {
+            writer.add(rows(1_000, 1, 1).get(0));
+            assertThrows(IllegalArgumentException.class, () -> writer.add(rows(5, 1, 1).get(0)));
+        }
+        assertEquals(rows, archive.read(MONTH));
+        try (var files = Files.list(dir)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void cutOffFileIsNoticed() throws Exception {
+        var archive = new SessionArchive(dir.toFile());
+        archive.write(MONTH, rows(1, 10_000, 1));
+        var file = dir.resolve("reading_session-2024-02.blsa");
+        var bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 4));
+
+        assertThrows(RuntimeException.class, () -> archive.count(MONTH));
+    }
+
+    @Test
+    void rowsOfAnotherMonthAreRejected() {
+        var archive = new SessionArchive(dir.toFile());
+        var row = new Row(1, 1, 1, 1, 1, LocalDateTime.of(2024, 3, 1, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> archive.write(MONTH, List.of(row)));
+        assertFalse(archive.contains(MONTH));
+    }
+
+    // count rows from id first on, ids step apart, spread over the month
+    private static List<Row> rows(long first, int count, int step) {
+        var rows = new ArrayList<Row>();
+        var start = MONTH.atDay(1).atStartOfDay();
+        for (int i = 0; i < count; i++) {
+            long id = first + (long) i * step;
+            rows.add(new Row(id, id % 500, id % 77, (int) (id % 40), (int) (id % 90),
+                    start.plusSeconds(id * 97 % (28L * 24 * 3600))));
+        }
+        return rows;
+    }
+}
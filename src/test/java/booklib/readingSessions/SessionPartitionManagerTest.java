@@ -0,0 +1,47 @@
+package booklib.readingSessions;
+
+import booklib.MysqlTestDatabase;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionPartitionManagerTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void oldPartitionsAreArchivedAndDropped() {
+        var jdbc = MysqlTestDatabase.jdbc();
+        // p_old (before 2025) gets two months, more than one chunk in total
+        jdbc.update("INSERT INTO reading_session (reader_id, book_id, pages_read, duration_minutes, created_at) " +
+                "WITH RECURSIVE n (i) AS (SELECT 1 UNION ALL SELECT i + 1 FROM n WHERE i < 12000) " +
+                "SELECT i % 50, i % 20, 10, 20, TIMESTAMP('2024-11-01') + INTERVAL (i * 400) SECOND FROM n");
+        // rows a run that stopped after EXCHANGE PARTITION left behind
+        jdbc.execute("CREATE TABLE reading_session_archiving LIKE reading_session");
+        jdbc.execute("ALTER TABLE reading_session_archiving REMOVE PARTITIONING");
+        jdbc.update("INSERT INTO reading_session_archiving (id, reader_id, book_id, pages_read, duration_minutes, created_at) " +
+                "VALUES (100001, 1, 1, 10, 20, '2024-10-05 10:00:00'), (100002, 1, 1, 10, 20, '2024-10-06 10:00:00')");
+        var archive = new SessionArchive(dir.toFile());
+        var manager = new SessionPartitionManager(jdbc, archive);
+
+        assertTrue(manager.runOnce(12));
+
+        assertEquals(List.of(YearMonth.of(2024, 10), YearMonth.of(2024, 11), YearMonth.of(2024, 12)), archive.months());
+        assertEquals(2, archive.count(YearMonth.of(2024, 10)));
+        assertEquals(12000, archive.count(YearMonth.of(2024, 11)) + archive.count(YearMonth.of(2024, 12)));
+        assertFalse(manager.partitions().stream().anyMatch(p -> p.name().equals("p_old")));
+        assertEquals(0, jdbc.queryForObject("SELECT COUNT(*) FROM information_schema.TABLES " +
+                "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'reading_session_archiving'", Integer.class));
+        assertEquals(0, jdbc.queryForObject(
+                "SELECT COUNT(*) FROM reading_session WHERE created_at < '2025-01-01'", Integer.class));
+        // the current month and the next ones have their own partitions
+        var current = "p" + YearMonth.now().toString().replace("-", "");
+        assertTrue(manager.partitions().stream().anyMatch(p -> p.name().equals(current)));
+    }
+}
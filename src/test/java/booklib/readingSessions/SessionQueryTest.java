@@ -0,0 +1,194 @@
+package booklib.readingSessions;
+
+import booklib.books.Book;
+import booklib.books.MemoryBookDao;
+import booklib.events.ChangeEventBus;
+import booklib.readers.MemoryReaderDao;
+import booklib.readers.Reader;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Every {@link ReadingSessionDao#find} implementation against the same data, compared with
+ * {@link SessionQuery#matches} over the whole list.
+ */
+class SessionQueryTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final String[] GENRES = {"novel", "poetry", "drama"};
+
+    @TempDir
+    static Path dir;
+
+    private static final List<Reader> readers = new ArrayList<>();
+    private static final List<Book> books = new ArrayList<>();
+    private static final List<ReadingSession> sessions = new ArrayList<>();
+    private static final Map<String, ReadingSessionDao> daos = new LinkedHashMap<>();
+
+    @BeforeAll
+    static void fill() {
+        for (long id = 1; id <= 40; id++) {
+            var reader = new Reader();
+            reader.setId(id);
+            reader.setName("Reader " + id);
+            reader.setPasswordHash("x");
+            readers.add(reader);
+        }
+        for (long id = 1; id <= 30; id++) {
+            var book = new Book();
+            book.setId(id);
+            book.setTitle("Title " + id);
+            book.setPages(100);
+            book.setGenre(GENRES[(int) (id % GENRES.length)]);
+            books.add(book);
+        }
+        var random = new Random(7);
+        for (long id = 1; id <= 3000; id++) {
+            var session = new ReadingSession();
+            session.setId(id);
+            session.setReader(readers.get(random.nextInt(readers.size())));
+            session.setBook(books.get(random.nextInt(books.size())));
+            session.setPagesRead(1 + random.nextInt(50));
+            session.setDurationMinutes(1 + random.nextInt(90));
+            // whole hours over half a year: many sessions share created_at
+            session.setCreatedAt(START.plusHours(random.nextInt(180 * 24)));
+            sessions.add(session);
+        }
+
+        var readerDao = new MemoryReaderDao(readers);
+        var bookDao = new MemoryBookDao(books);
+        daos.put("memory", new MemoryReadingSessionDao(new ArrayList<>(sessions)));
+        daos.put("mysql", new MysqlReadingSessionDao(mysqlOnH2()));
+
+        var shards = List.of(embedded(), embedded(), embedded());
+        var sharded = new ShardedReadingSessionDao(shards, readerDao, bookDao, new ChangeEventBus());
+        sharded.createTables();
+        for (var session : sessions) {
+            shards.get(ShardedReadingSessionDao.shardFor(session.getReader().getId(), shards.size())).update(
+                    "INSERT INTO reading_session (" + SessionRows.COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?)",
+                    session.getId(), session.getReader().getId(), session.getBook().getId(),
+                    session.getPagesRead(), session.getDurationMinutes(), session.getCreatedAt());
+        }
+        daos.put("sharded", sharded);
+
+        // January to March in the archive, the rest in the database
+        var archive = new SessionArchive(dir.toFile());
+        var hot = new ArrayList<ReadingSession>();
+        for (int month = 1; month <= 3; month++) {
+            var yearMonth = YearMonth.of(2024, month);
+            archive.write(yearMonth, sessions.stream()
+                    .filter(s -> YearMonth.from(s.getCreatedAt()).equals(yearMonth))
+                    .map(SessionRows::of)
+                    .toList());
+        }
+        sessions.stream().filter(s -> s.getCreatedAt().getMonthValue() > 3).forEach(hot::add);
+        daos.put("tiered", new TieredReadingSessionDao(new MemoryReadingSessionDao(hot), archive, readerDao, bookDao));
+    }
+
+    @Test
+    void everyImplementationMatchesTheFilter() {
+        var march = LocalDateTime.of(2024, 3, 1, 0, 0);
+        var may = LocalDateTime.of(2024, 5, 1, 0, 0);
+        var queries = new ArrayList<SessionQuery>();
+        for (Integer limit : new Integer[]{null, 1, 7, 100}) {
+            queries.add(new SessionQuery().setLimit(limit));
+            queries.add(new SessionQuery().setReaderId(5L).setLimit(limit));
+            queries.add(new SessionQuery().setBookId(9L).setLimit(limit));
+            queries.add(new SessionQuery().setGenre("poetry").setLimit(limit));
+            queries.add(new SessionQuery().setFrom(march).setTo(may).setLimit(limit));
+            queries.add(new SessionQuery().setReaderId(5L).setGenre("novel").setFrom(march).setLimit(limit));
+            queries.add(new SessionQuery().setBookId(9L).setGenre("drama").setLimit(limit));
+            queries.add(new SessionQuery().setGenre("unknown").setLimit(limit));
+            queries.add(new SessionQuery().setTo(march).setLimit(limit));
+        }
+
+        for (var query : queries) {
+            var expected = expected(query);
+            for (var entry : daos.entrySet()) {
+                assertEquals(expected, ids(entry.getValue().find(query)), entry.getKey() + " " + query);
+            }
+        }
+    }
+
+    @Test
+    void pagesContinueAfterTheLastSession() {
+        var filters = List.of(
+                new SessionQuery(),
+                new SessionQuery().setGenre("novel"),
+                new SessionQuery().setReaderId(3L).setFrom(LocalDateTime.of(2024, 2, 15, 0, 0)));
+        for (var filter : filters) {
+            var expected = expected(filter);
+            for (var entry : daos.entrySet()) {
+                var paged = new ArrayList<Long>();
+                ReadingSession last = null;
+                while (true) {
+                    var page = entry.getValue().find(filter.nextPage(last, 64));
+                    page.forEach(session -> paged.add(session.getId()));
+                    if (page.size() < 64) {
+                        break;
+                    }
+                    last = page.get(page.size() - 1);
+                }
+                assertEquals(expected, paged, entry.getKey() + " " + filter);
+            }
+        }
+    }
+
+    private static List<Long> expected(SessionQuery query) {
+        return sessions.stream()
+                .filter(query::matches)
+                .sorted(SessionQuery.NEWEST_FIRST)
+                .limit(query.getLimit() != null ? query.getLimit() : Long.MAX_VALUE)
+                .map(ReadingSession::getId)
+                .toList();
+    }
+
+    private static List<Long> ids(List<ReadingSession> found) {
+        return found.stream().map(ReadingSession::getId).toList();
+    }
+
+    private static JdbcOperations mysqlOnH2() {
+        var jdbc = embedded();
+        jdbc.execute("CREATE TABLE reader (id BIGINT PRIMARY KEY, name VARCHAR(100), password_hash VARCHAR(255), " +
+                "created_at TIMESTAMP NULL)");
+        jdbc.execute("CREATE TABLE book (id BIGINT PRIMARY KEY, title VARCHAR(255), pages INT, genre VARCHAR(50), " +
+                "language VARCHAR(10), created_at TIMESTAMP NULL)");
+        jdbc.execute("CREATE TABLE reading_session (id BIGINT PRIMARY KEY, reader_id BIGINT, book_id BIGINT, " +
+                "pages_read INT, duration_minutes INT, created_at DATETIME NOT NULL)");
+        for (var reader : readers) {
+            jdbc.update("INSERT INTO reader (id, name, password_hash) VALUES (?, ?, ?)",
+                    reader.getId(), reader.getName(), reader.getPasswordHash());
+        }
+        for (var book : books) {
+            jdbc.update("INSERT INTO book (id, title, pages, genre) VALUES (?, ?, ?, ?)",
+                    book.getId(), book.getTitle(), book.getPages(), book.getGenre());
+        }
+        for (var session : sessions) {
+            jdbc.update("INSERT INTO reading_session (" + SessionRows.COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?)",
+                    session.getId(), session.getReader().getId(), session.getBook().getId(),
+                    session.getPagesRead(), session.getDurationMinutes(), session.getCreatedAt());
+        }
+        return jdbc;
+    }
+
+    private static JdbcOperations embedded() {
+        return new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", ""));
+    }
+}
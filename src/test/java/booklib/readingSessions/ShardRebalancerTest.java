@@ -0,0 +1,156 @@
+package booklib.readingSessions;
+
+import booklib.books.Book;
+import booklib.books.MemoryBookDao;
+import booklib.events.ChangeEventBus;
+import booklib.readers.MemoryReaderDao;
+import booklib.readers.Reader;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@link ShardRebalancer} with {@link ShardedReadingSessionDao} on in-memory H2 databases.
+ */
+class ShardRebalancerTest {
+
+    private static final int SESSIONS = 3000;
+
+    private final List<Reader> readers = new ArrayList<>();
+    private final List<Book> books = new ArrayList<>();
+
+    @BeforeEach
+    void fill() {
+        for (long id = 1; id <= 200; id++) {
+            var reader = new Reader();
+            reader.setId(id);
+            reader.setName("reader " + id);
+            readers.add(reader);
+        }
+        for (long id = 1; id <= 50; id++) {
+            var book = new Book();
+            book.setId(id);
+            book.setTitle("book " + id);
+            books.add(book);
+        }
+    }
+
+    @Test
+    void appendingAShardMovesOnlyTheReadersOfTheNewOne() {
+        var shards = new ArrayList<JdbcOperations>(List.of(embedded(), embedded(), embedded()));
+        var dao = dao(shards);
+        var random = new Random(42);
+        for (int i = 0; i < SESSIONS; i++) {
+            var session = new ReadingSession();
+            session.setReader(readers.get(random.nextInt(readers.size())));
+            session.setBook(books.get(random.nextInt(books.size())));
+            session.setPagesRead(1 + random.nextInt(50));
+            session.setDurationMinutes(1 + random.nextInt(90));
+            dao.create(session);
+        }
+        var before = byReader(dao);
+        var sorted = dao.findAllSortedByDate();
+        assertEquals(SESSIONS, sorted.size());
+        assertNewestFirst(sorted);
+
+        shards.add(embedded());
+        long expectedMoves = sorted.stream()
+                .filter(s -> ShardedReadingSessionDao.shardFor(s.getReader().getId(), 4) == 3)
+                .count();
+        assertEquals(expectedMoves, ShardRebalancer.rebalance(shards, shards));
+        assertTrue(expectedMoves > 0);
+        assertEquals(expectedMoves, count(shards.get(3)));
+        assertEverySessionOnItsShard(shards);
+
+        var rebalanced = dao(shards);
+        assertEquals(before, byReader(rebalanced));
+        assertNewestFirst(rebalanced.findAllSortedByDate());
+        // already in place: a second run moves nothing
+        assertEquals(0, ShardRebalancer.rebalance(shards, shards));
+
+        // new ids continue after the moved ones
+        var session = new ReadingSession();
+        session.setReader(readers.get(0));
+        session.setBook(books.get(0));
+        assertTrue(rebalanced.create(session).getId() > SESSIONS);
+    }
+
+    @Test
+    void anUnshardedTableIsSplitAndARepeatedRunLeavesNoDuplicates() {
+        var main = embedded();
+        ShardedReadingSessionDao.createTables(main);
+        for (long id = 1; id <= SESSIONS; id++) {
+            main.update("INSERT INTO reading_session (" + SessionRows.COLUMNS + ") VALUES (?, ?, ?, 1, 1, ?)",
+                    id, readers.get((int) (id % readers.size())).getId(), books.get((int) (id % books.size())).getId(),
+                    Timestamp.valueOf("2025-01-01 00:00:00"));
+        }
+        var shards = List.of(embedded(), embedded(), embedded());
+
+        // a run interrupted after copying session 1, before deleting it from the source
+        var target = shards.get(ShardedReadingSessionDao.shardFor(readers.get(1).getId(), 3));
+        ShardedReadingSessionDao.createTables(target);
+        target.update("INSERT INTO reading_session (" + SessionRows.COLUMNS + ") VALUES (1, ?, ?, 1, 1, ?)",
+                readers.get(1).getId(), books.get(1).getId(), Timestamp.valueOf("2025-01-01 00:00:00"));
+
+        assertEquals(SESSIONS, ShardRebalancer.rebalance(List.of(main), shards));
+        assertEquals(0, count(main));
+        assertEquals(SESSIONS, shards.stream().mapToLong(ShardRebalancerTest::count).sum());
+        assertEverySessionOnItsShard(shards);
+        assertEquals(SESSIONS, dao(shards).findAll().stream().map(ReadingSession::getId).distinct().count());
+    }
+
+    private ShardedReadingSessionDao dao(List<JdbcOperations> shards) {
+        var dao = new ShardedReadingSessionDao(List.copyOf(shards), new MemoryReaderDao(readers),
+                new MemoryBookDao(books), new ChangeEventBus());
+        dao.createTables();
+        return dao;
+    }
+
+    // session ids per reader
+    private Map<Long, List<Long>> byReader(ShardedReadingSessionDao dao) {
+        var result = new HashMap<Long, List<Long>>();
+        for (var reader : readers) {
+            var sessions = dao.findByReaderId(reader.getId());
+            for (var session : sessions) {
+                assertEquals(reader.getId(), session.getReader().getId());
+            }
+            result.put(reader.getId(), sessions.stream().map(ReadingSession::getId).sorted().toList());
+        }
+        return result;
+    }
+
+    private static void assertEverySessionOnItsShard(List<JdbcOperations> shards) {
+        for (int shard = 0; shard < shards.size(); shard++) {
+            for (var readerId : shards.get(shard).queryForList("SELECT reader_id FROM reading_session", Long.class)) {
+                assertEquals(shard, ShardedReadingSessionDao.shardFor(readerId, shards.size()), "reader " + readerId);
+            }
+        }
+    }
+
+    private static void assertNewestFirst(List<ReadingSession> sessions) {
+        for (int i = 1; i < sessions.size(); i++) {
+            assertTrue(SessionQuery.NEWEST_FIRST.compare(sessions.get(i - 1), sessions.get(i)) < 0, "at " + i);
+        }
+    }
+
+    private static long count(JdbcOperations database) {
+        return database.queryForObject("SELECT COUNT(*) FROM reading_session", Long.class);
+    }
+
+    private static JdbcOperations embedded() {
+        return new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", ""));
+    }
+}
@@ -0,0 +1,152 @@
+package booklib.readingSessions;
+
+import booklib.books.Book;
+import booklib.books.MemoryBookDao;
+import booklib.events.ChangeEventBus;
+import booklib.readers.MemoryReaderDao;
+import booklib.readers.Reader;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardedReadingSessionDaoTest {
+
+    @Test
+    void jumpHashIsStableAndBalanced() {
+        int readers = 100_000;
+        for (int shards = 1; shards <= 10; shards++) {
+            var counts = new int[shards];
+            int moved = 0;
+            for (long reader = 1; reader <= readers; reader++) {
+                int shard = ShardedReadingSessionDao.shardFor(reader, shards);
+                assertTrue(shard >= 0 && shard < shards);
+                assertEquals(shard, ShardedReadingSessionDao.shardFor(reader, shards));
+                counts[shard]++;
+                // appending a shard only moves readers to the new one, never between the old ones
+                if (shards > 1) {
+                    int before = ShardedReadingSessionDao.shardFor(reader, shards - 1);
+                    if (before != shard) {
+                        assertEquals(shards - 1, shard);
+                        moved++;
+                    }
+                }
+            }
+            for (int count : counts) {
+                assertEquals(readers / (double) shards, count, readers * 0.02 / shards + 100);
+            }
+            if (shards > 1) {
+                assertEquals(readers / (double) shards, moved, readers * 0.02 / shards + 100);
+            }
+        }
+    }
+
+    @Test
+    void moveToAnotherShardIsIdempotent() {
+        var readers = new ArrayList<Reader>();
+        for (long id = 1; id <= 20; id++) {
+            var reader = new Reader();
+            reader.setId(id);
+            readers.add(reader);
+        }
+        var book = new Book();
+        book.setId(1L);
+        book.setTitle("Title");
+        var shards = List.of(embedded(), embedded(), embedded());
+        var dao = new ShardedReadingSessionDao(shards, new MemoryReaderDao(readers), new MemoryBookDao(List.of(book)),
+                new ChangeEventBus());
+        dao.createTables();
+
+        var from = readers.get(0);
+        var to = readers.stream()
+                .filter(r -> ShardedReadingSessionDao.shardFor(r.getId(), 3) != ShardedReadingSessionDao.shardFor(from.getId(), 3))
+                .findFirst().orElseThrow();
+        var session = new ReadingSession();
+        session.setReader(from);
+        session.setBook(book);
+        session.setPagesRead(10);
+        var created = dao.create(session);
+
+        created.setReader(to);
+        created.setPagesRead(20);
+        var moved = dao.update(created);
+        assertEquals(to.getId(), moved.getReader().getId());
+        assertEquals("Title", moved.getBook().getTitle());
+        assertEquals(1, dao.findAll().size());
+
+        // a move that stopped after the copy: the old row is still there; repeating the update removes it
+        var source = shards.get(ShardedReadingSessionDao.shardFor(from.getId(), 3));
+        source.update("INSERT INTO reading_session (" + SessionRows.COLUMNS + ") VALUES (?, ?, 1, 10, 0, ?)",
+                created.getId(), from.getId(), created.getCreatedAt());
+        assertEquals(2, dao.findAll().size());
+        dao.update(created);
+        var all = dao.findAll();
+        assertEquals(1, all.size());
+        assertEquals(20, all.get(0).getPagesRead());
+        assertEquals(to.getId(), all.get(0).getReader().getId());
+    }
+
+    @Test
+    void genreWithMoreBooksThanOneStatementTakes() {
+        var readers = new ArrayList<Reader>();
+        for (long id = 1; id <= 50; id++) {
+            var reader = new Reader();
+            reader.setId(id);
+            readers.add(reader);
+        }
+        // two and a half batches of book ids in one genre
+        var books = new ArrayList<Book>();
+        for (long id = 1; id <= ShardedReadingSessionDao.BOOK_IDS_PER_QUERY * 5L / 2 + 10; id++) {
+            var book = new Book();
+            book.setId(id);
+            book.setGenre(id % 10 == 0 ? "poetry" : "novel");
+            books.add(book);
+        }
+        var shards = List.of(embedded(), embedded());
+        var dao = new ShardedReadingSessionDao(shards, new MemoryReaderDao(readers), new MemoryBookDao(books),
+                new ChangeEventBus());
+        dao.createTables();
+        var sessions = new ArrayList<ReadingSession>();
+        var start = LocalDateTime.of(2025, 1, 1, 0, 0);
+        for (long id = 1; id <= 3000; id++) {
+            var session = new ReadingSession();
+            session.setId(id);
+            session.setReader(readers.get((int) (id % readers.size())));
+            session.setBook(books.get((int) (id * 7 % books.size())));
+            session.setCreatedAt(start.plusMinutes(id * 31 % 1000));
+            sessions.add(session);
+            shards.get(ShardedReadingSessionDao.shardFor(session.getReader().getId(), 2)).update(
+                    "INSERT INTO reading_session (" + SessionRows.COLUMNS + ") VALUES (?, ?, ?, 0, 0, ?)",
+                    id, session.getReader().getId(), session.getBook().getId(), session.getCreatedAt());
+        }
+
+        var filter = new SessionQuery().setGenre("novel");
+        var expected = sessions.stream().filter(filter::matches).sorted(SessionQuery.NEWEST_FIRST)
+                .map(ReadingSession::getId).toList();
+        var paged = new ArrayList<Long>();
+        ReadingSession last = null;
+        while (true) {
+            var page = dao.find(filter.nextPage(last, 500));
+            page.forEach(session -> paged.add(session.getId()));
+            if (page.size() < 500) {
+                break;
+            }
+            last = page.get(page.size() - 1);
+        }
+        assertEquals(expected, paged);
+        assertEquals(expected.subList(0, 7), dao.find(new SessionQuery().setGenre("novel").setLimit(7))
+                .stream().map(ReadingSession::getId).toList());
+    }
+
+    private static JdbcOperations embedded() {
+        return new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", ""));
+    }
+}
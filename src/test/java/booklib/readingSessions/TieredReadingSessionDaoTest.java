@@ -0,0 +1,79 @@
+package booklib.readingSessions;
+
+import booklib.books.Book;
+import booklib.books.MemoryBookDao;
+import booklib.readers.MemoryReaderDao;
+import booklib.readers.Reader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TieredReadingSessionDaoTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void pagesOnlyOpenTheMonthsTheyNeed() throws Exception {
+        var readers = new ArrayList<Reader>();
+        for (long id = 1; id <= 5; id++) {
+            var reader = new Reader();
+            reader.setId(id);
+            readers.add(reader);
+        }
+        var book = new Book();
+        book.setId(1L);
+        book.setGenre("novel");
+
+        // January to June 2024 archived, 200 sessions per month, nothing in the database
+        var archive = new SessionArchive(dir.toFile());
+        var sessions = new ArrayList<ReadingSession>();
+        long id = 1;
+        for (int month = 1; month <= 6; month++) {
+            var rows = new ArrayList<SessionRows.Row>();
+            for (int i = 0; i < 200; i++, id++) {
+                var session = new ReadingSession();
+                session.setId(id);
+                session.setReader(readers.get((int) (id % readers.size())));
+                session.setBook(book);
+                session.setCreatedAt(LocalDateTime.of(2024, month, 1 + i % 28, i % 24, 0));
+                sessions.add(session);
+                rows.add(SessionRows.of(session));
+            }
+            archive.write(YearMonth.of(2024, month), rows);
+        }
+        var dao = new TieredReadingSessionDao(new MemoryReadingSessionDao(new ArrayList<>()), archive,
+                new MemoryReaderDao(readers), new MemoryBookDao(List.of(book)));
+
+        // a damaged January fails every query that opens it
+        Files.write(dir.resolve("reading_session-2024-01.blsa"), new byte[]{1, 2, 3});
+        assertThrows(RuntimeException.class, () -> dao.find(new SessionQuery().setReaderId(2L)));
+
+        // 40 sessions of reader 2 per month: three pages of 50 never need more than March to June
+        var filter = new SessionQuery().setReaderId(2L).setGenre("novel");
+        var expected = sessions.stream().filter(filter::matches).sorted(SessionQuery.NEWEST_FIRST)
+                .map(ReadingSession::getId).toList();
+        var paged = new ArrayList<Long>();
+        ReadingSession last = null;
+        for (int page = 0; page < 3; page++) {
+            var found = dao.find(filter.nextPage(last, 50));
+            assertEquals(50, found.size());
+            found.forEach(session -> paged.add(session.getId()));
+            last = found.get(found.size() - 1);
+        }
+        assertEquals(expected.subList(0, 150), paged);
+
+        // a date range opens only the months it overlaps
+        var march = dao.find(new SessionQuery().setFrom(LocalDateTime.of(2024, 3, 1, 0, 0))
+                .setTo(LocalDateTime.of(2024, 4, 1, 0, 0)).setLimit(500));
+        assertEquals(200, march.size());
+    }
+}
@@ -0,0 +1,89 @@
+package booklib.routing;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadWriteRouterTest {
+
+    private static JdbcTemplate database(String name, String value) {
+        var jdbc = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:" + name + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", ""));
+        jdbc.execute("CREATE TABLE IF NOT EXISTS origin (name VARCHAR(20))");
+        jdbc.update("DELETE FROM origin");
+        jdbc.update("INSERT INTO origin VALUES (?)", value);
+        return jdbc;
+    }
+
+    @Test
+    void readsStayOnPrimaryForTheReplicaLagAfterAWrite() {
+        var primary = database("router_primary", "primary");
+        var replica = database("router_replica", "replica");
+        var replicas = new ReplicaSet(List.of(new ReplicaSet.Replica("replica", replica)), 5, 10_000);
+        // configured shorter than the allowed lag
+        var router = ReadWriteRouter.create(primary, replicas, 100);
+
+        assertEquals("replica", router.queryForObject("SELECT name FROM origin", String.class));
+
+        router.update("UPDATE origin SET name = 'primary'");
+        assertEquals(6000, replicas.maxStalenessMillis());
+        assertEquals("primary", router.queryForObject("SELECT name FROM origin", String.class));
+    }
+
+    @Test
+    void onlyTheWritingCallerReadsFromPrimary() throws InterruptedException {
+        var primary = database("caller_primary", "primary");
+        var replica = database("caller_replica", "replica");
+        // no lag allowed and no health checks: a window of one second
+        var replicas = new ReplicaSet(List.of(new ReplicaSet.Replica("replica", replica)), 0, 10_000);
+        var router = ReadWriteRouter.create(primary, replicas, 0);
+
+        try (var ignored = ReadWriteRouter.as("a")) {
+            router.update("UPDATE origin SET name = 'primary'");
+            assertEquals("primary", router.queryForObject("SELECT name FROM origin", String.class));
+        }
+        try (var ignored = ReadWriteRouter.as("b")) {
+            assertEquals("replica", router.queryForObject("SELECT name FROM origin", String.class));
+        }
+        assertEquals("replica", router.queryForObject("SELECT name FROM origin", String.class));
+
+        Thread.sleep(replicas.maxStalenessMillis() + 50);
+        try (var ignored = ReadWriteRouter.as("a")) {
+            assertEquals("replica", router.queryForObject("SELECT name FROM origin", String.class));
+        }
+    }
+
+    @Test
+    void unreachableReplicaIsMarkedDownAndTheNextOneAnswers() {
+        var primary = database("failover_primary", "primary");
+        var replica = database("failover_replica", "replica");
+        // nothing listens on port 1
+        var broken = new ReplicaSet.Replica("broken", new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:tcp://localhost:1/nothing", "sa", "")));
+        var replicas = new ReplicaSet(List.of(broken, new ReplicaSet.Replica("replica", replica)), 5, 10_000);
+        var router = ReadWriteRouter.create(primary, replicas, 0);
+
+        // round robin: one of the two reads starts with the broken replica
+        assertEquals("replica", router.queryForObject("SELECT name FROM origin", String.class));
+        assertEquals("replica", router.queryForObject("SELECT name FROM origin", String.class));
+        assertTrue(broken.isDown());
+        assertEquals(List.of("replica"), replicas.candidates().stream().map(ReplicaSet.Replica::getName).toList());
+    }
+
+    @Test
+    void readsFallBackToPrimaryWhenNoReplicaAnswers() {
+        var primary = database("fallback_primary", "primary");
+        var broken = new ReplicaSet.Replica("broken", new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:tcp://localhost:1/nothing", "sa", "")));
+        var replicas = new ReplicaSet(List.of(broken), 5, 10_000);
+        var router = ReadWriteRouter.create(primary, replicas, 0);
+
+        assertEquals("primary", router.queryForObject("SELECT name FROM origin", String.class));
+        assertTrue(broken.isDown());
+        assertTrue(replicas.candidates().isEmpty());
+    }
+}
@@ -0,0 +1,198 @@
+package booklib.server;
+
+import booklib.books.Book;
+import booklib.books.MemoryBookDao;
+import booklib.books.RemoteBookDao;
+import booklib.events.ChangeEventBus;
+import booklib.readers.MemoryReaderDao;
+import booklib.readers.Reader;
+import booklib.readingSessions.MemoryReadingSessionDao;
+import booklib.readingSessions.ReadingSession;
+import booklib.readingSessions.RemoteReadingSessionDao;
+import booklib.readingSessions.SessionQuery;
+import booklib.remote.RemoteClient;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookLibServerTest {
+
+    private static final String TOKEN = "secret";
+    // more than one page of the server (1000)
+    private static final int COUNT = 2500;
+
+    private HttpServer server;
+    private String url;
+    private List<Book> books;
+    private List<Reader> readers;
+    private List<ReadingSession> sessions;
+
+    @BeforeEach
+    void start() {
+        books = new ArrayList<>();
+        readers = new ArrayList<>();
+        for (long id = COUNT; id >= 1; id--) {
+            var book = new Book();
+            book.setId(id);
+            book.setTitle("Title " + id);
+            book.setGenre(id % 2 == 0 ? "novel" : "poetry");
+            books.add(book);
+            var reader = new Reader();
+            reader.setId(id);
+            reader.setName("Reader " + id);
+            readers.add(reader);
+        }
+        sessions = new ArrayList<>();
+        var start = LocalDateTime.of(2025, 1, 1, 0, 0);
+        for (long id = 1; id <= COUNT; id++) {
+            var session = new ReadingSession();
+            session.setId(id);
+            session.setReader(readers.get((int) (id % 10)));
+            session.setBook(books.get((int) (id % 7)));
+            // several sessions per minute, so the keyset needs the id as tie breaker
+            session.setCreatedAt(start.plusMinutes(id / 3));
+            sessions.add(session);
+        }
+        var sessionDao = new MemoryReadingSessionDao(new ArrayList<>(sessions));
+        server = new BookLibServer(new MemoryBookDao(books), new MemoryReaderDao(readers), sessionDao, TOKEN)
+                .listen(0);
+        url = "http://localhost:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    void stop() {
+        server.stop(0);
+    }
+
+    @Test
+    void listsAreStreamedCompleteAndInKeyOrder() {
+        var bookDao = new RemoteBookDao(new RemoteClient(url, null));
+        var all = bookDao.findAll();
+        assertEquals(COUNT, all.size());
+        for (int i = 0; i < all.size(); i++) {
+            assertEquals(i + 1L, all.get(i).getId());
+        }
+
+        var page = bookDao.findPage(1200L, 5);
+        assertEquals(List.of(1201L, 1202L, 1203L, 1204L, 1205L), page.stream().map(Book::getId).toList());
+    }
+
+    @Test
+    void sessionsAreReadWithAKeyset() {
+        var sessionDao = new RemoteReadingSessionDao(new RemoteClient(url, null), new ChangeEventBus());
+        var expected = new ArrayList<>(sessions);
+        expected.sort(SessionQuery.NEWEST_FIRST);
+        var expectedIds = expected.stream().map(ReadingSession::getId).toList();
+
+        assertEquals(expectedIds, sessionDao.findAllSortedByDate().stream().map(ReadingSession::getId).toList());
+
+        // the same pages through the search endpoint, each continuing after the last one
+        var paged = new ArrayList<Long>();
+        ReadingSession last = null;
+        do {
+            var page = sessionDao.find(new SessionQuery().nextPage(last, 700));
+            page.forEach(session -> paged.add(session.getId()));
+            last = page.size() < 700 ? null : page.get(page.size() - 1);
+        } while (last != null);
+        assertEquals(expectedIds, paged);
+
+        var limited = sessionDao.find(new SessionQuery().setGenre("novel").setLimit(1500));
+        assertEquals(expected.stream().filter(s -> "novel".equals(s.getBook().getGenre())).limit(1500)
+                .map(ReadingSession::getId).toList(), limited.stream().map(ReadingSession::getId).toList());
+    }
+
+    @Test
+    void changesNeedTheToken() {
+        var anonymous = new RemoteReadingSessionDao(new RemoteClient(url, null), new ChangeEventBus());
+        assertThrows(IllegalStateException.class, () -> anonymous.delete(1L));
+        var wrong = new RemoteReadingSessionDao(new RemoteClient(url, "guess"), new ChangeEventBus());
+        assertThrows(IllegalStateException.class, () -> wrong.delete(1L));
+
+        var authorized = new RemoteReadingSessionDao(new RemoteClient(url, TOKEN), new ChangeEventBus());
+        authorized.delete(1L);
+        assertEquals(COUNT - 1, authorized.findAll().size());
+    }
+
+    @Test
+    void aFailingPageIsAnErrorNotAShorterList() {
+        var failing = new AtomicBoolean();
+        var other = new BookLibServer(new MemoryBookDao(books) {
+            @Override
+            public List<Book> findPage(Long afterId, int limit) {
+                if (failing.get() && afterId != null) {
+                    throw new IllegalStateException("database gone");
+                }
+                return super.findPage(afterId, limit);
+            }
+
+            @Override
+            public List<String> findGenres() {
+                throw new IllegalStateException("database gone");
+            }
+        }, new MemoryReaderDao(readers), new MemoryReadingSessionDao(new ArrayList<>(sessions)), TOKEN).listen(0);
+        try {
+            var bookDao = new RemoteBookDao(new RemoteClient("http://localhost:" + other.getAddress().getPort(), null));
+            assertEquals(COUNT, bookDao.findAll().size());
+
+            // before the status: an error response
+            var e = assertThrows(RuntimeException.class, bookDao::findGenres);
+            assertTrue(e.getMessage().startsWith("Server error 500"), e.getMessage());
+
+            // after the first page: the response breaks off
+            failing.set(true);
+            assertThrows(RuntimeException.class, bookDao::findAll);
+        } finally {
+            other.stop(0);
+        }
+    }
+
+    @Test
+    void parametersAreChecked() {
+        var client = new RemoteClient(url, null);
+        var bookList = new TypeReference<List<Book>>() {
+        };
+        assertThrows(IllegalArgumentException.class, () -> client.send("GET", "/api/sessions/search?afterId=5", null, bookList));
+        assertThrows(IllegalArgumentException.class, () -> client.send("GET", "/api/books?limit=-1", null, bookList));
+        assertThrows(IllegalArgumentException.class, () -> client.send("GET", "/api/sessions/search?max=x", null, bookList));
+
+        // capped on the server, fetched in several requests by the remote DAO
+        assertEquals(BookLibServer.MAX_LIMIT, client.send("GET", "/api/books?limit=5000", null, bookList).size());
+        var page = new RemoteBookDao(client).findPage(100L, 2000);
+        assertEquals(2000, page.size());
+        assertEquals(2100L, page.get(page.size() - 1).getId());
+    }
+
+    @Test
+    void aServerThatDoesNotAnswerTimesOut() {
+        var slow = new BookLibServer(new MemoryBookDao(books) {
+            @Override
+            public List<String> findGenres() {
+                try {
+                    Thread.sleep(5000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return List.of();
+            }
+        }, new MemoryReaderDao(readers), new MemoryReadingSessionDao(new ArrayList<>(sessions)), TOKEN).listen(0);
+        try {
+            var client = new RemoteClient("http://localhost:" + slow.getAddress().getPort(), null,
+                    Duration.ofSeconds(1), Duration.ofMillis(200));
+            long start = System.nanoTime();
+            assertThrows(RuntimeException.class, () -> new RemoteBookDao(client).findGenres());
+            assertTrue(System.nanoTime() - start < 3_000_000_000L);
+        } finally {
+            slow.stop(0);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package booklib.snapshots;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotListTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void idsAreReadWithoutDecodingRecords() {
+        var file = dir.resolve("ids.blsn").toFile();
+        var writer = new SnapshotWriter();
+        for (long id = 1; id <= 1000; id++) {
+            writer.beginRecord();
+            writer.writeLong(id * 7);
+            writer.writeString("title " + id);
+        }
+        writer.writeTo(file);
+
+        var decoded = new AtomicInteger();
+        var list = new SnapshotList<>(MappedSnapshot.open(file), record -> {
+            decoded.incrementAndGet();
+            return new long[]{record.readLong()};
+        }, element -> element[0]);
+
+        for (int i = 0; i < list.size(); i++) {
+            assertEquals((i + 1) * 7L, list.id(i));
+        }
+        assertEquals(0, decoded.get());
+
+        assertEquals(70L, list.get(9)[0]);
+        assertEquals(1, decoded.get());
+        list.add(new long[]{5});
+        assertEquals(5L, list.id(1000));
+    }
+
+    @Test
+    void idIndexFindsFirstPositionAndGrows() {
+        var index = new IdIndex(4);
+        for (int i = 0; i < 10_000; i++) {
+            index.add(i * 31L - 5000, i);
+        }
+        index.add(-5000, 99);
+        assertEquals(10_000, index.size());
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(i, index.positionOf(i * 31L - 5000));
+        }
+        assertEquals(-1, index.positionOf(1));
+        assertFalse(index.contains(Long.MAX_VALUE));
+    }
+
+    @Test
+    void sortedIdsMergeBatches() {
+        var ids = new SortedIds();
+        ids.addAll(new long[]{50, 10, 30, 99}, 3);
+        ids.addAll(new long[]{-5, 40, 20}, 3);
+        ids.addAll(new long[0], 0);
+        assertEquals(6, ids.size());
+        assertArrayEquals(new long[]{-5, 10, 20, 30, 40, 50}, ids.after(null, 100));
+        assertArrayEquals(new long[]{20, 30}, ids.after(10L, 2));
+        assertArrayEquals(new long[]{20, 30}, ids.after(15L, 2));
+        assertArrayEquals(new long[0], ids.after(50L, 2));
+        assertArrayEquals(new long[0], ids.after(null, 0));
+    }
+}